@@ -12,5 +12,16 @@ CREATE TABLE account
     iban    CHAR(40)    NOT NULL,
     owner   VARCHAR(40) NOT NULL,
     balance INT(12)     NOT NULL,
+    version INT         NOT NULL DEFAULT 0,
     PRIMARY KEY (iban)
+);
+
+CREATE TABLE work_items
+(
+    id           BIGINT       NOT NULL AUTO_INCREMENT,
+    payload      VARCHAR(255) NOT NULL,
+    status       VARCHAR(10)  NOT NULL,
+    processed_by VARCHAR(40),
+    PRIMARY KEY (id),
+    INDEX work_items_status_idx (status, id)
 );
\ No newline at end of file
@@ -9,11 +9,24 @@ CREATE TABLE account
 (
     iban    VARCHAR    NOT NULL PRIMARY KEY,
     owner   VARCHAR NOT NULL,
-    balance INTEGER     NOT NULL
+    balance INTEGER     NOT NULL,
+    version INTEGER     NOT NULL DEFAULT 0
 );
 
+CREATE TABLE work_items
+(
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    payload      VARCHAR     NOT NULL,
+    status       VARCHAR(10) NOT NULL,
+    processed_by VARCHAR
+);
+
+-- The workers only look for the items that are still waiting.
+CREATE INDEX work_items_new_idx ON work_items (id) WHERE status = 'NEW';
+
 GRANT SELECT, INSERT, UPDATE, DELETE
     ON ALL TABLES IN SCHEMA public
     TO bank;
 
-ALTER TABLE account OWNER TO bank;
\ No newline at end of file
+ALTER TABLE account OWNER TO bank;
+ALTER TABLE work_items OWNER TO bank;
\ No newline at end of file
@@ -61,6 +61,10 @@ CREATE TABLE employees
       UNIQUE (email)
 ) ;
 
+-- Used by Hibernate with a pooled optimizer - every value is the upper end of a block of 50 ids.
+-- Starts above the ids of the employees inserted below.
+CREATE SEQUENCE employees_seq START WITH 1000 INCREMENT BY 50;
+
 ALTER TABLE DEPARTMENTS ADD CONSTRAINT dept_mgr_fk
     FOREIGN KEY (manager_id)
         REFERENCES employees (employee_id);
@@ -2388,4 +2392,8 @@ CREATE INDEX loc_country_ix
 
 GRANT SELECT, INSERT, UPDATE, DELETE
     ON ALL TABLES IN SCHEMA public
+    TO hr;
+
+GRANT USAGE, SELECT
+    ON ALL SEQUENCES IN SCHEMA public
     TO hr;
\ No newline at end of file
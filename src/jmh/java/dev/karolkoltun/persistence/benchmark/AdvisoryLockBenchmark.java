@@ -0,0 +1,144 @@
+package dev.karolkoltun.persistence.benchmark;
+
+import dev.karolkoltun.persistence.DataSourceProvider;
+import dev.karolkoltun.persistence.HibernateTest;
+import dev.karolkoltun.persistence.PostgresqlHrDataSourceProvider;
+import dev.karolkoltun.persistence.TransactionOptions;
+import dev.karolkoltun.persistence.concurrency.pessimistic.locking.AdvisoryLocks;
+import dev.karolkoltun.persistence.entity.Employee;
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.persistence.LockModeType;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@value #OPERATIONS} critical sections from {@code threads} threads, each on one of the first {@code employees}
+ * employees - the fewer, the more contention. A critical section locks the employee, changes the salary, flushes and
+ * holds the lock for another {@value #HOLD_MICROS} µs. The lock is either a transaction-level advisory lock on the key of
+ * the employee or a {@code PESSIMISTIC_WRITE} lock on the row ({@code SELECT ... FOR UPDATE}). The score is the time of
+ * all the critical sections.
+ * <p>
+ * Every transaction is rolled back, so the data of the database stays as it was. Needs the hr database of
+ * {@code postgres_docker} - advisory locks are PostgreSQL only.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-DshowSql=false")
+@State(Scope.Benchmark)
+public class AdvisoryLockBenchmark extends HibernateTest {
+    private static final int OPERATIONS = 1000;
+    private static final int HOLD_MICROS = 200;
+    private static final int FIRST_EMPLOYEE_ID = 100;
+
+    public enum Lock {
+        ADVISORY {
+            @Override
+            Employee lock(Session session, int employeeId) {
+                AdvisoryLocks.lockForTransaction(session, AdvisoryLocks.key(Employee.class, employeeId));
+                return session.get(Employee.class, employeeId);
+            }
+        },
+        ROW {
+            @Override
+            Employee lock(Session session, int employeeId) {
+                return session.find(Employee.class, employeeId, LockModeType.PESSIMISTIC_WRITE);
+            }
+        };
+
+        abstract Employee lock(Session session, int employeeId);
+    }
+
+    @Param
+    public Lock lock;
+
+    @Param({"1", "8"})
+    public int threads;
+
+    @Param({"1", "16"})
+    public int employees;
+
+    private long seed;
+
+    @Override
+    public DataSourceProvider dataSourceProvider() {
+        return new PostgresqlHrDataSourceProvider();
+    }
+
+    @Override
+    public boolean recreateBeforeEachTest() {
+        // Reuse the data that came with the database.
+        return false;
+    }
+
+    @Override
+    public boolean collectSqlMetrics() {
+        return false;
+    }
+
+    @Setup
+    public void setUp() {
+        beforeEach();
+    }
+
+    @Benchmark
+    public int criticalSections() throws InterruptedException, ExecutionException {
+        SplittableRandom random = new SplittableRandom(seed++);
+        List<Callable<Integer>> workers = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            SplittableRandom workerRandom = random.split();
+            int operations = OPERATIONS * (thread + 1) / threads - OPERATIONS * thread / threads;
+            workers.add(() -> {
+                for (int i = 0; i < operations; i++) {
+                    criticalSection(FIRST_EMPLOYEE_ID + workerRandom.nextInt(employees));
+                }
+                return operations;
+            });
+        }
+
+        int done = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (Future<Integer> worker : executor.invokeAll(workers)) {
+                done += worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return done;
+    }
+
+    private void criticalSection(int employeeId) {
+        transactionExecutor.inSession(TransactionOptions.defaults(), session -> {
+            Employee employee = lock.lock(session, employeeId);
+            employee.setSalary(employee.getSalary().add(BigDecimal.ONE));
+            session.flush();
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(HOLD_MICROS));
+
+            session.getTransaction().setRollbackOnly();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,120 @@
+package dev.karolkoltun.persistence.benchmark;
+
+import dev.karolkoltun.persistence.DataSourceProvider;
+import dev.karolkoltun.persistence.H2BankDataSourceProvider;
+import dev.karolkoltun.persistence.HibernateTest;
+import dev.karolkoltun.persistence.RetryPolicy;
+import dev.karolkoltun.persistence.bank.TransferLoad;
+import dev.karolkoltun.persistence.bank.TransferReport;
+import dev.karolkoltun.persistence.bank.TransferStrategy;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@value #TRANSFERS} random transfers between {@code accounts} accounts from {@code threads} threads, with every
+ * {@link TransferStrategy}. The fewer the accounts, the more the transfers collide. The score is the time of all the
+ * transfers; the {@code aborts} and {@code rejected} counters are summed over the measurement iterations. The
+ * {@link TransferReport} of every iteration (transfers/s, abort rate, p99 latency) is logged after it, outside of the
+ * measured time. Every iteration also checks that no money has been created or lost - a strategy that loses updates
+ * fails the benchmark.
+ * <p>
+ * On embedded H2 there's no network, so the waits for locks and the retries dominate. Run it against the bank database
+ * of {@code postgres_docker} to see the round trips too.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-DshowSql=false")
+@State(Scope.Benchmark)
+public class BankTransferBenchmark extends HibernateTest {
+    private static final Logger log = LoggerFactory.getLogger(BankTransferBenchmark.class);
+
+    private static final int TRANSFERS = 2000;
+    private static final int BALANCE = 1000;
+    private static final int MAX_AMOUNT = 100;
+
+    @Param
+    public TransferStrategy strategy;
+
+    @Param({"4", "1000"})
+    public int accounts;
+
+    @Param({"1", "8"})
+    public int threads;
+
+    private TransferLoad transferLoad;
+    private long seed;
+    private TransferReport report;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long aborts;
+        public long rejected;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            aborts = 0;
+            rejected = 0;
+        }
+    }
+
+    @Override
+    public DataSourceProvider dataSourceProvider() {
+        return new H2BankDataSourceProvider();
+    }
+
+    @Override
+    public boolean recreateBeforeEachTest() {
+        return true;
+    }
+
+    @Override
+    public boolean collectSqlMetrics() {
+        return false;
+    }
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        beforeEach();
+        transferLoad = new TransferLoad(transactionExecutor,
+                RetryPolicy.defaults().withMaxAttempts(100).withBackoff(Duration.ofMillis(1), Duration.ofMillis(50), 2.0));
+    }
+
+    // Every run starts with the same balances.
+    @Setup(Level.Invocation)
+    public void setUp() {
+        transferLoad.createAccounts(accounts, BALANCE);
+    }
+
+    @TearDown(Level.Iteration)
+    public void logReport() {
+        log.info("{}", report);
+    }
+
+    @Benchmark
+    public TransferReport transfer(Counters counters) {
+        report = transferLoad.run(strategy, accounts, threads, TRANSFERS, MAX_AMOUNT, seed++).verify();
+        counters.aborts += report.aborts();
+        counters.rejected += report.rejected();
+        return report;
+    }
+}
@@ -0,0 +1,97 @@
+package dev.karolkoltun.persistence.benchmark;
+
+import dev.karolkoltun.persistence.BatchSettings;
+import dev.karolkoltun.persistence.BulkWriter;
+import dev.karolkoltun.persistence.DataSourceProvider;
+import dev.karolkoltun.persistence.H2HrDataSourceProvider;
+import dev.karolkoltun.persistence.HibernateTest;
+import dev.karolkoltun.persistence.entity.Employee;
+import dev.karolkoltun.persistence.entity.JobId;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading 100k employees with {@link HibernateTest#doInHibernateBulk(int, java.util.function.Consumer)}, without JDBC
+ * batching (batch size 1) and with it. The {@code roundTrips} counter is the number of statements and batches sent to
+ * the database, summed over the measurement iterations (one load each). The database is in-memory, so the time saved
+ * here is the driver and Hibernate overhead only - with a real network every round trip saved is also a network latency
+ * saved.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-DshowSql=false")
+@State(Scope.Benchmark)
+public class BulkLoadBenchmark extends HibernateTest {
+    private static final int EMPLOYEES = 100_000;
+
+    @Param({"1", "50"})
+    public int batchSize;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long roundTrips;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            roundTrips = 0;
+        }
+    }
+
+    @Override
+    public DataSourceProvider dataSourceProvider() {
+        return new H2HrDataSourceProvider();
+    }
+
+    @Override
+    public boolean recreateBeforeEachTest() {
+        return true;
+    }
+
+    @Override
+    public boolean collectSqlMetrics() {
+        return false;
+    }
+
+    @Override
+    public Optional<BatchSettings> getBatchSettings() {
+        return Optional.of(BatchSettings.defaults());
+    }
+
+    // Every load starts with an empty table.
+    @Setup(Level.Invocation)
+    public void setUp() {
+        beforeEach();
+    }
+
+    @Benchmark
+    public long load(Counters counters) {
+        JobId[] jobIds = JobId.values();
+        BulkWriter bulkWriter = doInHibernateBulk(batchSize, writer -> {
+            for (int id = 0; id < EMPLOYEES; id++) {
+                writer.persist(new Employee(id, "First" + id, "Last" + id, "employee" + id + "@example.com", "555-" + id,
+                        LocalDate.of(2000, 1, 1).plusDays(id % 5000), jobIds[id % jobIds.length], BigDecimal.valueOf(1000 + id)));
+            }
+        });
+        counters.roundTrips += bulkWriter.getRoundTrips();
+        return bulkWriter.getWritten();
+    }
+}
@@ -0,0 +1,259 @@
+package dev.karolkoltun.persistence.benchmark;
+
+import dev.karolkoltun.persistence.DataSourceProvider;
+import dev.karolkoltun.persistence.H2HrDataSourceProvider;
+import dev.karolkoltun.persistence.HibernateTest;
+import dev.karolkoltun.persistence.RetryPolicy;
+import dev.karolkoltun.persistence.TransactionExecutor;
+import dev.karolkoltun.persistence.TransactionOptions;
+import dev.karolkoltun.persistence.entity.EmployeeDirtyLocked;
+import dev.karolkoltun.persistence.entity.EmployeeVersioned;
+import dev.karolkoltun.persistence.entity.JobId;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.persistence.OptimisticLockException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * {@value #UPDATES} updates of the first {@code employees} employees from {@code threads} threads - half of the threads
+ * raise salaries, the other half change emails. An update loads the employee, thinks for {@value #THINK_MICROS} µs,
+ * changes its column and commits; a conflict is retried right away with a fresh read. The employees are locked with a
+ * {@code @Version} ({@link EmployeeVersioned}) or with the changed columns ({@link EmployeeDirtyLocked}). The score is
+ * the time of all the updates. The {@code aborts} counter is the number of updates which failed on a conflict and the
+ * {@code attempts} counter the number of all the updates tried, both summed over the measurement iterations - the abort
+ * rate is their ratio.
+ * <p>
+ * The dirty {@code UPDATE} sets and checks the changed column only. The trial setup captures the {@code UPDATE} of
+ * either column, in a transaction that is rolled back; every attempt sends one, so the {@code updateChars} counter is
+ * the size of all the {@code UPDATE} statements sent, and divided by {@code attempts} the average size of one.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-DshowSql=false")
+@State(Scope.Benchmark)
+public class DirtyLockingBenchmark extends HibernateTest {
+    private static final int UPDATES = 2000;
+    private static final int THINK_MICROS = 100;
+
+    public enum Locking {
+        VERSION {
+            @Override
+            void raiseSalary(Session session, int employeeId) {
+                EmployeeVersioned employee = session.get(EmployeeVersioned.class, employeeId);
+                think();
+                employee.setSalary(employee.getSalary().add(BigDecimal.ONE));
+            }
+
+            @Override
+            void changeEmail(Session session, int employeeId, String email) {
+                EmployeeVersioned employee = session.get(EmployeeVersioned.class, employeeId);
+                think();
+                employee.setEmail(email);
+            }
+        },
+        DIRTY {
+            @Override
+            void raiseSalary(Session session, int employeeId) {
+                EmployeeDirtyLocked employee = session.get(EmployeeDirtyLocked.class, employeeId);
+                think();
+                employee.setSalary(employee.getSalary().add(BigDecimal.ONE));
+            }
+
+            @Override
+            void changeEmail(Session session, int employeeId, String email) {
+                EmployeeDirtyLocked employee = session.get(EmployeeDirtyLocked.class, employeeId);
+                think();
+                employee.setEmail(email);
+            }
+        };
+
+        abstract void raiseSalary(Session session, int employeeId);
+
+        abstract void changeEmail(Session session, int employeeId, String email);
+
+        private static void think() {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(THINK_MICROS));
+        }
+    }
+
+    @Param
+    public Locking locking;
+
+    @Param({"2", "8"})
+    public int threads;
+
+    @Param({"1", "16"})
+    public int employees;
+
+    private long seed;
+    private int salaryUpdateLength;
+    private int emailUpdateLength;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long aborts;
+        public long attempts;
+        public long updateChars;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            aborts = 0;
+            attempts = 0;
+            updateChars = 0;
+        }
+    }
+
+    @Override
+    public DataSourceProvider dataSourceProvider() {
+        return new H2HrDataSourceProvider();
+    }
+
+    @Override
+    public boolean recreateBeforeEachTest() {
+        return true;
+    }
+
+    @Override
+    public boolean collectSqlMetrics() {
+        return false;
+    }
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        beforeEach();
+        transactionExecutor.inSession(TransactionOptions.defaults(), session -> {
+            for (int id = 0; id < employees; id++) {
+                session.persist(new EmployeeVersioned(id, "Jane", "Doe", "jdoe@example.com", "555-1234", LocalDate.of(2020, 1, 1),
+                        JobId.IT_PROG, BigDecimal.valueOf(5000)));
+            }
+            return null;
+        });
+
+        salaryUpdateLength = updateLength(session -> locking.raiseSalary(session, 0));
+        emailUpdateLength = updateLength(session -> locking.changeEmail(session, 0, "jane.doe@example.com"));
+    }
+
+    // Without the JDBC proxies of collectSqlMetrics(), which would slow down the measured updates too.
+    private int updateLength(Consumer<Session> update) {
+        List<String> updates = new ArrayList<>();
+        try (Session session = entityManagerFactory.unwrap(SessionFactory.class).withOptions()
+                .statementInspector(sql -> {
+                    if (sql.startsWith("update")) {
+                        updates.add(sql);
+                    }
+                    return sql;
+                })
+                .openSession()) {
+            Transaction transaction = session.beginTransaction();
+            update.accept(session);
+            session.flush();
+            transaction.rollback();
+        }
+        return updates.get(0).length();
+    }
+
+    @Benchmark
+    public long update(Counters counters) throws InterruptedException, ExecutionException {
+        LongAdder salaryAborts = new LongAdder();
+        LongAdder emailAborts = new LongAdder();
+        TransactionExecutor salaryExecutor = retryingExecutor(salaryAborts);
+        TransactionExecutor emailExecutor = retryingExecutor(emailAborts);
+
+        SplittableRandom random = new SplittableRandom(seed++);
+        List<Callable<Void>> workers = new ArrayList<>();
+        long salaryUpdates = 0;
+        for (int thread = 0; thread < threads; thread++) {
+            SplittableRandom workerRandom = random.split();
+            boolean salaries = thread % 2 == 0;
+            int updates = UPDATES * (thread + 1) / threads - UPDATES * thread / threads;
+            if (salaries) {
+                salaryUpdates += updates;
+            }
+            workers.add(() -> {
+                for (int i = 0; i < updates; i++) {
+                    update(salaries ? salaryExecutor : emailExecutor, workerRandom.nextInt(employees), salaries,
+                            "jdoe" + workerRandom.nextInt() + "@example.com");
+                }
+                return null;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (Future<Void> worker : executor.invokeAll(workers)) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long aborts = salaryAborts.sum() + emailAborts.sum();
+        counters.aborts += aborts;
+        counters.attempts += UPDATES + aborts;
+        counters.updateChars += (salaryUpdates + salaryAborts.sum()) * salaryUpdateLength
+                + (UPDATES - salaryUpdates + emailAborts.sum()) * emailUpdateLength;
+        return aborts;
+    }
+
+    // Somebody else changed the employee (or, with DIRTY, the column) since it was loaded - retried at once, however many
+    // times it takes.
+    private TransactionExecutor retryingExecutor(LongAdder aborts) {
+        return transactionExecutor
+                .withRetryPolicy(RetryPolicy.defaults()
+                        .withMaxAttempts(Integer.MAX_VALUE)
+                        .withBackoff(Duration.ZERO, Duration.ZERO, 1.0)
+                        .withJitter(false))
+                .withRetryOn(OptimisticLockException.class::isInstance)
+                .withAttemptListener((failure, attempt, elapsed, retryable) -> {
+                    if (retryable) {
+                        aborts.increment();
+                    }
+                    return true;
+                });
+    }
+
+    private void update(TransactionExecutor executor, int employeeId, boolean salary, String email) {
+        executor.inSession(TransactionOptions.defaults(), session -> {
+            if (salary) {
+                locking.raiseSalary(session, employeeId);
+            } else {
+                locking.changeEmail(session, employeeId, email);
+            }
+            // The conflict surfaces here as an OptimisticLockException - the commit would wrap it.
+            session.flush();
+            return null;
+        });
+    }
+}
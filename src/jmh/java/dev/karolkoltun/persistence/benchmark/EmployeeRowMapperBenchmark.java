@@ -0,0 +1,111 @@
+package dev.karolkoltun.persistence.benchmark;
+
+import dev.karolkoltun.persistence.DataSourceProvider;
+import dev.karolkoltun.persistence.H2HrDataSourceProvider;
+import dev.karolkoltun.persistence.HibernateTest;
+import dev.karolkoltun.persistence.entity.Employee;
+import dev.karolkoltun.persistence.entity.JobId;
+import dev.karolkoltun.persistence.jdbc.EmployeeRowMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping the whole employees table with columns looked up by name on every row versus {@link EmployeeRowMapper}.
+ * Both read the same result set, so the difference is the mapping alone. Run with {@code -prof gc} to compare the
+ * garbage per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-DshowSql=false")
+@State(Scope.Benchmark)
+public class EmployeeRowMapperBenchmark extends HibernateTest {
+    private static final int EMPLOYEES = 10_000;
+
+    private Connection connection;
+    private PreparedStatement selectAll;
+
+    @Override
+    public DataSourceProvider dataSourceProvider() {
+        return new H2HrDataSourceProvider();
+    }
+
+    @Override
+    public boolean recreateBeforeEachTest() {
+        return true;
+    }
+
+    @Override
+    public boolean collectSqlMetrics() {
+        return false;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        beforeEach();
+
+        JobId[] jobIds = JobId.values();
+        doInHibernate(session -> {
+            for (int id = 0; id < EMPLOYEES; id++) {
+                session.persist(new Employee(id, "First" + id, "Last" + id, "employee" + id + "@example.com", "555-" + id,
+                        LocalDate.of(2000, 1, 1).plusDays(id % 5000), jobIds[id % jobIds.length], BigDecimal.valueOf(1000 + id)));
+            }
+        });
+
+        connection = dataSourceProvider().dataSource().getConnection();
+        selectAll = connection.prepareStatement("SELECT * FROM employees");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        selectAll.close();
+        connection.close();
+    }
+
+    @Benchmark
+    public void mapByColumnName(Blackhole blackhole) throws SQLException {
+        try (ResultSet resultSet = selectAll.executeQuery()) {
+            while (resultSet.next()) {
+                blackhole.consume(new Employee(
+                        resultSet.getInt("employee_id"),
+                        resultSet.getString("first_name"),
+                        resultSet.getString("last_name"),
+                        resultSet.getString("email"),
+                        resultSet.getString("phone_number"),
+                        resultSet.getDate("hire_date").toLocalDate(),
+                        JobId.valueOf(resultSet.getString("job_id")),
+                        resultSet.getBigDecimal("salary")));
+            }
+        }
+    }
+
+    @Benchmark
+    public void mapWithRowMapper(Blackhole blackhole) throws SQLException {
+        try (ResultSet resultSet = selectAll.executeQuery()) {
+            EmployeeRowMapper employeeRowMapper = EmployeeRowMapper.forResultSet(resultSet);
+            while (resultSet.next()) {
+                blackhole.consume(employeeRowMapper.map(resultSet));
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package dev.karolkoltun.persistence.benchmark;
+
+import dev.karolkoltun.persistence.DataSourceProvider;
+import dev.karolkoltun.persistence.H2HrDataSourceProvider;
+import dev.karolkoltun.persistence.HibernateTest;
+import dev.karolkoltun.persistence.entity.Employee;
+import dev.karolkoltun.persistence.entity.JobId;
+import dev.karolkoltun.persistence.jdbc.EmployeeRowMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of the session/transaction templates of {@link HibernateTest}, on an embedded H2 database.
+ * <p>
+ * Run with {@code -prof gc} to see the allocation rate of every template next to its throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-DshowSql=false")
+@State(Scope.Benchmark)
+public class HibernateTemplatesBenchmark extends HibernateTest {
+    private static final int EMPLOYEES = 1000;
+    private static final int QUERIED_EMPLOYEES = 50;
+
+    private static final String SELECT_EMPLOYEES = "" +
+            "SELECT employee_id, first_name, last_name, email, phone_number, hire_date, job_id, salary " +
+            "FROM employees ";
+
+    @Override
+    public DataSourceProvider dataSourceProvider() {
+        return new H2HrDataSourceProvider();
+    }
+
+    @Override
+    public boolean recreateBeforeEachTest() {
+        return true;
+    }
+
+    @Override
+    public boolean collectSqlMetrics() {
+        return false;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        beforeEach();
+
+        JobId[] jobIds = JobId.values();
+        doInHibernate(session -> {
+            for (int id = 0; id < EMPLOYEES; id++) {
+                session.persist(new Employee(id, "First" + id, "Last" + id, "employee" + id + "@example.com", "555-" + id,
+                        LocalDate.of(2000, 1, 1).plusDays(id), jobIds[id % jobIds.length], BigDecimal.valueOf(1000 + id)));
+            }
+        });
+    }
+
+    // Single-row find.
+
+    @Benchmark
+    public Employee findUsingJpa() {
+        int id = randomId(EMPLOYEES);
+        return getUsingJpa(entityManager -> entityManager.find(Employee.class, id));
+    }
+
+    @Benchmark
+    public Employee findUsingHibernate() {
+        int id = randomId(EMPLOYEES);
+        return getUsingHibernate(session -> session.find(Employee.class, id));
+    }
+
+    @Benchmark
+    public Employee findUsingHibernateReadOnly() {
+        int id = randomId(EMPLOYEES);
+        return getUsingHibernateReadOnly(session -> session.find(Employee.class, id));
+    }
+
+    @Benchmark
+    public Employee findUsingJdbc() {
+        int id = randomId(EMPLOYEES);
+        return getUsingJDBC(connection -> queryEmployees(connection, SELECT_EMPLOYEES + "WHERE employee_id = ?", id).get(0));
+    }
+
+    // N-row query.
+
+    @Benchmark
+    public List<Employee> queryUsingJpa() {
+        int from = randomId(EMPLOYEES - QUERIED_EMPLOYEES);
+        return getUsingJpa(entityManager -> entityManager.createQuery("SELECT e FROM Employee e WHERE e.id BETWEEN :from AND :to", Employee.class)
+                .setParameter("from", from)
+                .setParameter("to", from + QUERIED_EMPLOYEES - 1)
+                .getResultList());
+    }
+
+    @Benchmark
+    public List<Employee> queryUsingHibernate() {
+        int from = randomId(EMPLOYEES - QUERIED_EMPLOYEES);
+        return getUsingHibernate(session -> session.createQuery("SELECT e FROM Employee e WHERE e.id BETWEEN :from AND :to", Employee.class)
+                .setParameter("from", from)
+                .setParameter("to", from + QUERIED_EMPLOYEES - 1)
+                .getResultList());
+    }
+
+    @Benchmark
+    public List<Employee> queryUsingHibernateReadOnly() {
+        int from = randomId(EMPLOYEES - QUERIED_EMPLOYEES);
+        return getUsingHibernateReadOnly(session -> session.createQuery("SELECT e FROM Employee e WHERE e.id BETWEEN :from AND :to", Employee.class)
+                .setParameter("from", from)
+                .setParameter("to", from + QUERIED_EMPLOYEES - 1)
+                .getResultList());
+    }
+
+    @Benchmark
+    public List<Employee> queryUsingJdbc() {
+        int from = randomId(EMPLOYEES - QUERIED_EMPLOYEES);
+        return getUsingJDBC(connection -> queryEmployees(connection, SELECT_EMPLOYEES + "WHERE employee_id BETWEEN ? AND ?",
+                from, from + QUERIED_EMPLOYEES - 1));
+    }
+
+    // Update of a single row.
+
+    @Benchmark
+    public void updateUsingJpa() {
+        int id = randomId(EMPLOYEES);
+        doUsingJpa(entityManager -> {
+            Employee employee = entityManager.find(Employee.class, id);
+            employee.setSalary(employee.getSalary().add(BigDecimal.ONE));
+        });
+    }
+
+    @Benchmark
+    public void updateUsingHibernate() {
+        int id = randomId(EMPLOYEES);
+        doInHibernate(session -> {
+            Employee employee = session.find(Employee.class, id);
+            employee.setSalary(employee.getSalary().add(BigDecimal.ONE));
+        });
+    }
+
+    @Benchmark
+    public void updateUsingJdbc() {
+        int id = randomId(EMPLOYEES);
+        doUsingJDBC(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("UPDATE employees SET salary = salary + 1 WHERE employee_id = ?")) {
+                statement.setInt(1, id);
+                statement.executeUpdate();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private static int randomId(int bound) {
+        return ThreadLocalRandom.current().nextInt(bound);
+    }
+
+    private static List<Employee> queryEmployees(Connection connection, String sql, int... parameters) {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setInt(i + 1, parameters[i]);
+            }
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return EmployeeRowMapper.forResultSet(resultSet).mapAll(resultSet);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package dev.karolkoltun.persistence.benchmark;
+
+import dev.karolkoltun.persistence.jdbc.HrSchema;
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resetting the hr schema of the JDBC tests before a test: running {@code init-hr-schema.sql} through
+ * {@code ScriptRunner}, as every test used to, versus restoring a {@link HrSchema.Snapshot} taken once. Both go over an
+ * H2 TCP connection, like the tests.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1)
+@State(Scope.Benchmark)
+public class HrSchemaResetBenchmark {
+    private Server server;
+    private Connection connection;
+    private HrSchema.Snapshot snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        server = Server.createTcpServer("-tcpAllowOthers", "-ifNotExists").start();
+        connection = DriverManager.getConnection(HrSchema.URL, "user", "sa");
+        HrSchema.load(connection, false);
+        snapshot = HrSchema.snapshot(connection);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+        server.stop();
+    }
+
+    @Benchmark
+    public void scriptRunner() throws IOException {
+        // ScriptRunner would print every statement it runs - the benchmark is not about the console.
+        HrSchema.load(connection, false);
+    }
+
+    @Benchmark
+    public void restoreSnapshot() throws SQLException {
+        snapshot.restore(connection);
+    }
+}
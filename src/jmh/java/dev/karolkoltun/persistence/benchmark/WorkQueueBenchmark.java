@@ -0,0 +1,121 @@
+package dev.karolkoltun.persistence.benchmark;
+
+import dev.karolkoltun.persistence.DataSourceProvider;
+import dev.karolkoltun.persistence.HibernateTest;
+import dev.karolkoltun.persistence.PostgresqlBankDataSourceProvider;
+import dev.karolkoltun.persistence.RetryPolicy;
+import dev.karolkoltun.persistence.queue.ClaimMode;
+import dev.karolkoltun.persistence.queue.QueueWorkers;
+import dev.karolkoltun.persistence.queue.WorkQueue;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+/**
+ * {@code workers} workers drain a queue of {@value #ITEMS} items, claiming {@code batchSize} items at a time, with
+ * {@code SKIP LOCKED} and with {@code NOWAIT} plus a retry. Processing an item takes {@value #WORK_MICROS} µs. The score
+ * is the time to drain the queue; the {@code conflicts} counter is the number of claims that failed on another worker's
+ * lock, summed over the measurement iterations. The {@link QueueWorkers.Report} of every iteration (items/s) is logged
+ * after it, outside of the measured time.
+ * <p>
+ * Needs the bank database of {@code postgres_docker} - H2 supports neither {@code SKIP LOCKED} nor {@code NOWAIT}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-DshowSql=false")
+@State(Scope.Benchmark)
+public class WorkQueueBenchmark extends HibernateTest {
+    private static final Logger log = LoggerFactory.getLogger(WorkQueueBenchmark.class);
+
+    private static final int ITEMS = 2000;
+    private static final int WORK_MICROS = 200;
+
+    @Param
+    public ClaimMode claimMode;
+
+    @Param({"1", "4", "16"})
+    public int workers;
+
+    @Param({"1", "10", "50"})
+    public int batchSize;
+
+    private WorkQueue workQueue;
+    private QueueWorkers queueWorkers;
+    private QueueWorkers.Report report;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long conflicts;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            conflicts = 0;
+        }
+    }
+
+    @Override
+    public DataSourceProvider dataSourceProvider() {
+        return new PostgresqlBankDataSourceProvider();
+    }
+
+    @Override
+    public boolean recreateBeforeEachTest() {
+        return true;
+    }
+
+    @Override
+    public boolean collectSqlMetrics() {
+        return false;
+    }
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        beforeEach();
+        workQueue = new WorkQueue(transactionExecutor, claimMode);
+        queueWorkers = new QueueWorkers(workQueue, RetryPolicy.defaults().withBackoff(Duration.ofMillis(1), Duration.ofMillis(20), 2.0));
+    }
+
+    // Every run starts with a full queue.
+    @Setup(Level.Invocation)
+    public void setUp() {
+        workQueue.clear();
+        workQueue.enqueue(IntStream.range(0, ITEMS).mapToObj(item -> "item-" + item).toList());
+    }
+
+    @TearDown(Level.Iteration)
+    public void logReport() {
+        log.info("{}", report);
+    }
+
+    @Benchmark
+    public QueueWorkers.Report drain(Counters counters) {
+        report = queueWorkers.run(workers, batchSize,
+                items -> LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos((long) WORK_MICROS * items.size())));
+        if (report.processed() != ITEMS) {
+            throw new IllegalStateException("Processed " + report.processed() + " of " + ITEMS + " items: " + report);
+        }
+        counters.conflicts += report.conflicts();
+        return report;
+    }
+}
@@ -0,0 +1,36 @@
+package dev.karolkoltun.persistence;
+
+import java.util.Map;
+
+/**
+ * JDBC batching settings of a session factory. Without batching, every inserted, updated or deleted entity is a separate
+ * round trip to the database at flush time.
+ *
+ * @param batchSize          {@code hibernate.jdbc.batch_size} - how many statements are sent together; a session can
+ *                           override it with {@link org.hibernate.Session#setJdbcBatchSize(Integer)}
+ * @param orderInserts       {@code hibernate.order_inserts} - sort inserts by entity type, so that inserts of different
+ *                           entities interleaved in the persistence context do not break the batches
+ * @param orderUpdates       {@code hibernate.order_updates} - the same for updates, sorted by entity type and id (which
+ *                           also makes concurrent flushes lock rows in the same order)
+ * @param batchVersionedData {@code hibernate.jdbc.batch_versioned_data} - batch updates of {@link javax.persistence.Version}ed
+ *                           entities too; safe only with drivers returning correct row counts for batches, as the
+ *                           optimistic lock check relies on them
+ */
+public record BatchSettings(int batchSize, boolean orderInserts, boolean orderUpdates, boolean batchVersionedData) {
+
+    public static BatchSettings defaults() {
+        return new BatchSettings(50, true, true, true);
+    }
+
+    public BatchSettings withBatchSize(int batchSize) {
+        return new BatchSettings(batchSize, orderInserts, orderUpdates, batchVersionedData);
+    }
+
+    public Map<String, String> toProperties() {
+        return Map.of(
+                "hibernate.jdbc.batch_size", String.valueOf(batchSize),
+                "hibernate.order_inserts", String.valueOf(orderInserts),
+                "hibernate.order_updates", String.valueOf(orderUpdates),
+                "hibernate.jdbc.batch_versioned_data", String.valueOf(batchVersionedData));
+    }
+}
@@ -0,0 +1,75 @@
+package dev.karolkoltun.persistence;
+
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.Session;
+
+/**
+ * Writes many entities in one session: flushes and clears the session every {@code flushEvery} written entities, so that
+ * the persistence context (and the dirty checking at flush time) does not grow with the number of entities. The flush
+ * interval should match the JDBC batch size - every flush then sends full batches.
+ * <p>
+ * Entities loaded before a flush are detached by it. An updated entity has to be changed before {@link #written()} is
+ * called for it.
+ */
+public class BulkWriter {
+    private final Session session;
+    private final int flushEvery;
+    private final RoundTrips roundTrips = new RoundTrips();
+    private long written;
+
+    public BulkWriter(Session session, int flushEvery) {
+        if (flushEvery < 1) {
+            throw new IllegalArgumentException("The flush interval has to be positive, got " + flushEvery + ".");
+        }
+        this.session = session;
+        this.flushEvery = flushEvery;
+        session.addEventListeners(roundTrips);
+    }
+
+    public Session getSession() {
+        return session;
+    }
+
+    public void persist(Object entity) {
+        session.persist(entity);
+        written();
+    }
+
+    /**
+     * Counts an entity changed (or removed) by the caller.
+     */
+    public void written() {
+        if (++written % flushEvery == 0) {
+            session.flush();
+            session.clear();
+        }
+    }
+
+    public long getWritten() {
+        return written;
+    }
+
+    /**
+     * @return statements and batches sent to the database by the session so far
+     */
+    public long getRoundTrips() {
+        return roundTrips.statements + roundTrips.batches;
+    }
+
+    private static class RoundTrips extends BaseSessionEventListener {
+        private static final long serialVersionUID = 1L;
+
+        private long statements;
+        private long batches;
+
+        @Override
+        public void jdbcExecuteStatementStart() {
+            statements++;
+        }
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            batches++;
+        }
+    }
+}
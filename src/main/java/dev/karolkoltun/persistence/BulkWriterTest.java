@@ -0,0 +1,133 @@
+package dev.karolkoltun.persistence;
+
+import dev.karolkoltun.persistence.entity.Employee;
+import dev.karolkoltun.persistence.entity.EmployeeVersioned;
+import dev.karolkoltun.persistence.entity.JobId;
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.OptimisticLockException;
+import java.math.BigDecimal;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class BulkWriterTest extends HibernateTest {
+    private static final int EMPLOYEES = 1000;
+    private static final int BATCH_SIZE = 50;
+
+    @Override
+    public DataSourceProvider dataSourceProvider() {
+        return new H2HrDataSourceProvider();
+    }
+
+    @Override
+    public boolean recreateBeforeEachTest() {
+        return true;
+    }
+
+    @Override
+    public Optional<BatchSettings> getBatchSettings() {
+        return Optional.of(BatchSettings.defaults());
+    }
+
+    @Test
+    void shouldInsertInBatches() {
+        // WHEN
+        BulkWriter unbatched = doInHibernateBulk(1, bulkWriter -> persistEmployees(bulkWriter, 0));
+        BulkWriter batched = doInHibernateBulk(BATCH_SIZE, bulkWriter -> persistEmployees(bulkWriter, EMPLOYEES));
+
+        // THEN
+        assertThat(unbatched.getRoundTrips()).isEqualTo(EMPLOYEES);
+        assertThat(batched.getRoundTrips()).isEqualTo(EMPLOYEES / BATCH_SIZE);
+        assertThat(countEmployees()).isEqualTo(2 * EMPLOYEES);
+    }
+
+    @Test
+    void shouldUpdateVersionedEntitiesInBatches() {
+        // GIVEN
+        doInHibernateBulk(BATCH_SIZE, bulkWriter -> persistVersionedEmployees(bulkWriter));
+
+        // WHEN
+        BulkWriter bulkWriter = doInHibernateBulk(BATCH_SIZE, writer -> {
+            for (int firstId = 0; firstId < EMPLOYEES; firstId += BATCH_SIZE) {
+                raiseSalaries(writer, loadVersionedEmployees(writer, firstId));
+            }
+        });
+
+        // THEN
+        // One query for every batch of employees, one batch of updates after it.
+        assertThat(bulkWriter.getRoundTrips()).isEqualTo(2 * EMPLOYEES / BATCH_SIZE);
+        List<Short> versions = getUsingHibernateReadOnly(session -> session
+                .createQuery("SELECT DISTINCT e.version FROM EmployeeVersioned e", Short.class)
+                .list());
+        assertThat(versions).containsExactly((short) 1);
+    }
+
+    @Test
+    void shouldDetectConcurrentModificationInBatchedUpdate() {
+        // GIVEN
+        doInHibernateBulk(BATCH_SIZE, bulkWriter -> persistVersionedEmployees(bulkWriter));
+        int concurrentlyModifiedId = 7;
+
+        // WHEN
+        Throwable failure = catchThrowable(() -> doInHibernateBulk(BATCH_SIZE, writer -> {
+            List<EmployeeVersioned> employees = loadVersionedEmployees(writer, 0);
+
+            // Someone else updates one of the employees after it has been loaded.
+            writer.getSession().doWork(connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.executeUpdate("UPDATE employees SET version = version + 1 WHERE employee_id = " + concurrentlyModifiedId);
+                }
+            });
+
+            raiseSalaries(writer, employees);
+        }));
+
+        // THEN
+        // The row count of every statement in the batch is still checked, and the whole transaction is rolled back.
+        assertThat(failure).isInstanceOf(OptimisticLockException.class);
+        List<Short> versions = getUsingHibernateReadOnly(session -> session
+                .createQuery("SELECT DISTINCT e.version FROM EmployeeVersioned e", Short.class)
+                .list());
+        assertThat(versions).containsExactly((short) 0);
+    }
+
+    private static void persistEmployees(BulkWriter bulkWriter, int firstId) {
+        for (int id = firstId; id < firstId + EMPLOYEES; id++) {
+            bulkWriter.persist(new Employee(id, "Jane", "Doe", "jdoe@example.com", "555-1234", LocalDate.of(2020, 1, 1),
+                    JobId.IT_PROG, BigDecimal.valueOf(5000)));
+        }
+    }
+
+    private static void persistVersionedEmployees(BulkWriter bulkWriter) {
+        for (int id = 0; id < EMPLOYEES; id++) {
+            bulkWriter.persist(new EmployeeVersioned(id, "Jane", "Doe", "jdoe@example.com", "555-1234", LocalDate.of(2020, 1, 1),
+                    JobId.IT_PROG, BigDecimal.valueOf(5000)));
+        }
+    }
+
+    // One batch at a time - every flush of the writer detaches the entities loaded before it.
+    private static List<EmployeeVersioned> loadVersionedEmployees(BulkWriter bulkWriter, int firstId) {
+        return bulkWriter.getSession()
+                .createQuery("SELECT e FROM EmployeeVersioned e WHERE e.id >= :firstId AND e.id < :lastId", EmployeeVersioned.class)
+                .setParameter("firstId", firstId)
+                .setParameter("lastId", firstId + BATCH_SIZE)
+                .list();
+    }
+
+    private static void raiseSalaries(BulkWriter bulkWriter, List<EmployeeVersioned> employees) {
+        for (EmployeeVersioned employee : employees) {
+            employee.setSalary(employee.getSalary().add(BigDecimal.ONE));
+            bulkWriter.written();
+        }
+    }
+
+    private long countEmployees() {
+        return getUsingHibernateReadOnly(session -> session.createQuery("SELECT COUNT(e) FROM Employee e", Long.class)
+                .getSingleResult());
+    }
+}
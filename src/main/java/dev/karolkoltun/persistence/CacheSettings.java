@@ -0,0 +1,44 @@
+package dev.karolkoltun.persistence;
+
+import dev.karolkoltun.persistence.cache.BoundedRegionFactory;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Second-level cache settings of a session factory, kept in memory by {@link BoundedRegionFactory}. Only entities
+ * annotated with {@link org.hibernate.annotations.Cache} are cached, and only the results of queries marked as
+ * cacheable (e.g. with the {@code org.hibernate.cacheable} hint). The hits and misses are in
+ * {@link org.hibernate.SessionFactory#getStatistics()}, with {@code hibernate.generate_statistics} on.
+ *
+ * @param maxEntries maximum number of entries in every region; the least recently used ones are evicted first
+ * @param timeToLive how long an entry stays in a region after it was put there
+ * @param queryCache {@code hibernate.cache.use_query_cache} - cache the results of the cacheable queries
+ */
+public record CacheSettings(int maxEntries, Duration timeToLive, boolean queryCache) {
+
+    public static CacheSettings defaults() {
+        return new CacheSettings(10_000, Duration.ofMinutes(10), true);
+    }
+
+    public CacheSettings withMaxEntries(int maxEntries) {
+        return new CacheSettings(maxEntries, timeToLive, queryCache);
+    }
+
+    public CacheSettings withTimeToLive(Duration timeToLive) {
+        return new CacheSettings(maxEntries, timeToLive, queryCache);
+    }
+
+    public CacheSettings withQueryCache(boolean queryCache) {
+        return new CacheSettings(maxEntries, timeToLive, queryCache);
+    }
+
+    public Map<String, String> toProperties() {
+        return Map.of(
+                "hibernate.cache.use_second_level_cache", "true",
+                "hibernate.cache.use_query_cache", String.valueOf(queryCache),
+                "hibernate.cache.region.factory_class", BoundedRegionFactory.class.getName(),
+                BoundedRegionFactory.MAX_ENTRIES, String.valueOf(maxEntries),
+                BoundedRegionFactory.TIME_TO_LIVE_MILLIS, String.valueOf(timeToLive.toMillis()));
+    }
+}
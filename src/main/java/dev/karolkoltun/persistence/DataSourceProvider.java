@@ -1,7 +1,11 @@
 package dev.karolkoltun.persistence;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
 import javax.sql.DataSource;
 import java.util.List;
+import java.util.Map;
 
 public interface DataSourceProvider {
   String hibernateDialect();
@@ -15,4 +19,34 @@ public interface DataSourceProvider {
   String password();
 
   List<Class<?>> annotatedClasses();
+
+  /**
+   * Driver properties enabling the client-side prepared statement cache of the given size.
+   */
+  default Map<String, String> statementCacheProperties(int statementCacheSize) {
+    return Map.of();
+  }
+
+  /**
+   * Creates a new connection pool. The caller owns the pool and is responsible for closing it.
+   */
+  default HikariDataSource pooledDataSource(PoolSettings poolSettings) {
+    HikariConfig config = new HikariConfig();
+
+    config.setPoolName(getClass().getSimpleName());
+    config.setJdbcUrl(url());
+    config.setUsername(user());
+    config.setPassword(password());
+    config.setMaximumPoolSize(poolSettings.maximumPoolSize());
+
+    // This is the way to set the isolation level on a datasource - the pool sets it on every connection it creates
+    // and restores it whenever a connection is given back.
+    if (poolSettings.isolationLevel() != null) {
+      config.setTransactionIsolation(String.valueOf(poolSettings.isolationLevel()));
+    }
+
+    statementCacheProperties(poolSettings.statementCacheSize()).forEach(config::addDataSourceProperty);
+
+    return new HikariDataSource(config);
+  }
 }
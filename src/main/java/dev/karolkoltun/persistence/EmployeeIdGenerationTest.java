@@ -0,0 +1,98 @@
+package dev.karolkoltun.persistence;
+
+import dev.karolkoltun.persistence.entity.Employee;
+import dev.karolkoltun.persistence.entity.JobId;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EmployeeIdGenerationTest extends HibernateTest {
+    private static final int THREADS = 4;
+    private static final int EMPLOYEES_PER_THREAD = 250;
+    // Has to match the increment_size of employees_seq in the Employee mapping.
+    private static final int ALLOCATION_SIZE = 50;
+
+    @Override
+    public DataSourceProvider dataSourceProvider() {
+        return new H2HrDataSourceProvider();
+    }
+
+    @Override
+    public boolean recreateBeforeEachTest() {
+        return true;
+    }
+
+    @Test
+    void shouldGenerateUniqueIdsForConcurrentInserters() throws Exception {
+        // GIVEN
+        long sequenceBefore = getUsingHibernate(EmployeeIdGenerationTest::nextSequenceValue);
+        List<Callable<List<Integer>>> inserters = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            inserters.add(() -> getUsingHibernate(session -> {
+                List<Integer> ids = new ArrayList<>();
+                for (int i = 0; i < EMPLOYEES_PER_THREAD; i++) {
+                    Employee employee = newEmployee(null);
+                    session.persist(employee);
+                    ids.add(employee.getId());
+                }
+                return ids;
+            }));
+        }
+
+        // WHEN
+        Set<Integer> ids = new HashSet<>();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (Future<List<Integer>> inserted : executor.invokeAll(inserters)) {
+                ids.addAll(inserted.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // THEN
+        assertThat(ids).hasSize(THREADS * EMPLOYEES_PER_THREAD);
+        assertThat(countEmployees()).isEqualTo(THREADS * EMPLOYEES_PER_THREAD);
+
+        // One call to the sequence for every block of ids, plus the first call which only sets up the optimizer.
+        long sequenceCalls = (getUsingHibernate(EmployeeIdGenerationTest::nextSequenceValue) - sequenceBefore) / ALLOCATION_SIZE;
+        assertThat(sequenceCalls).isLessThanOrEqualTo(THREADS * EMPLOYEES_PER_THREAD / ALLOCATION_SIZE + 1);
+    }
+
+    @Test
+    void shouldKeepAssignedId() {
+        // WHEN
+        doInHibernate(session -> session.persist(newEmployee(5)));
+
+        // THEN
+        Employee employee = getUsingHibernateReadOnly(session -> session.get(Employee.class, 5));
+        assertThat(employee).isNotNull();
+    }
+
+    private static Employee newEmployee(Integer id) {
+        return new Employee(id, "Jane", "Doe", "jdoe@example.com", "555-1234", LocalDate.of(2020, 1, 1),
+                JobId.IT_PROG, BigDecimal.valueOf(5000));
+    }
+
+    private static long nextSequenceValue(Session session) {
+        return ((Number) session.createNativeQuery("SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'EMPLOYEES_SEQ'")
+                .getSingleResult()).longValue();
+    }
+
+    private long countEmployees() {
+        return getUsingHibernateReadOnly(session -> session.createQuery("SELECT COUNT(e) FROM Employee e", Long.class)
+                .getSingleResult());
+    }
+}
@@ -0,0 +1,51 @@
+package dev.karolkoltun.persistence;
+
+import dev.karolkoltun.persistence.entity.Account;
+import dev.karolkoltun.persistence.entity.AccountVersioned;
+import dev.karolkoltun.persistence.entity.WorkItem;
+import org.h2.jdbcx.JdbcDataSource;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The bank entities in an embedded, in-memory H2 database - no server needed. The database lives as long as the JVM.
+ */
+public class H2BankDataSourceProvider implements DataSourceProvider {
+  @Override
+  public String hibernateDialect() {
+    return "org.hibernate.dialect.H2Dialect";
+  }
+
+  @Override
+  public DataSource dataSource() {
+    JdbcDataSource dataSource = new JdbcDataSource();
+
+    dataSource.setURL(url());
+    dataSource.setUser(user());
+    dataSource.setPassword(password());
+
+    return dataSource;
+  }
+
+  @Override
+  public String url() {
+    return "jdbc:h2:mem:bank;DB_CLOSE_DELAY=-1";
+  }
+
+  @Override
+  public String user() {
+    return "bank";
+  }
+
+  @Override
+  public String password() {
+    return "password";
+  }
+
+  @Override
+  public List<Class<?>> annotatedClasses() {
+    return Arrays.asList(Account.class, AccountVersioned.class, WorkItem.class);
+  }
+}
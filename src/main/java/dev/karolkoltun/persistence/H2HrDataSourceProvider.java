@@ -0,0 +1,56 @@
+package dev.karolkoltun.persistence;
+
+import dev.karolkoltun.persistence.entity.Country;
+import dev.karolkoltun.persistence.entity.Department;
+import dev.karolkoltun.persistence.entity.Employee;
+import dev.karolkoltun.persistence.entity.EmployeeDirtyLocked;
+import dev.karolkoltun.persistence.entity.EmployeeVersioned;
+import dev.karolkoltun.persistence.entity.Job;
+import dev.karolkoltun.persistence.entity.Location;
+import dev.karolkoltun.persistence.entity.Region;
+import org.h2.jdbcx.JdbcDataSource;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The HR entities in an embedded, in-memory H2 database - no server needed. The database lives as long as the JVM.
+ */
+public class H2HrDataSourceProvider implements DataSourceProvider {
+  @Override
+  public String hibernateDialect() {
+    return "org.hibernate.dialect.H2Dialect";
+  }
+
+  @Override
+  public DataSource dataSource() {
+    JdbcDataSource dataSource = new JdbcDataSource();
+
+    dataSource.setURL(url());
+    dataSource.setUser(user());
+    dataSource.setPassword(password());
+
+    return dataSource;
+  }
+
+  @Override
+  public String url() {
+    return "jdbc:h2:mem:hr;DB_CLOSE_DELAY=-1";
+  }
+
+  @Override
+  public String user() {
+    return "user";
+  }
+
+  @Override
+  public String password() {
+    return "sa";
+  }
+
+  @Override
+  public List<Class<?>> annotatedClasses() {
+    return Arrays.asList(Employee.class, EmployeeVersioned.class, EmployeeDirtyLocked.class, Job.class, Region.class, Country.class, Location.class, Department.class);
+  }
+}
@@ -1,26 +1,24 @@
 package dev.karolkoltun.persistence;
 
+import dev.karolkoltun.persistence.metrics.MeteredConnectionProvider;
+import dev.karolkoltun.persistence.metrics.NPlusOneDetector;
+import dev.karolkoltun.persistence.metrics.SqlCapture;
+import dev.karolkoltun.persistence.metrics.SqlLogging;
+import dev.karolkoltun.persistence.metrics.SqlMetrics;
 import org.hibernate.FlushMode;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
-import org.hibernate.Transaction;
-import org.hibernate.boot.Metadata;
-import org.hibernate.boot.MetadataSources;
-import org.hibernate.boot.registry.BootstrapServiceRegistry;
-import org.hibernate.boot.registry.BootstrapServiceRegistryBuilder;
-import org.hibernate.boot.registry.StandardServiceRegistry;
-import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
-import org.junit.jupiter.api.AfterEach;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
-import javax.persistence.EntityTransaction;
 import java.sql.Connection;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -28,6 +26,7 @@ public abstract class HibernateTest {
 
     protected boolean useDatasource = false;
     protected EntityManagerFactory entityManagerFactory;
+    protected TransactionExecutor transactionExecutor;
 
     public abstract DataSourceProvider dataSourceProvider();
 
@@ -39,293 +38,239 @@ public abstract class HibernateTest {
     }
 
 
-    // todo what about closing the factory?
+    /**
+     * When present, Hibernate gets its connections from a HikariCP pool created by the data source provider.
+     */
+    public Optional<PoolSettings> getPoolSettings() {
+        return Optional.empty();
+    }
+
+    /**
+     * When present, JDBC batching is configured for the whole session factory. Regardless of this,
+     * {@link #doInHibernateBulk(int, Consumer)} batches its own session.
+     */
+    public Optional<BatchSettings> getBatchSettings() {
+        return Optional.empty();
+    }
+
+    /**
+     * When present, the second-level and query caches are enabled. Without it the {@link org.hibernate.annotations.Cache}
+     * annotations on the entities are ignored.
+     */
+    public Optional<CacheSettings> getCacheSettings() {
+        return Optional.empty();
+    }
+
+    /**
+     * Every statement goes through {@link MeteredConnectionProvider} - see {@link #getSqlMetrics()} and
+     * {@link #captureSql(Runnable)}. The JDBC proxies cost a little on every call, so the benchmarks turn it off.
+     */
+    public boolean collectSqlMetrics() {
+        return true;
+    }
+
+    /**
+     * When present, the blocks run by the session templates below ({@code doInHibernate}, {@code getUsingHibernate},
+     * {@code doUsingJpa}, ...) are checked for N+1 queries. Needs {@link #collectSqlMetrics()}.
+     */
+    public Optional<NPlusOneDetector> getNPlusOneDetector() {
+        return Optional.empty();
+    }
+
+    /**
+     * Used by all the session and transaction templates below.
+     */
+    public RetryPolicy getRetryPolicy() {
+        return RetryPolicy.defaults();
+    }
+
     @BeforeEach
-    void beforeEach() {
-        if (getIsolationLevel().isPresent() && useDatasource) {
-            // If you use the datasource, hibernate will ignore the transaction isolation level set in the properties.
-            // You would have to set the isolation level directly in the datasource configuration, but I could not find the exact way for MySQL or PostgreSQL datasources...
-            // See: https://vladmihalcea.com/a-beginners-guide-to-transaction-isolation-levels-in-enterprise-java/ for details.
-            throw new IllegalStateException("Do not use the datasource along with non-default isolation level.");
+    protected void beforeEach() {
+        DataSourceProvider dataSourceProvider = dataSourceProvider();
+
+        // If you use the datasource, hibernate will ignore the transaction isolation level set in the properties.
+        // The isolation level has to be set directly in the datasource configuration - this is what the pool does.
+        // See: https://vladmihalcea.com/a-beginners-guide-to-transaction-isolation-levels-in-enterprise-java/ for details.
+        PoolSettings poolSettings = getPoolSettings()
+                .or(() -> useDatasource && getIsolationLevel().isPresent() ? Optional.of(PoolSettings.defaults()) : Optional.empty())
+                .map(settings -> settings.isolationLevel() == null ? settings.withIsolationLevel(getIsolationLevel().orElse(null)) : settings)
+                .orElse(null);
+
+        // The schema is created once per session factory; it is dropped when the factory is closed at JVM shutdown.
+        String hbm2ddlMode = recreateBeforeEachTest() ? "create-drop" : null;
+
+        SessionFactoryCache.Key key = new SessionFactoryCache.Key(dataSourceProvider.getClass(),
+                dataSourceProvider.hibernateDialect(),
+                dataSourceProvider.annotatedClasses(),
+                getIsolationLevel().orElse(null),
+                hbm2ddlMode,
+                useDatasource,
+                poolSettings,
+                getBatchSettings().orElse(null),
+                getCacheSettings().orElse(null),
+                collectSqlMetrics());
+
+        SessionFactoryCache.CachedSessionFactory cachedSessionFactory = SessionFactoryCache.getOrBuild(key,
+                () -> buildProperties(dataSourceProvider, hbm2ddlMode, poolSettings));
+
+        if (recreateBeforeEachTest()) {
+            // Instead of re-creating the schema, just make sure that no rows are left over from the previous test.
+            cachedSessionFactory.deleteAllRows();
         }
 
-        DataSourceProvider dataSourceProvider = dataSourceProvider();
+        entityManagerFactory = cachedSessionFactory.getSessionFactory();
+        transactionExecutor = new TransactionExecutor(entityManagerFactory.unwrap(SessionFactory.class), getRetryPolicy());
+    }
+
+    private Properties buildProperties(DataSourceProvider dataSourceProvider, String hbm2ddlMode, PoolSettings poolSettings) {
         Properties properties = new Properties();
         properties.setProperty("hibernate.dialect", dataSourceProvider.hibernateDialect());
 
-        if (useDatasource) {
+        if (poolSettings != null) {
+            // The pool is closed by the session factory cache, together with the factory.
+            properties.put("hibernate.connection.datasource", dataSourceProvider.pooledDataSource(poolSettings));
+        } else if (useDatasource) {
             properties.put("hibernate.connection.datasource", dataSourceProvider.dataSource());
         } else {
-            properties.setProperty("hibernate.connection.url", dataSourceProvider().url());
-            properties.setProperty("hibernate.connection.username", dataSourceProvider().user());
-            properties.setProperty("hibernate.connection.password", dataSourceProvider().password());
-        }
+            properties.setProperty("hibernate.connection.url", dataSourceProvider.url());
+            properties.setProperty("hibernate.connection.username", dataSourceProvider.user());
+            properties.setProperty("hibernate.connection.password", dataSourceProvider.password());
 
-        if (recreateBeforeEachTest()) {
-            properties.put("hibernate.hbm2ddl.auto", "create-drop");
+            if (getIsolationLevel().isPresent()) {
+                properties.setProperty("hibernate.connection.isolation", String.valueOf(getIsolationLevel().get()));
+            }
         }
 
-        if (getIsolationLevel().isPresent()) {
-            properties.setProperty("hibernate.connection.isolation", String.valueOf(getIsolationLevel().get()));
+        if (hbm2ddlMode != null) {
+            properties.put("hibernate.hbm2ddl.auto", hbm2ddlMode);
         }
 
-        properties.setProperty("hibernate.show_sql", "true");
+        // Only local JDBC transactions here. Bitronix is on the classpath for the JPA tests, and Hibernate would pick it
+        // up - the second-level cache then starts the shared transaction manager the JPA tests configure themselves.
+        properties.setProperty("hibernate.transaction.jta.platform", "org.hibernate.engine.transaction.jta.platform.internal.NoJtaPlatform");
 
-        BootstrapServiceRegistry bootstrapServiceRegistry = new BootstrapServiceRegistryBuilder().build();
-        StandardServiceRegistryBuilder standardServiceRegistryBuilder = new StandardServiceRegistryBuilder(bootstrapServiceRegistry)
-                .applySettings(properties);
-        StandardServiceRegistry standardServiceRegistry = standardServiceRegistryBuilder
-                .build();
+        getBatchSettings().ifPresent(batchSettings -> properties.putAll(batchSettings.toProperties()));
+        getCacheSettings().ifPresent(cacheSettings -> properties.putAll(cacheSettings.toProperties()));
 
-        MetadataSources metadataSources = new MetadataSources(standardServiceRegistry);
-        for (Class<?> annotatedClass : dataSourceProvider().annotatedClasses()) {
-            metadataSources.addAnnotatedClass(annotatedClass);
+        properties.setProperty("hibernate.show_sql", String.valueOf(SqlLogging.isEnabled()));
+        properties.setProperty("hibernate.generate_statistics", "true");
+        // Otherwise every session prints its own statistics when closed.
+        properties.setProperty("hibernate.session.events.log", "false");
+        if (collectSqlMetrics()) {
+            properties.setProperty("hibernate.connection.provider_class", MeteredConnectionProvider.class.getName());
         }
 
-        Metadata metadata = metadataSources.buildMetadata();
+        return properties;
+    }
 
-        entityManagerFactory = metadata.buildSessionFactory();
+    /**
+     * Cumulative for the whole session factory, which may be shared with other tests - clear it first.
+     */
+    protected Statistics getStatistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
     }
 
-    @AfterEach
-    void afterEach() {
-        if (entityManagerFactory != null && entityManagerFactory.isOpen()) {
-            entityManagerFactory.close();
+    /**
+     * Statements executed through the session factory, per statement shape. Cumulative like {@link #getStatistics()}.
+     */
+    protected SqlMetrics getSqlMetrics() {
+        if (!collectSqlMetrics()) {
+            throw new IllegalStateException("SQL metrics are not collected, see collectSqlMetrics().");
         }
+        return entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(ConnectionProvider.class)
+                .unwrap(MeteredConnectionProvider.class)
+                .getSqlMetrics();
     }
 
-    protected <T> T getUsingJpa(Function<EntityManager, T> function) {
-        T result;
-
-        EntityManager entitymanager = null;
-        EntityTransaction transaction = null;
-
-        try {
-            entitymanager = entityManagerFactory.createEntityManager();
-            transaction = entitymanager.getTransaction();
-
-            transaction.begin();
-            result = function.apply(entitymanager);
-
-            if (!transaction.getRollbackOnly()) {
-                transaction.commit();
-            } else {
-                try {
-                    transaction.rollback();
-                } catch (Exception e) {
-                    System.err.println("Rollback failure: " + e.getMessage());
-                    e.printStackTrace(System.err);
-                }
-            }
-        } catch (Throwable t) {
-            if (transaction != null && transaction.isActive()) {
-                try {
-                    transaction.rollback();
-                } catch (Exception e) {
-                    System.err.println("Rollback failure: " + e.getMessage());
-                    e.printStackTrace(System.err);
-                }
-            }
-
-            throw t;
-        } finally {
-            if (entitymanager != null) {
-                entitymanager.close();
-            }
+    /**
+     * Runs the block (usually one of the templates below) and returns the statements it executed on this thread.
+     */
+    protected SqlCapture captureSql(Runnable block) {
+        try (SqlCapture capture = SqlCapture.start()) {
+            block.run();
+            return capture;
         }
-
-        return result;
     }
-    protected void doUsingJpa(Consumer<EntityManager> function) {
-        EntityManager entitymanager = null;
-        EntityTransaction transaction = null;
 
-        try {
-            entitymanager = entityManagerFactory.createEntityManager();
-            transaction = entitymanager.getTransaction();
-
-            transaction.begin();
-
-            function.accept(entitymanager);
-
-            if (!transaction.getRollbackOnly()) {
-                transaction.commit();
-            } else {
-                try {
-                    transaction.rollback();
-                } catch (Exception e) {
-                    System.err.println("Rollback failure: " + e.getMessage());
-                    e.printStackTrace(System.err);
-                }
-            }
-        } catch (Throwable t) {
-            if (transaction != null && transaction.isActive()) {
-                try {
-                    transaction.rollback();
-                } catch (Exception e) {
-                    System.err.println("Rollback failure: " + e.getMessage());
-                    e.printStackTrace(System.err);
-                }
-            }
+    protected <T> T getUsingJpa(Function<EntityManager, T> function) {
+        return inSession(TransactionOptions.defaults(), function);
+    }
 
-            throw t;
-        } finally {
-            if (entitymanager != null) {
-                entitymanager.close();
-            }
-        }
+    protected void doUsingJpa(Consumer<EntityManager> function) {
+        inSession(TransactionOptions.defaults(), entityManager -> {
+            function.accept(entityManager);
+            return null;
+        });
     }
 
     protected <T> T getUsingJDBC(Function<Connection, T> callable) {
-        AtomicReference<T> result = new AtomicReference<>();
-        Transaction transaction = null;
-        try (Session session = entityManagerFactory.unwrap(SessionFactory.class).openSession()) {
-
-            transaction = session.beginTransaction();
-
-            session.doWork(connection -> result.set(callable.apply(connection)));
-
-            if (!transaction.getRollbackOnly()) {
-                transaction.commit();
-            } else {
-                try {
-                    transaction.rollback();
-                } catch (Exception e) {
-                    System.err.println("Rollback failure: " + e.getMessage());
-                    e.printStackTrace(System.err);
-                }
-            }
-        } catch (Throwable t) {
-            if (transaction != null && transaction.isActive()) {
-                try {
-                    transaction.rollback();
-                } catch (Exception e) {
-                    System.err.println("Rollback failure: " + e.getMessage());
-                    e.printStackTrace(System.err);
-                }
-            }
-            throw t;
-        }
-
-        return result.get();
+        return transactionExecutor.inConnection(TransactionOptions.defaults(), callable);
     }
 
     protected void doUsingJDBC(Consumer<Connection> callable) {
-        Transaction transaction = null;
-        try (Session session = entityManagerFactory.unwrap(SessionFactory.class).openSession()) {
-            session.setDefaultReadOnly(true);
-            session.setHibernateFlushMode(FlushMode.MANUAL);
-
-            transaction = session.beginTransaction();
-
-            session.doWork(callable::accept);
-
-            if (!transaction.getRollbackOnly()) {
-                transaction.commit();
-            } else {
-                try {
-                    transaction.rollback();
-                } catch (Exception e) {
-                    System.err.println("Rollback failure: " + e.getMessage());
-                    e.printStackTrace(System.err);
-                }
-            }
-        } catch (Throwable t) {
-            if (transaction != null && transaction.isActive()) {
-                try {
-                    transaction.rollback();
-                } catch (Exception e) {
-                    System.err.println("Rollback failure: " + e.getMessage());
-                    e.printStackTrace(System.err);
-                }
-            }
-            throw t;
-        }
+        transactionExecutor.inConnection(TransactionOptions.readOnlyDefaults(), connection -> {
+            callable.accept(connection);
+            return null;
+        });
     }
 
-    protected<T> T getUsingHibernate(Function<Session, T> callable) {
-        return getUsingHibernate(callable, false, FlushMode.AUTO);
+    protected <T> T getUsingHibernate(Function<Session, T> callable) {
+        return inSession(TransactionOptions.defaults(), callable);
     }
 
     protected <T> T getUsingHibernateReadOnly(Function<Session, T> callable) {
-        return getUsingHibernate(callable, true, FlushMode.MANUAL);
+        return inSession(TransactionOptions.readOnlyDefaults(), callable);
     }
 
     protected <T> T getUsingHibernate(Function<Session, T> callable, boolean readOnly, FlushMode flushMode) {
-        AtomicReference<T> result = new AtomicReference<>();
-        Transaction transaction = null;
-        try (Session session = entityManagerFactory.unwrap(SessionFactory.class).openSession()) {
-            session.setDefaultReadOnly(readOnly);
-            session.setHibernateFlushMode(flushMode);
-
-            transaction = session.beginTransaction();
-
-            session.doWork(connection -> result.set(callable.apply(session)));
-
-            if (!transaction.getRollbackOnly()) {
-                transaction.commit();
-            } else {
-                try {
-                    transaction.rollback();
-                } catch (Exception e) {
-                    System.err.println("Rollback failure: " + e.getMessage());
-                    e.printStackTrace(System.err);
-                }
-            }
-        } catch (Throwable t) {
-            if (transaction != null && transaction.isActive()) {
-                try {
-                    transaction.rollback();
-                } catch (Exception e) {
-                    System.err.println("Rollback failure: " + e.getMessage());
-                    e.printStackTrace(System.err);
-                }
-            }
-            throw t;
-        }
+        return inSession(new TransactionOptions(null, readOnly, flushMode, null), callable);
+    }
 
-        return result.get();
+    protected <T> T getUsingHibernate(Function<Session, T> callable, TransactionOptions options) {
+        return inSession(options, callable);
     }
 
     protected void doInHibernateReadOnly(Consumer<Session> callable) {
         doInHibernate(callable, true, FlushMode.AUTO);
     }
 
-    protected  void doInHibernate(Consumer<Session> callable) {
+    protected void doInHibernate(Consumer<Session> callable) {
         doInHibernate(callable, false, FlushMode.AUTO);
     }
 
     protected void doInHibernate(Consumer<Session> callable, boolean readOnly, FlushMode flushMode) {
-        Transaction transaction = null;
-        try (Session session = entityManagerFactory.unwrap(SessionFactory.class).openSession()) {
-            session.setDefaultReadOnly(readOnly);
-            session.setHibernateFlushMode(flushMode);
-
-            transaction = session.beginTransaction();
+        doInHibernate(callable, new TransactionOptions(null, readOnly, flushMode, null));
+    }
 
+    protected void doInHibernate(Consumer<Session> callable, TransactionOptions options) {
+        inSession(options, session -> {
             callable.accept(session);
+            return null;
+        });
+    }
 
-            if (!transaction.getRollbackOnly()) {
-                transaction.commit();
-            } else {
-                try {
-                    transaction.rollback();
-                } catch (Exception e) {
-                    System.err.println("Rollback failure: " + e.getMessage());
-                    e.printStackTrace(System.err);
-                }
-            }
-        } catch (Throwable t) {
-            if (transaction != null && transaction.isActive()) {
-                try {
-                    transaction.rollback();
-                } catch (Exception e) {
-                    System.err.println("Rollback failure: " + e.getMessage());
-                    e.printStackTrace(System.err);
-                }
-            }
-            throw t;
+    // The detector checks every attempt on its own - a retried block runs its queries again.
+    private <T> T inSession(TransactionOptions options, Function<? super Session, T> work) {
+        Optional<NPlusOneDetector> detector = getNPlusOneDetector();
+        if (detector.isEmpty()) {
+            return transactionExecutor.inSession(options, work);
         }
+        return transactionExecutor.inSession(options, session -> detector.get().get(() -> work.apply(session)));
+    }
+
+    /**
+     * Runs bulk writes in a session with JDBC batches of the given size, flushed and cleared after every batch.
+     *
+     * @return the writer, for its counters
+     */
+    protected BulkWriter doInHibernateBulk(int batchSize, Consumer<BulkWriter> work) {
+        return transactionExecutor.inSession(TransactionOptions.defaults().withJdbcBatchSize(batchSize), session -> {
+            BulkWriter bulkWriter = new BulkWriter(session, batchSize);
+            work.accept(bulkWriter);
+            return bulkWriter;
+        });
     }
 
     public static void awaitOnLatch(CountDownLatch latch) {
@@ -2,10 +2,11 @@ package dev.karolkoltun.persistence;
 
 import com.mysql.cj.jdbc.MysqlDataSource;
 import dev.karolkoltun.persistence.entity.Account;
+import dev.karolkoltun.persistence.entity.WorkItem;
 
 import javax.sql.DataSource;
-import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public class MySqlDataSourceProvider implements DataSourceProvider {
   @Override
@@ -41,6 +42,18 @@ public class MySqlDataSourceProvider implements DataSourceProvider {
 
   @Override
   public List<Class<?>> annotatedClasses() {
-    return Collections.singletonList(Account.class);
+    return List.of(Account.class, WorkItem.class);
+  }
+
+  @Override
+  public Map<String, String> statementCacheProperties(int statementCacheSize) {
+    if (statementCacheSize <= 0) {
+      return Map.of();
+    }
+    return Map.of(
+        "useServerPrepStmts", "true",
+        "cachePrepStmts", "true",
+        "prepStmtCacheSize", String.valueOf(statementCacheSize),
+        "prepStmtCacheSqlLimit", "2048");
   }
 }
@@ -0,0 +1,28 @@
+package dev.karolkoltun.persistence;
+
+/**
+ * Settings of a connection pool created with {@link DataSourceProvider#pooledDataSource(PoolSettings)}.
+ *
+ * @param maximumPoolSize    maximum number of connections kept by the pool
+ * @param statementCacheSize number of prepared statements cached per connection by the JDBC driver; 0 disables caching
+ * @param isolationLevel     isolation level set on every connection of the pool (one of {@link java.sql.Connection}
+ *                           constants), or null to keep the database default
+ */
+public record PoolSettings(int maximumPoolSize, int statementCacheSize, Integer isolationLevel) {
+
+    public static PoolSettings defaults() {
+        return new PoolSettings(10, 256, null);
+    }
+
+    public PoolSettings withMaximumPoolSize(int maximumPoolSize) {
+        return new PoolSettings(maximumPoolSize, statementCacheSize, isolationLevel);
+    }
+
+    public PoolSettings withStatementCacheSize(int statementCacheSize) {
+        return new PoolSettings(maximumPoolSize, statementCacheSize, isolationLevel);
+    }
+
+    public PoolSettings withIsolationLevel(Integer isolationLevel) {
+        return new PoolSettings(maximumPoolSize, statementCacheSize, isolationLevel);
+    }
+}
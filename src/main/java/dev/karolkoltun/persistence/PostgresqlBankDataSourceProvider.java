@@ -1,16 +1,19 @@
 package dev.karolkoltun.persistence;
 
 import dev.karolkoltun.persistence.entity.Account;
+import dev.karolkoltun.persistence.entity.AccountVersioned;
+import dev.karolkoltun.persistence.entity.WorkItem;
 import org.postgresql.ds.PGSimpleDataSource;
 
 import javax.sql.DataSource;
-import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public class PostgresqlBankDataSourceProvider implements DataSourceProvider {
     @Override
     public String hibernateDialect() {
-        return "org.hibernate.dialect.PostgreSQLDialect";
+        // PostgreSQLDialect is the one of PostgreSQL 8.2 - it renders SKIP LOCKED as a plain, blocking FOR UPDATE.
+        return "org.hibernate.dialect.PostgreSQL10Dialect";
     }
 
     @Override
@@ -41,6 +44,14 @@ public class PostgresqlBankDataSourceProvider implements DataSourceProvider {
 
     @Override
     public List<Class<?>> annotatedClasses() {
-        return Collections.singletonList(Account.class);
+        return List.of(Account.class, AccountVersioned.class, WorkItem.class);
+    }
+
+    @Override
+    public Map<String, String> statementCacheProperties(int statementCacheSize) {
+        // With prepareThreshold=0 the driver never switches to server-side prepared statements.
+        return statementCacheSize > 0
+                ? Map.of("preparedStatementCacheQueries", String.valueOf(statementCacheSize))
+                : Map.of("prepareThreshold", "0");
     }
 }
@@ -1,13 +1,20 @@
 package dev.karolkoltun.persistence;
 
+import dev.karolkoltun.persistence.entity.Country;
+import dev.karolkoltun.persistence.entity.Department;
 import dev.karolkoltun.persistence.entity.Employee;
+import dev.karolkoltun.persistence.entity.EmployeeDirtyLocked;
 import dev.karolkoltun.persistence.entity.EmployeeVersioned;
+import dev.karolkoltun.persistence.entity.Job;
+import dev.karolkoltun.persistence.entity.Location;
+import dev.karolkoltun.persistence.entity.Region;
 import org.postgresql.ds.PGSimpleDataSource;
 
 import javax.sql.DataSource;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public class PostgresqlHrDataSourceProvider implements DataSourceProvider {
     @Override
@@ -43,6 +50,14 @@ public class PostgresqlHrDataSourceProvider implements DataSourceProvider {
 
     @Override
     public List<Class<?>> annotatedClasses() {
-        return Arrays.asList(Employee.class, EmployeeVersioned.class);
+        return Arrays.asList(Employee.class, EmployeeVersioned.class, EmployeeDirtyLocked.class, Job.class, Region.class, Country.class, Location.class, Department.class);
+    }
+
+    @Override
+    public Map<String, String> statementCacheProperties(int statementCacheSize) {
+        // With prepareThreshold=0 the driver never switches to server-side prepared statements.
+        return statementCacheSize > 0
+                ? Map.of("preparedStatementCacheQueries", String.valueOf(statementCacheSize))
+                : Map.of("prepareThreshold", "0");
     }
 }
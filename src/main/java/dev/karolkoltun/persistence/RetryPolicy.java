@@ -0,0 +1,100 @@
+package dev.karolkoltun.persistence;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * When and how long to wait before running a failed transaction again. Only failures with one of the retryable
+ * SQLSTATEs are retried - by default serialization failures and deadlocks, which the database reports precisely so
+ * that the transaction can be re-run.
+ * See: https://www.postgresql.org/docs/15/mvcc-serialization-failure-handling.html
+ *
+ * @param maxAttempts        how many times the transaction runs at most, including the first attempt; 1 disables retries
+ * @param initialBackoff     wait before the first retry
+ * @param maxBackoff         upper bound of the wait, however many retries there were
+ * @param multiplier         growth of the wait with every retry
+ * @param jitter             whether the wait is randomized (between half of it and all of it), so that the transactions
+ *                           that failed together do not collide again when they are retried
+ * @param retryableSqlStates SQLSTATEs of the failures worth retrying
+ */
+public record RetryPolicy(int maxAttempts,
+                          Duration initialBackoff,
+                          Duration maxBackoff,
+                          double multiplier,
+                          boolean jitter,
+                          Set<String> retryableSqlStates) {
+
+    public RetryPolicy {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("At least one attempt is needed, got " + maxAttempts + ".");
+        }
+        if (multiplier < 1) {
+            throw new IllegalArgumentException("The backoff must not shrink, got multiplier " + multiplier + ".");
+        }
+        retryableSqlStates = Set.copyOf(retryableSqlStates);
+    }
+
+    public static RetryPolicy defaults() {
+        return new RetryPolicy(3, Duration.ofMillis(10), Duration.ofSeconds(1), 2.0, true,
+                Set.of(SqlStates.SERIALIZATION_FAILURE, SqlStates.DEADLOCK_DETECTED));
+    }
+
+    public static RetryPolicy noRetries() {
+        return defaults().withMaxAttempts(1);
+    }
+
+    public RetryPolicy withMaxAttempts(int maxAttempts) {
+        return new RetryPolicy(maxAttempts, initialBackoff, maxBackoff, multiplier, jitter, retryableSqlStates);
+    }
+
+    public RetryPolicy withBackoff(Duration initialBackoff, Duration maxBackoff, double multiplier) {
+        return new RetryPolicy(maxAttempts, initialBackoff, maxBackoff, multiplier, jitter, retryableSqlStates);
+    }
+
+    public RetryPolicy withJitter(boolean jitter) {
+        return new RetryPolicy(maxAttempts, initialBackoff, maxBackoff, multiplier, jitter, retryableSqlStates);
+    }
+
+    public RetryPolicy withRetryableSqlStates(String... retryableSqlStates) {
+        return new RetryPolicy(maxAttempts, initialBackoff, maxBackoff, multiplier, jitter, Set.of(retryableSqlStates));
+    }
+
+    /**
+     * @param attempt 1-based number of the attempt that failed
+     */
+    public boolean shouldRetry(Throwable failure, int attempt) {
+        return attempt < maxAttempts && isRetryable(failure);
+    }
+
+    /**
+     * @return whether the failure has one of the retryable SQLSTATEs, whatever the attempt
+     */
+    public boolean isRetryable(Throwable failure) {
+        return SqlStates.of(failure).map(retryableSqlStates::contains).orElse(false);
+    }
+
+    /**
+     * @param attempt 1-based number of the attempt that failed
+     * @return how long to wait before the next attempt
+     */
+    public Duration backoff(int attempt) {
+        double nanos = Math.min(initialBackoff.toNanos() * Math.pow(multiplier, attempt - 1), maxBackoff.toNanos());
+        if (jitter) {
+            nanos = ThreadLocalRandom.current().nextDouble(nanos / 2, nanos + 1);
+        }
+        return Duration.ofNanos((long) nanos);
+    }
+
+    /**
+     * Sleeps for the {@link #backoff(int) backoff} of the given attempt.
+     */
+    public void sleepBeforeRetry(int attempt) {
+        try {
+            Thread.sleep(backoff(attempt));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry.", e);
+        }
+    }
+}
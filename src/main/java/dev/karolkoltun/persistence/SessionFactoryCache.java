@@ -0,0 +1,180 @@
+package dev.karolkoltun.persistence;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.BootstrapServiceRegistry;
+import org.hibernate.boot.registry.BootstrapServiceRegistryBuilder;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.mapping.ForeignKey;
+import org.hibernate.mapping.Table;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Keeps one SessionFactory per configuration, so that the tests sharing the configuration do not pay for the Hibernate
+ * bootstrap (metadata building, schema generation, connection provider startup) before every single test.
+ * The cached factories are closed when the JVM shuts down.
+ */
+public final class SessionFactoryCache {
+    private static final Logger log = LoggerFactory.getLogger(SessionFactoryCache.class);
+
+    private static final Map<Key, CachedSessionFactory> cache = new ConcurrentHashMap<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(SessionFactoryCache::closeAll, "session-factory-cache-shutdown"));
+    }
+
+    private SessionFactoryCache() {
+    }
+
+    public static CachedSessionFactory getOrBuild(Key key, Supplier<Properties> propertiesSupplier) {
+        return cache.computeIfAbsent(key, __ -> build(key, propertiesSupplier.get()));
+    }
+
+    private static CachedSessionFactory build(Key key, Properties properties) {
+        log.info("Building a new session factory for {}", key);
+
+        BootstrapServiceRegistry bootstrapServiceRegistry = new BootstrapServiceRegistryBuilder().build();
+        StandardServiceRegistry standardServiceRegistry = new StandardServiceRegistryBuilder(bootstrapServiceRegistry)
+                .applySettings(properties)
+                .build();
+
+        MetadataSources metadataSources = new MetadataSources(standardServiceRegistry);
+        for (Class<?> annotatedClass : key.annotatedClasses()) {
+            metadataSources.addAnnotatedClass(annotatedClass);
+        }
+
+        Metadata metadata = metadataSources.buildMetadata();
+
+        // Hibernate never closes a datasource it was given, so a pool created for this factory has to be closed here.
+        AutoCloseable ownedDataSource = properties.get("hibernate.connection.datasource") instanceof AutoCloseable closeable
+                ? closeable
+                : null;
+
+        return new CachedSessionFactory(metadata.buildSessionFactory(), metadata, ownedDataSource);
+    }
+
+    private static void closeAll() {
+        for (Map.Entry<Key, CachedSessionFactory> entry : cache.entrySet()) {
+            try {
+                entry.getValue().close();
+            } catch (Exception | LinkageError e) {
+                // Test runners may close their class loader before the shutdown hooks run. The schema left behind by
+                // a failed "create-drop" is dropped anyway when the next factory with the same key is built.
+                log.error("Could not close the session factory for {}", entry.getKey(), e);
+            }
+        }
+        cache.clear();
+    }
+
+    /**
+     * Everything that makes two session factories different. Credentials and URLs are not here - they are fixed per
+     * data source provider class.
+     */
+    public record Key(Class<? extends DataSourceProvider> dataSourceProviderClass,
+                      String hibernateDialect,
+                      List<Class<?>> annotatedClasses,
+                      Integer isolationLevel,
+                      String hbm2ddlMode,
+                      boolean useDatasource,
+                      PoolSettings poolSettings,
+                      BatchSettings batchSettings,
+                      CacheSettings cacheSettings,
+                      boolean sqlMetrics) {
+
+        public Key {
+            annotatedClasses = List.copyOf(annotatedClasses);
+        }
+    }
+
+    public static class CachedSessionFactory {
+        private final SessionFactory sessionFactory;
+        private final List<String> mappedTables;
+        private final AutoCloseable ownedDataSource;
+
+        private CachedSessionFactory(SessionFactory sessionFactory, Metadata metadata, AutoCloseable ownedDataSource) {
+            this.sessionFactory = sessionFactory;
+            this.ownedDataSource = ownedDataSource;
+
+            // Table name -> names of the tables it references.
+            Map<String, Set<String>> tables = new LinkedHashMap<>();
+            for (Table table : metadata.collectTableMappings()) {
+                if (table.isPhysicalTable()) {
+                    Set<String> referenced = tables.computeIfAbsent(table.getQuotedName(), __ -> new LinkedHashSet<>());
+                    for (ForeignKey foreignKey : table.getForeignKeys().values()) {
+                        referenced.add(foreignKey.getReferencedTable().getQuotedName());
+                    }
+                }
+            }
+            this.mappedTables = deletionOrder(tables);
+        }
+
+        // The rows referencing other tables go first, so that the foreign keys are never violated.
+        private static List<String> deletionOrder(Map<String, Set<String>> tables) {
+            List<String> order = new ArrayList<>();
+            Set<String> remaining = new LinkedHashSet<>(tables.keySet());
+            while (!remaining.isEmpty()) {
+                String next = remaining.stream()
+                        .filter(table -> remaining.stream()
+                                .noneMatch(other -> !other.equals(table) && tables.get(other).contains(table)))
+                        .findFirst()
+                        // A cycle of foreign keys - no order works, the delete fails as it would anyway.
+                        .orElse(remaining.iterator().next());
+                remaining.remove(next);
+                order.add(next);
+            }
+            return order;
+        }
+
+        public SessionFactory getSessionFactory() {
+            return sessionFactory;
+        }
+
+        /**
+         * Cheap replacement for dropping and re-creating the schema before each test: the schema is created once,
+         * when the factory is built, and only the rows of the mapped tables are removed afterwards.
+         */
+        public void deleteAllRows() {
+            Transaction transaction = null;
+            try (Session session = sessionFactory.openSession()) {
+                transaction = session.beginTransaction();
+                for (String table : mappedTables) {
+                    session.createNativeQuery("DELETE FROM " + table).executeUpdate();
+                }
+                transaction.commit();
+                sessionFactory.getCache().evictAllRegions();
+            } catch (RuntimeException e) {
+                if (transaction != null && transaction.isActive()) {
+                    transaction.rollback();
+                }
+                throw e;
+            }
+        }
+
+        private void close() throws Exception {
+            try {
+                if (sessionFactory.isOpen()) {
+                    sessionFactory.close();
+                }
+            } finally {
+                if (ownedDataSource != null) {
+                    ownedDataSource.close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package dev.karolkoltun.persistence;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * SQLSTATE codes the tests care about and a way to dig them out of the exceptions thrown by Hibernate and JDBC.
+ * See: https://www.postgresql.org/docs/15/errcodes-appendix.html
+ */
+public final class SqlStates {
+    public static final String SERIALIZATION_FAILURE = "40001";
+    public static final String DEADLOCK_DETECTED = "40P01";
+    public static final String LOCK_NOT_AVAILABLE = "55P03";
+    public static final String QUERY_CANCELED = "57014";
+
+    private SqlStates() {
+    }
+
+    /**
+     * @return SQLSTATE of the first {@link SQLException} in the cause chain that has one
+     */
+    public static Optional<String> of(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && sqlException.getSQLState() != null) {
+                return Optional.of(sqlException.getSQLState());
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return Optional.empty();
+    }
+
+    public static boolean is(Throwable throwable, String... sqlStates) {
+        return of(throwable)
+                .map(sqlState -> List.of(sqlStates).contains(sqlState))
+                .orElse(false);
+    }
+}
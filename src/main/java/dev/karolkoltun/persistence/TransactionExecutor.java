@@ -0,0 +1,210 @@
+package dev.karolkoltun.persistence;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.transaction.Synchronization;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Runs a unit of work in a new session and transaction: commits it (or rolls it back if it has been marked as
+ * rollback-only), rolls it back on failure and re-runs it in a fresh session when the {@link RetryPolicy} says so.
+ * <p>
+ * By default the failures with one of the retryable SQLSTATEs of the policy are retried; {@link #withRetryOn(Predicate)}
+ * replaces that with any other test, e.g. for a stale version. An {@link AttemptListener} is told about every failed
+ * attempt - to count the retries, or to refuse them once a budget is used up.
+ * <p>
+ * The work has to be safe to run more than once - everything it does in the database is rolled back before a retry,
+ * but its side effects outside the database are not.
+ */
+public class TransactionExecutor {
+    private static final Logger log = LoggerFactory.getLogger(TransactionExecutor.class);
+
+    private final SessionFactory sessionFactory;
+    private final RetryPolicy retryPolicy;
+    // Null for the retryable SQLSTATEs of the retry policy.
+    private final Predicate<? super RuntimeException> retryOn;
+    private final AttemptListener attemptListener;
+
+    public TransactionExecutor(SessionFactory sessionFactory, RetryPolicy retryPolicy) {
+        this(sessionFactory, retryPolicy, null, AttemptListener.NONE);
+    }
+
+    private TransactionExecutor(SessionFactory sessionFactory, RetryPolicy retryPolicy,
+                                Predicate<? super RuntimeException> retryOn, AttemptListener attemptListener) {
+        this.sessionFactory = sessionFactory;
+        this.retryPolicy = retryPolicy;
+        this.retryOn = retryOn;
+        this.attemptListener = attemptListener;
+    }
+
+    public TransactionExecutor withRetryPolicy(RetryPolicy retryPolicy) {
+        return new TransactionExecutor(sessionFactory, retryPolicy, retryOn, attemptListener);
+    }
+
+    /**
+     * The same executor, retrying the failures for which the predicate is true instead of those with a retryable
+     * SQLSTATE. The retry policy still limits the attempts and spaces them out.
+     */
+    public TransactionExecutor withRetryOn(Predicate<? super RuntimeException> retryOn) {
+        return new TransactionExecutor(sessionFactory, retryPolicy, retryOn, attemptListener);
+    }
+
+    public TransactionExecutor withAttemptListener(AttemptListener attemptListener) {
+        return new TransactionExecutor(sessionFactory, retryPolicy, retryOn, attemptListener);
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * The session is also the JPA {@link javax.persistence.EntityManager} - the work can be written against either.
+     */
+    public <T> T inSession(TransactionOptions options, Function<? super Session, T> work) {
+        for (int attempt = 1; ; attempt++) {
+            long start = System.nanoTime();
+            try {
+                return inSessionOnce(options, work);
+            } catch (RuntimeException e) {
+                boolean retryable = attempt < retryPolicy.maxAttempts() && isRetryable(e);
+                if (!attemptListener.attemptFailed(e, attempt, Duration.ofNanos(System.nanoTime() - start), retryable)
+                        || !retryable) {
+                    throw e;
+                }
+                log.debug("Attempt {} of {} failed with {}, retrying.", attempt, retryPolicy.maxAttempts(),
+                        SqlStates.of(e).map(sqlState -> "SQLSTATE " + sqlState).orElse(e.toString()));
+
+                long backoffStart = System.nanoTime();
+                retryPolicy.sleepBeforeRetry(attempt);
+                attemptListener.backedOff(attempt, Duration.ofNanos(System.nanoTime() - backoffStart));
+            }
+        }
+    }
+
+    public <T> T inConnection(TransactionOptions options, Function<Connection, T> work) {
+        return inSession(options, session -> session.doReturningWork(work::apply));
+    }
+
+    private boolean isRetryable(RuntimeException failure) {
+        return retryOn != null ? retryOn.test(failure) : retryPolicy.isRetryable(failure);
+    }
+
+    private <T> T inSessionOnce(TransactionOptions options, Function<? super Session, T> work) {
+        // Not a try-with-resources - the session must not be closed before the transaction is rolled back, or its
+        // connection would go back to the pool with the work of the failed transaction still pending.
+        Session session = openSession(options);
+        Transaction transaction = null;
+        try {
+            session.setDefaultReadOnly(options.readOnly());
+            session.setHibernateFlushMode(options.flushMode());
+            if (options.jdbcBatchSize() != null) {
+                session.setJdbcBatchSize(options.jdbcBatchSize());
+            }
+
+            transaction = session.beginTransaction();
+            if (options.isolationLevel() != null) {
+                setIsolationLevel(session, transaction, options.isolationLevel());
+            }
+
+            T result = work.apply(session);
+
+            if (!transaction.getRollbackOnly()) {
+                transaction.commit();
+            } else {
+                rollback(transaction);
+            }
+            return result;
+        } catch (RuntimeException | Error e) {
+            if (transaction != null && transaction.isActive()) {
+                rollback(transaction);
+            }
+            throw e;
+        } finally {
+            session.close();
+        }
+    }
+
+    // By default the connection goes back to the pool as soon as the transaction completes - before the synchronizations
+    // run. A session that changes the isolation level keeps it until it is closed, so that the level can be restored
+    // after the transaction without touching a connection that another thread has taken from the pool in the meantime.
+    private Session openSession(TransactionOptions options) {
+        if (options.isolationLevel() == null) {
+            return sessionFactory.openSession();
+        }
+        return sessionFactory.withOptions()
+                .connectionHandlingMode(PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_HOLD)
+                .openSession();
+    }
+
+    // The previous isolation level is restored after the transaction - otherwise it would leak into whatever
+    // transaction gets the connection next.
+    private static void setIsolationLevel(Session session, Transaction transaction, int isolationLevel) {
+        Connection connection = session.doReturningWork(c -> c);
+        int previousIsolationLevel;
+        try {
+            previousIsolationLevel = connection.getTransactionIsolation();
+            if (previousIsolationLevel == isolationLevel) {
+                return;
+            }
+            // No statement has been run in the transaction yet, so the level can still be changed.
+            connection.setTransactionIsolation(isolationLevel);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not set the isolation level " + isolationLevel, e);
+        }
+
+        transaction.registerSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    connection.setTransactionIsolation(previousIsolationLevel);
+                } catch (SQLException e) {
+                    log.warn("Could not restore the isolation level of {}", connection, e);
+                }
+            }
+        });
+    }
+
+    private static void rollback(Transaction transaction) {
+        try {
+            transaction.rollback();
+        } catch (Exception e) {
+            log.error("Rollback failure", e);
+        }
+    }
+
+    /**
+     * Told about the attempts of the units of work that failed, on the thread that runs them - after the rollback and
+     * before the retry, if there is one.
+     */
+    @FunctionalInterface
+    public interface AttemptListener {
+        AttemptListener NONE = (failure, attempt, elapsed, retryable) -> true;
+
+        /**
+         * @param attempt   1-based number of the attempt that failed
+         * @param elapsed   time of the failed attempt
+         * @param retryable whether the failure is retryable and there are attempts left
+         * @return false to give up instead of retrying - the failure goes to the caller; ignored if not retryable
+         */
+        boolean attemptFailed(RuntimeException failure, int attempt, Duration elapsed, boolean retryable);
+
+        /**
+         * Called after the wait before a retry.
+         */
+        default void backedOff(int attempt, Duration backoff) {
+        }
+    }
+}
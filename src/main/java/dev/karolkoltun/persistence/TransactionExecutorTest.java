@@ -0,0 +1,176 @@
+package dev.karolkoltun.persistence;
+
+import dev.karolkoltun.persistence.entity.Employee;
+import dev.karolkoltun.persistence.entity.JobId;
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.OptimisticLockException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class TransactionExecutorTest extends HibernateTest {
+
+    @Override
+    public DataSourceProvider dataSourceProvider() {
+        return new H2HrDataSourceProvider();
+    }
+
+    @Override
+    public boolean recreateBeforeEachTest() {
+        return true;
+    }
+
+    @Override
+    public RetryPolicy getRetryPolicy() {
+        return RetryPolicy.defaults().withBackoff(Duration.ofMillis(1), Duration.ofMillis(5), 2.0);
+    }
+
+    @Test
+    void shouldRetrySerializationFailuresInFreshTransactions() {
+        // GIVEN
+        AtomicInteger attempts = new AtomicInteger();
+
+        // WHEN
+        int id = getUsingHibernate(session -> {
+            session.persist(employee(1));
+            session.flush();
+
+            if (attempts.incrementAndGet() < 3) {
+                throw new IllegalStateException(new SQLException("could not serialize access", SqlStates.SERIALIZATION_FAILURE));
+            }
+            return 1;
+        });
+
+        // THEN
+        // The rows inserted by the failed attempts have been rolled back.
+        assertThat(attempts).hasValue(3);
+        Employee employee = getUsingHibernateReadOnly(session -> session.find(Employee.class, id));
+        assertThat(employee).isNotNull();
+    }
+
+    @Test
+    void shouldGiveUpAfterMaxAttempts() {
+        // GIVEN
+        AtomicInteger attempts = new AtomicInteger();
+
+        // WHEN
+        Throwable failure = catchThrowable(() -> doInHibernate(session -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException(new SQLException("deadlock detected", SqlStates.DEADLOCK_DETECTED));
+        }));
+
+        // THEN
+        assertThat(attempts).hasValue(getRetryPolicy().maxAttempts());
+        assertThat(SqlStates.of(failure)).contains(SqlStates.DEADLOCK_DETECTED);
+    }
+
+    @Test
+    void shouldNotRetryOtherFailures() {
+        // GIVEN
+        AtomicInteger attempts = new AtomicInteger();
+
+        // WHEN
+        Throwable failure = catchThrowable(() -> doInHibernate(session -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException(new SQLException("lock not available", SqlStates.LOCK_NOT_AVAILABLE));
+        }));
+
+        // THEN
+        assertThat(failure).isInstanceOf(IllegalStateException.class);
+        assertThat(attempts).hasValue(1);
+    }
+
+    @Test
+    void shouldRetryFailuresMatchingPredicate() {
+        // GIVEN
+        TransactionExecutor executor = transactionExecutor.withRetryOn(OptimisticLockException.class::isInstance);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // WHEN
+        int result = executor.inSession(TransactionOptions.defaults(), session -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new OptimisticLockException("stale version");
+            }
+            return 1;
+        });
+
+        // THEN
+        assertThat(result).isEqualTo(1);
+        assertThat(attempts).hasValue(3);
+    }
+
+    @Test
+    void shouldGiveUpWhenListenerRefusesRetry() {
+        // GIVEN
+        List<Integer> failedAttempts = new ArrayList<>();
+        List<Integer> backoffs = new ArrayList<>();
+        TransactionExecutor executor = transactionExecutor.withAttemptListener(new TransactionExecutor.AttemptListener() {
+            @Override
+            public boolean attemptFailed(RuntimeException failure, int attempt, Duration elapsed, boolean retryable) {
+                failedAttempts.add(attempt);
+                return attempt < 2;
+            }
+
+            @Override
+            public void backedOff(int attempt, Duration backoff) {
+                backoffs.add(attempt);
+            }
+        });
+        AtomicInteger attempts = new AtomicInteger();
+
+        // WHEN
+        Throwable failure = catchThrowable(() -> executor.inSession(TransactionOptions.defaults(), session -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException(new SQLException("deadlock detected", SqlStates.DEADLOCK_DETECTED));
+        }));
+
+        // THEN
+        // Retryable, and attempts left - but the listener said no after the second one.
+        assertThat(SqlStates.of(failure)).contains(SqlStates.DEADLOCK_DETECTED);
+        assertThat(attempts).hasValue(2);
+        assertThat(failedAttempts).containsExactly(1, 2);
+        assertThat(backoffs).containsExactly(1);
+    }
+
+    @Test
+    void shouldSetIsolationLevelForOneTransactionOnly() throws SQLException {
+        // GIVEN
+        int defaultIsolationLevel = getUsingJDBC(TransactionExecutorTest::isolationLevel);
+        TransactionOptions serializable = TransactionOptions.defaults().withIsolationLevel(Connection.TRANSACTION_SERIALIZABLE);
+
+        // WHEN
+        Connection[] usedConnection = new Connection[1];
+        int isolationLevel = transactionExecutor.inConnection(serializable, connection -> {
+            usedConnection[0] = connection;
+            return isolationLevel(connection);
+        });
+
+        // THEN
+        assertThat(defaultIsolationLevel).isNotEqualTo(Connection.TRANSACTION_SERIALIZABLE);
+        assertThat(isolationLevel).isEqualTo(Connection.TRANSACTION_SERIALIZABLE);
+        // The connection went back to the pool with its previous isolation level.
+        assertThat(usedConnection[0].getTransactionIsolation()).isEqualTo(defaultIsolationLevel);
+    }
+
+    private static int isolationLevel(Connection connection) {
+        try {
+            return connection.getTransactionIsolation();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Employee employee(int id) {
+        return new Employee(id, "Jane", "Doe", "jdoe@example.com", "555-1234", LocalDate.of(2020, 1, 1),
+                JobId.IT_PROG, BigDecimal.valueOf(5000));
+    }
+}
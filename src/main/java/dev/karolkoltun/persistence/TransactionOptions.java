@@ -0,0 +1,42 @@
+package dev.karolkoltun.persistence;
+
+import org.hibernate.FlushMode;
+
+/**
+ * Per-transaction settings of a {@link TransactionExecutor}.
+ *
+ * @param isolationLevel isolation level of the transaction (one of {@link java.sql.Connection} constants), or null to
+ *                       keep the one of the connection
+ * @param readOnly       whether entities loaded by the session are read-only (no snapshots, no dirty checking)
+ * @param flushMode      flush mode of the session
+ * @param jdbcBatchSize  JDBC batch size of the session, or null to keep the one of the session factory
+ */
+public record TransactionOptions(Integer isolationLevel, boolean readOnly, FlushMode flushMode, Integer jdbcBatchSize) {
+
+    private static final TransactionOptions DEFAULTS = new TransactionOptions(null, false, FlushMode.AUTO, null);
+    private static final TransactionOptions READ_ONLY = new TransactionOptions(null, true, FlushMode.MANUAL, null);
+
+    public static TransactionOptions defaults() {
+        return DEFAULTS;
+    }
+
+    public static TransactionOptions readOnlyDefaults() {
+        return READ_ONLY;
+    }
+
+    public TransactionOptions withIsolationLevel(Integer isolationLevel) {
+        return new TransactionOptions(isolationLevel, readOnly, flushMode, jdbcBatchSize);
+    }
+
+    public TransactionOptions withReadOnly(boolean readOnly) {
+        return new TransactionOptions(isolationLevel, readOnly, flushMode, jdbcBatchSize);
+    }
+
+    public TransactionOptions withFlushMode(FlushMode flushMode) {
+        return new TransactionOptions(isolationLevel, readOnly, flushMode, jdbcBatchSize);
+    }
+
+    public TransactionOptions withJdbcBatchSize(Integer jdbcBatchSize) {
+        return new TransactionOptions(isolationLevel, readOnly, flushMode, jdbcBatchSize);
+    }
+}
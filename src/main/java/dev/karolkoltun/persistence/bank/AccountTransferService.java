@@ -0,0 +1,139 @@
+package dev.karolkoltun.persistence.bank;
+
+import dev.karolkoltun.persistence.TransactionExecutor;
+import dev.karolkoltun.persistence.TransactionOptions;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+/**
+ * Transfers money between two accounts of the {@code account} table without reading the balances first. The balance
+ * check is the {@code WHERE} clause of the debit, so the database decides it under the row lock of the update itself -
+ * there is no read-decide-write cycle for another transaction to slip into, and the rows are locked for one statement
+ * each instead of the whole cycle.
+ * <p>
+ * Every transfer runs in a transaction of its own, on the default isolation level. A deadlock or a serialization
+ * failure is retried by the {@link TransactionExecutor}, according to its retry policy.
+ */
+public class AccountTransferService {
+    private final TransactionExecutor transactionExecutor;
+    private final Mode mode;
+
+    public AccountTransferService(TransactionExecutor transactionExecutor, Mode mode) {
+        this.transactionExecutor = transactionExecutor;
+        this.mode = mode;
+    }
+
+    /**
+     * @return false if the source account has less than the amount - nothing has been changed then
+     * @throws IllegalArgumentException if there is no account with the destination IBAN - the transfer is rolled back
+     */
+    public boolean transfer(String fromIban, String toIban, int amount) {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("The amount has to be positive, got " + amount + ".");
+        }
+        if (fromIban.equals(toIban)) {
+            throw new IllegalArgumentException(String.format("Cannot transfer from account [%s] to itself.", fromIban));
+        }
+        return transactionExecutor.inSession(TransactionOptions.defaults(),
+                session -> mode.transfer(session, fromIban, toIban, amount));
+    }
+
+    public enum Mode {
+        /**
+         * The guarded debit and the credit as two statements. They run in the order of the IBANs, so two opposite
+         * transfers wait for each other instead of deadlocking. If the credit went first and the debit is rejected, the
+         * transaction is marked as rollback-only to undo the credit. A credit that finds no account fails the transfer,
+         * which rolls back the debit. Works on every database.
+         */
+        GUARDED_UPDATES {
+            @Override
+            public boolean transfer(Session session, String fromIban, String toIban, int amount) {
+                boolean creditFirst = fromIban.compareTo(toIban) > 0;
+                if (creditFirst) {
+                    credit(session, toIban, amount);
+                }
+                if (!debit(session, fromIban, amount)) {
+                    if (creditFirst) {
+                        session.getTransaction().setRollbackOnly();
+                    }
+                    return false;
+                }
+                if (!creditFirst) {
+                    credit(session, toIban, amount);
+                }
+                return true;
+            }
+        },
+        /**
+         * The debit and the credit as one statement - one round trip. The credit only happens if the debit has returned a
+         * row. Both parts return the rows they have changed, so a debit with no matching credit - no account with the
+         * destination IBAN - fails the transfer and rolls the debit back. PostgreSQL only: it needs
+         * {@code UPDATE ... RETURNING} in a {@code WITH} clause. Opposite transfers can deadlock here, as the debited row is
+         * always locked first - the deadlock is retried.
+         */
+        POSTGRES_CTE {
+            @Override
+            public boolean transfer(Session session, String fromIban, String toIban, int amount) {
+                int[] counts = session.doReturningWork(connection -> {
+                    try (PreparedStatement statement = connection.prepareStatement("""
+                            WITH debit AS (
+                                UPDATE account SET balance = balance - ? WHERE iban = ? AND balance >= ? RETURNING iban
+                            ), credit AS (
+                                UPDATE account SET balance = balance + ? WHERE iban = ? AND EXISTS (SELECT 1 FROM debit) RETURNING iban
+                            )
+                            SELECT (SELECT COUNT(*) FROM debit), (SELECT COUNT(*) FROM credit)""")) {
+                        statement.setInt(1, amount);
+                        statement.setString(2, fromIban);
+                        statement.setInt(3, amount);
+                        statement.setInt(4, amount);
+                        statement.setString(5, toIban);
+                        try (ResultSet resultSet = statement.executeQuery()) {
+                            resultSet.next();
+                            return new int[]{resultSet.getInt(1), resultSet.getInt(2)};
+                        }
+                    }
+                });
+                if (counts[0] != 1) {
+                    return false;
+                }
+                checkCredited(counts[1], toIban);
+                return true;
+            }
+        };
+
+        /**
+         * Runs within the current transaction of the session, which is committed by the caller.
+         *
+         * @return false if the source account has less than the amount
+         */
+        public abstract boolean transfer(Session session, String fromIban, String toIban, int amount);
+
+        private static void credit(Session session, String iban, int amount) {
+            checkCredited(update(session, "UPDATE account SET balance = balance + ? WHERE iban = ?", amount, iban), iban);
+        }
+
+        // Thrown out of the unit of work, so the transaction executor rolls back whatever has been debited.
+        private static void checkCredited(int updated, String iban) {
+            if (updated != 1) {
+                throw new IllegalArgumentException(String.format("No account with IBAN [%s].", iban));
+            }
+        }
+
+        private static boolean debit(Session session, String iban, int amount) {
+            return update(session, "UPDATE account SET balance = balance - ? WHERE iban = ? AND balance >= ?", amount, iban, amount) == 1;
+        }
+    }
+
+    static int update(Session session, String sql, Object... parameters) {
+        return session.doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (int i = 0; i < parameters.length; i++) {
+                    statement.setObject(i + 1, parameters[i]);
+                }
+                return statement.executeUpdate();
+            }
+        });
+    }
+}
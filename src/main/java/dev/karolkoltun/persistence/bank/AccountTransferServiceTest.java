@@ -0,0 +1,162 @@
+package dev.karolkoltun.persistence.bank;
+
+import dev.karolkoltun.persistence.DataSourceProvider;
+import dev.karolkoltun.persistence.H2BankDataSourceProvider;
+import dev.karolkoltun.persistence.HibernateTest;
+import dev.karolkoltun.persistence.entity.Account;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class AccountTransferServiceTest extends HibernateTest {
+    // Alice's IBAN sorts before Bob's - a transfer from Bob to Alice credits first.
+    private static final String ALICE_IBAN = "Alice-123";
+    private static final String BOB_IBAN = "Bob-456";
+    private static final int THREADS = 8;
+
+    private AccountTransferService accountTransferService;
+
+    @Override
+    public DataSourceProvider dataSourceProvider() {
+        return new H2BankDataSourceProvider();
+    }
+
+    @Override
+    public boolean recreateBeforeEachTest() {
+        return true;
+    }
+
+    @Override
+    @BeforeEach
+    protected void beforeEach() {
+        super.beforeEach();
+
+        accountTransferService = new AccountTransferService(transactionExecutor, AccountTransferService.Mode.GUARDED_UPDATES);
+        doInHibernate(session -> {
+            session.persist(new Account(ALICE_IBAN, "Alice", 50));
+            session.persist(new Account(BOB_IBAN, "Bob", 50));
+        });
+    }
+
+    @Test
+    void shouldTransferInBothDirections() {
+        // WHEN
+        boolean toBob = accountTransferService.transfer(ALICE_IBAN, BOB_IBAN, 20);
+        boolean toAlice = accountTransferService.transfer(BOB_IBAN, ALICE_IBAN, 5);
+
+        // THEN
+        assertThat(toBob).isTrue();
+        assertThat(toAlice).isTrue();
+        assertThat(balanceOf(ALICE_IBAN)).isEqualTo(35);
+        assertThat(balanceOf(BOB_IBAN)).isEqualTo(65);
+    }
+
+    @Test
+    void shouldRejectTransferAboveBalanceInBothDirections() {
+        // WHEN
+        boolean toBob = accountTransferService.transfer(ALICE_IBAN, BOB_IBAN, 51);
+        // The credit of Alice goes first here and has to be rolled back.
+        boolean toAlice = accountTransferService.transfer(BOB_IBAN, ALICE_IBAN, 51);
+
+        // THEN
+        assertThat(toBob).isFalse();
+        assertThat(toAlice).isFalse();
+        assertThat(balanceOf(ALICE_IBAN)).isEqualTo(50);
+        assertThat(balanceOf(BOB_IBAN)).isEqualTo(50);
+    }
+
+    @Test
+    void shouldRollBackTransferToUnknownAccount() {
+        // WHEN
+        // From Alice the debit goes first and has to be rolled back; from Bob the failing credit goes first.
+        Throwable fromAlice = catchThrowable(() -> accountTransferService.transfer(ALICE_IBAN, "Zed-999", 20));
+        Throwable fromBob = catchThrowable(() -> accountTransferService.transfer(BOB_IBAN, "Aaron-000", 20));
+
+        // THEN
+        assertThat(fromAlice).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Zed-999");
+        assertThat(fromBob).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Aaron-000");
+        assertThat(balanceOf(ALICE_IBAN)).isEqualTo(50);
+        assertThat(balanceOf(BOB_IBAN)).isEqualTo(50);
+    }
+
+    @Test
+    void shouldRejectInvalidTransfer() {
+        assertThat(catchThrowable(() -> accountTransferService.transfer(ALICE_IBAN, BOB_IBAN, 0)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> accountTransferService.transfer(ALICE_IBAN, ALICE_IBAN, 10)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldNotOverdrawAccountUnderConcurrentTransfers() throws Exception {
+        // GIVEN
+        // Every thread checks and debits the balance in the same statement - only five of them can get 10 out of 50.
+        List<Callable<Boolean>> transfers = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            transfers.add(() -> accountTransferService.transfer(ALICE_IBAN, BOB_IBAN, 10));
+        }
+
+        // WHEN
+        long done = runConcurrently(transfers);
+
+        // THEN
+        assertThat(done).isEqualTo(5);
+        assertThat(balanceOf(ALICE_IBAN)).isZero();
+        assertThat(balanceOf(BOB_IBAN)).isEqualTo(100);
+    }
+
+    @Test
+    void shouldConserveMoneyInOppositeConcurrentTransfers() throws Exception {
+        // GIVEN
+        List<Callable<Boolean>> transfers = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            boolean toBob = thread % 2 == 0;
+            transfers.add(() -> {
+                boolean allDone = true;
+                for (int i = 0; i < 50; i++) {
+                    allDone &= toBob
+                            ? accountTransferService.transfer(ALICE_IBAN, BOB_IBAN, 1)
+                            : accountTransferService.transfer(BOB_IBAN, ALICE_IBAN, 1);
+                }
+                return allDone;
+            });
+        }
+
+        // WHEN
+        runConcurrently(transfers);
+
+        // THEN
+        // Each direction moved the same amount, unless some transfers were rejected - either way nothing is lost.
+        assertThat(balanceOf(ALICE_IBAN) + balanceOf(BOB_IBAN)).isEqualTo(100);
+        assertThat(balanceOf(ALICE_IBAN)).isNotNegative();
+        assertThat(balanceOf(BOB_IBAN)).isNotNegative();
+    }
+
+    private static long runConcurrently(List<Callable<Boolean>> transfers) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(transfers.size());
+        try {
+            long done = 0;
+            for (Future<Boolean> transferred : executor.invokeAll(transfers)) {
+                if (transferred.get()) {
+                    done++;
+                }
+            }
+            return done;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private int balanceOf(String iban) {
+        return getUsingHibernateReadOnly(session -> session.get(Account.class, iban).getBalance());
+    }
+}
@@ -0,0 +1,187 @@
+package dev.karolkoltun.persistence.bank;
+
+import dev.karolkoltun.persistence.RetryPolicy;
+import dev.karolkoltun.persistence.TransactionExecutor;
+import dev.karolkoltun.persistence.TransactionOptions;
+import dev.karolkoltun.persistence.entity.AccountVersioned;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs random transfers between the accounts of the {@code account} table from many threads at once, with one of the
+ * {@link TransferStrategy strategies}, and reports the throughput, the aborts and the latency of the transfers.
+ * <p>
+ * The transfers are retried by the {@link TransactionExecutor}, on the failures the strategy says are retryable - e.g. a
+ * stale version too, not only the SQLSTATEs. The {@link RetryPolicy} given here limits the attempts and spaces them out;
+ * every worker listens to the attempts of its transfers to count the aborts.
+ */
+public class TransferLoad {
+    private static final String IBAN_PREFIX = "ACC-";
+
+    private final TransactionExecutor transactionExecutor;
+    private final RetryPolicy retryPolicy;
+
+    public TransferLoad(TransactionExecutor transactionExecutor, RetryPolicy retryPolicy) {
+        this.transactionExecutor = transactionExecutor.withRetryPolicy(RetryPolicy.noRetries());
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Replaces all the accounts with new ones, all with the same balance.
+     */
+    public void createAccounts(int accounts, int balance) {
+        transactionExecutor.inSession(TransactionOptions.defaults(), session -> {
+            session.createQuery("DELETE FROM AccountVersioned").executeUpdate();
+            for (int i = 0; i < accounts; i++) {
+                session.persist(new AccountVersioned(iban(i), "Owner " + i, balance));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * @param accounts  number of accounts created by {@link #createAccounts(int, int)}; the fewer, the more contention
+     * @param transfers number of transfers, split evenly between the threads
+     * @param maxAmount the amount of every transfer is random, from 1 to this
+     * @param seed      of the random choice of the accounts and amounts
+     */
+    public TransferReport run(TransferStrategy strategy, int accounts, int threads, int transfers, int maxAmount, long seed) {
+        if (accounts < 2) {
+            throw new IllegalArgumentException("A transfer needs two accounts, got " + accounts + ".");
+        }
+        TransactionOptions options = TransactionOptions.defaults().withIsolationLevel(strategy.getIsolationLevel());
+        long balanceBefore = totalBalance();
+
+        long[] latencies = new long[transfers];
+        List<Worker> workers = new ArrayList<>();
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int thread = 0; thread < threads; thread++) {
+            int from = transfers * thread / threads;
+            int to = transfers * (thread + 1) / threads;
+            workers.add(new Worker(strategy, options, accounts, maxAmount, random.split(), latencies, from, to));
+        }
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (Future<Worker> worker : executor.invokeAll(workers)) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the transfers.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A transfer failed with a non-retryable failure.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        Arrays.sort(latencies);
+        Duration p99Latency = Duration.ofNanos(transfers == 0 ? 0 : latencies[(int) Math.ceil(0.99 * transfers) - 1]);
+        return new TransferReport(strategy, threads,
+                workers.stream().mapToInt(worker -> worker.done).sum(),
+                workers.stream().mapToInt(worker -> worker.rejected).sum(),
+                workers.stream().mapToInt(worker -> worker.gaveUp).sum(),
+                workers.stream().mapToLong(worker -> worker.aborts).sum(),
+                elapsed, p99Latency, balanceBefore, totalBalance(), minBalance());
+    }
+
+    public long totalBalance() {
+        return balanceQuery("SELECT COALESCE(SUM(balance), 0) FROM account");
+    }
+
+    private long minBalance() {
+        return balanceQuery("SELECT COALESCE(MIN(balance), 0) FROM account");
+    }
+
+    private long balanceQuery(String sql) {
+        return transactionExecutor.inSession(TransactionOptions.readOnlyDefaults(),
+                session -> ((Number) session.createNativeQuery(sql).getSingleResult()).longValue());
+    }
+
+    /**
+     * @param account 0-based number of an account created by {@link #createAccounts(int, int)}
+     */
+    public static String iban(int account) {
+        return String.format("%s%06d", IBAN_PREFIX, account);
+    }
+
+    // Every worker writes the latencies of its own slice of the array, and the counters are read after it's done.
+    private class Worker implements Callable<Worker> {
+        private final TransferStrategy strategy;
+        private final TransactionExecutor transferExecutor;
+        private final TransactionOptions options;
+        private final int accounts;
+        private final int maxAmount;
+        private final SplittableRandom random;
+        private final long[] latencies;
+        private final int firstTransfer;
+        private final int lastTransfer;
+
+        private int done;
+        private int rejected;
+        private int gaveUp;
+        private long aborts;
+
+        private Worker(TransferStrategy strategy, TransactionOptions options, int accounts, int maxAmount,
+                       SplittableRandom random, long[] latencies, int firstTransfer, int lastTransfer) {
+            this.strategy = strategy;
+            this.transferExecutor = transactionExecutor.withRetryPolicy(retryPolicy)
+                    .withRetryOn(strategy::isRetryable)
+                    .withAttemptListener((failure, attempt, elapsed, retryable) -> {
+                        // The last attempt is an abort too, when it fails with a retryable failure.
+                        if (strategy.isRetryable(failure)) {
+                            aborts++;
+                        }
+                        return true;
+                    });
+            this.options = options;
+            this.accounts = accounts;
+            this.maxAmount = maxAmount;
+            this.random = random;
+            this.latencies = latencies;
+            this.firstTransfer = firstTransfer;
+            this.lastTransfer = lastTransfer;
+        }
+
+        @Override
+        public Worker call() {
+            for (int transfer = firstTransfer; transfer < lastTransfer; transfer++) {
+                int from = random.nextInt(accounts);
+                int to = (from + 1 + random.nextInt(accounts - 1)) % accounts;
+                int amount = 1 + random.nextInt(maxAmount);
+
+                long start = System.nanoTime();
+                transfer(iban(from), iban(to), amount);
+                latencies[transfer] = System.nanoTime() - start;
+            }
+            return this;
+        }
+
+        private void transfer(String fromIban, String toIban, int amount) {
+            try {
+                if (transferExecutor.inSession(options, session -> strategy.transfer(session, fromIban, toIban, amount))) {
+                    done++;
+                } else {
+                    rejected++;
+                }
+            } catch (RuntimeException e) {
+                if (!strategy.isRetryable(e)) {
+                    throw e;
+                }
+                // Retryable, but out of attempts.
+                gaveUp++;
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package dev.karolkoltun.persistence.bank;
+
+import java.time.Duration;
+
+/**
+ * Outcome of one {@link TransferLoad#run} - every requested transfer is either done, rejected for insufficient funds or
+ * given up after too many aborted attempts.
+ *
+ * @param done          transfers that moved the money
+ * @param rejected      transfers refused because the source account had less than the amount
+ * @param gaveUp        transfers aborted on every attempt
+ * @param aborts        attempts rolled back with a retryable failure (a serialization failure, a deadlock, a stale
+ *                      version), over all the transfers
+ * @param elapsed       wall-clock time of the whole run
+ * @param p99Latency    99th percentile of the time of a transfer, including its retries and the waits before them
+ * @param balanceBefore sum of the balances of all the accounts before the run
+ * @param balanceAfter  sum of the balances of all the accounts after the run
+ * @param minBalance    lowest balance of an account after the run
+ */
+public record TransferReport(TransferStrategy strategy,
+                             int threads,
+                             int done,
+                             int rejected,
+                             int gaveUp,
+                             long aborts,
+                             Duration elapsed,
+                             Duration p99Latency,
+                             long balanceBefore,
+                             long balanceAfter,
+                             long minBalance) {
+
+    public int transfers() {
+        return done + rejected + gaveUp;
+    }
+
+    /**
+     * Transfers finished (done or rejected) per second.
+     */
+    public double throughput() {
+        return (done + rejected) / (elapsed.toNanos() / 1e9);
+    }
+
+    /**
+     * Fraction of all the attempts that were rolled back.
+     */
+    public double abortRate() {
+        long attempts = transfers() + aborts;
+        return attempts == 0 ? 0 : (double) aborts / attempts;
+    }
+
+    /**
+     * Transfers only move money around - the total stays the same and no account goes below zero.
+     */
+    public boolean isMoneyConserved() {
+        return balanceBefore == balanceAfter && minBalance >= 0;
+    }
+
+    /**
+     * @throws IllegalStateException if money has been created, lost or overdrawn
+     */
+    public TransferReport verify() {
+        if (!isMoneyConserved()) {
+            throw new IllegalStateException(String.format("%s did not conserve money: total %d before, %d after, lowest balance %d.",
+                    strategy, balanceBefore, balanceAfter, minBalance));
+        }
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s, %d threads: %.0f transfers/s, abort rate %.1f%%, p99 %.3f ms (%d done, %d rejected, %d gave up, %d aborts)",
+                strategy, threads, throughput(), 100 * abortRate(), p99Latency.toNanos() / 1e6, done, rejected, gaveUp, aborts);
+    }
+}
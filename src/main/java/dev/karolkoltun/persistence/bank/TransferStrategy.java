@@ -0,0 +1,136 @@
+package dev.karolkoltun.persistence.bank;
+
+import dev.karolkoltun.persistence.SqlStates;
+import dev.karolkoltun.persistence.entity.AccountVersioned;
+import org.hibernate.Session;
+
+import javax.persistence.OptimisticLockException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+/**
+ * Ways of moving money between two accounts of the {@code account} table without losing updates under concurrency.
+ * Every transfer runs in a transaction of its own and is rejected if the source account has less than the amount. Apart
+ * from {@link #OPTIMISTIC_VERSION}, the statements go straight to the JDBC connection of the session.
+ * A transfer that fails with a failure for which {@link #isRetryable(Throwable)} is true has been rolled back and can be
+ * run again.
+ */
+public enum TransferStrategy {
+    /**
+     * Read the balances, then write the new ones. REPEATABLE READ turns a lost update into a serialization failure.
+     */
+    REPEATABLE_READ_WITH_RETRY(Connection.TRANSACTION_REPEATABLE_READ) {
+        @Override
+        public boolean transfer(Session session, String fromIban, String toIban, int amount) {
+            return write(session, fromIban, toIban, amount, readBalance(session, fromIban, ""), readBalance(session, toIban, ""));
+        }
+    },
+    /**
+     * Same as {@link #REPEATABLE_READ_WITH_RETRY}, on SERIALIZABLE - which also aborts on read/write dependencies that
+     * REPEATABLE READ lets through, so expect more aborts.
+     */
+    SERIALIZABLE_WITH_RETRY(Connection.TRANSACTION_SERIALIZABLE) {
+        @Override
+        public boolean transfer(Session session, String fromIban, String toIban, int amount) {
+            return write(session, fromIban, toIban, amount, readBalance(session, fromIban, ""), readBalance(session, toIban, ""));
+        }
+    },
+    /**
+     * Lock both rows with {@code SELECT ... FOR UPDATE} before reading them. The rows are always locked in the order of
+     * the IBANs, so two opposite transfers wait for each other instead of deadlocking.
+     */
+    SELECT_FOR_UPDATE_ORDERED(null) {
+        @Override
+        public boolean transfer(Session session, String fromIban, String toIban, int amount) {
+            boolean fromFirst = fromIban.compareTo(toIban) < 0;
+            int firstBalance = readBalance(session, fromFirst ? fromIban : toIban, " FOR UPDATE");
+            int secondBalance = readBalance(session, fromFirst ? toIban : fromIban, " FOR UPDATE");
+            return write(session, fromIban, toIban, amount,
+                    fromFirst ? firstBalance : secondBalance, fromFirst ? secondBalance : firstBalance);
+        }
+    },
+    /**
+     * Load both accounts as {@link AccountVersioned} entities and change them. The version check of the flush fails
+     * if any of them has been changed since it was read.
+     */
+    OPTIMISTIC_VERSION(null) {
+        @Override
+        public boolean transfer(Session session, String fromIban, String toIban, int amount) {
+            AccountVersioned from = session.get(AccountVersioned.class, fromIban);
+            AccountVersioned to = session.get(AccountVersioned.class, toIban);
+            if (from.getBalance() < amount) {
+                return false;
+            }
+            from.setBalance(from.getBalance() - amount);
+            to.setBalance(to.getBalance() + amount);
+            return true;
+        }
+
+        @Override
+        public boolean isRetryable(Throwable failure) {
+            return failure instanceof OptimisticLockException || super.isRetryable(failure);
+        }
+    },
+    /**
+     * No reads at all - the balance check is the {@code WHERE} clause of the debit. See
+     * {@link AccountTransferService.Mode#GUARDED_UPDATES}.
+     */
+    ATOMIC_UPDATE(null) {
+        @Override
+        public boolean transfer(Session session, String fromIban, String toIban, int amount) {
+            return AccountTransferService.Mode.GUARDED_UPDATES.transfer(session, fromIban, toIban, amount);
+        }
+    };
+
+    private final Integer isolationLevel;
+
+    TransferStrategy(Integer isolationLevel) {
+        this.isolationLevel = isolationLevel;
+    }
+
+    /**
+     * Runs within the current transaction of the session, which is committed by the caller.
+     *
+     * @return false if the source account has less than the amount, true if the money has been moved
+     */
+    public abstract boolean transfer(Session session, String fromIban, String toIban, int amount);
+
+    /**
+     * @return one of the {@link Connection} constants, or null to keep the one of the connection
+     */
+    public Integer getIsolationLevel() {
+        return isolationLevel;
+    }
+
+    public boolean isRetryable(Throwable failure) {
+        return SqlStates.is(failure, SqlStates.SERIALIZATION_FAILURE, SqlStates.DEADLOCK_DETECTED);
+    }
+
+    private static boolean write(Session session, String fromIban, String toIban, int amount, int fromBalance, int toBalance) {
+        if (fromBalance < amount) {
+            return false;
+        }
+        setBalance(session, fromIban, fromBalance - amount);
+        setBalance(session, toIban, toBalance + amount);
+        return true;
+    }
+
+    private static int readBalance(Session session, String iban, String lockClause) {
+        return session.doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT balance FROM account WHERE iban = ?" + lockClause)) {
+                statement.setString(1, iban);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (!resultSet.next()) {
+                        throw new IllegalArgumentException(String.format("No account with IBAN [%s].", iban));
+                    }
+                    return resultSet.getInt(1);
+                }
+            }
+        });
+    }
+
+    private static void setBalance(Session session, String iban, int balance) {
+        AccountTransferService.update(session, "UPDATE account SET balance = ? WHERE iban = ?", balance, iban);
+    }
+}
@@ -0,0 +1,102 @@
+package dev.karolkoltun.persistence.bank;
+
+import dev.karolkoltun.persistence.DataSourceProvider;
+import dev.karolkoltun.persistence.H2BankDataSourceProvider;
+import dev.karolkoltun.persistence.HibernateTest;
+import dev.karolkoltun.persistence.RetryPolicy;
+import dev.karolkoltun.persistence.entity.AccountVersioned;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TransferStrategyTest extends HibernateTest {
+    private static final int ACCOUNTS = 8;
+    private static final int BALANCE = 100;
+    private static final int THREADS = 4;
+    private static final int TRANSFERS = 400;
+    // Big enough for some of the transfers to be rejected.
+    private static final int MAX_AMOUNT = 60;
+
+    private TransferLoad transferLoad;
+
+    @Override
+    public DataSourceProvider dataSourceProvider() {
+        return new H2BankDataSourceProvider();
+    }
+
+    @Override
+    public boolean recreateBeforeEachTest() {
+        return true;
+    }
+
+    @Override
+    @BeforeEach
+    protected void beforeEach() {
+        super.beforeEach();
+
+        transferLoad = new TransferLoad(transactionExecutor,
+                RetryPolicy.defaults().withMaxAttempts(100).withBackoff(Duration.ofMillis(1), Duration.ofMillis(10), 2.0));
+        transferLoad.createAccounts(ACCOUNTS, BALANCE);
+    }
+
+    @Test
+    void shouldConserveMoneyWithRepeatableReadAndRetries() {
+        shouldConserveMoney(TransferStrategy.REPEATABLE_READ_WITH_RETRY);
+    }
+
+    @Test
+    void shouldConserveMoneyWithSerializableAndRetries() {
+        shouldConserveMoney(TransferStrategy.SERIALIZABLE_WITH_RETRY);
+    }
+
+    @Test
+    void shouldConserveMoneyWithOrderedSelectForUpdate() {
+        shouldConserveMoney(TransferStrategy.SELECT_FOR_UPDATE_ORDERED);
+    }
+
+    @Test
+    void shouldConserveMoneyWithOptimisticLocking() {
+        shouldConserveMoney(TransferStrategy.OPTIMISTIC_VERSION);
+    }
+
+    @Test
+    void shouldConserveMoneyWithAtomicUpdate() {
+        shouldConserveMoney(TransferStrategy.ATOMIC_UPDATE);
+    }
+
+    @Test
+    void shouldRejectTransferAboveBalance() {
+        String fromIban = TransferLoad.iban(0);
+        String toIban = TransferLoad.iban(1);
+
+        for (TransferStrategy strategy : TransferStrategy.values()) {
+            // WHEN
+            boolean transferred = getUsingHibernate(session -> strategy.transfer(session, fromIban, toIban, BALANCE + 1));
+
+            // THEN
+            assertThat(transferred).as(strategy.name()).isFalse();
+            assertThat(balanceOf(fromIban)).as(strategy.name()).isEqualTo(BALANCE);
+            assertThat(balanceOf(toIban)).as(strategy.name()).isEqualTo(BALANCE);
+        }
+    }
+
+    private void shouldConserveMoney(TransferStrategy strategy) {
+        // WHEN
+        TransferReport report = transferLoad.run(strategy, ACCOUNTS, THREADS, TRANSFERS, MAX_AMOUNT, 42);
+
+        // THEN
+        assertThat(report.transfers()).isEqualTo(TRANSFERS);
+        assertThat(report.gaveUp()).isZero();
+        assertThat(report.done()).isPositive();
+        assertThat(report.balanceAfter()).isEqualTo((long) ACCOUNTS * BALANCE);
+        assertThat(report.minBalance()).isNotNegative();
+        assertThat(report.p99Latency()).isPositive();
+    }
+
+    private int balanceOf(String iban) {
+        return getUsingHibernateReadOnly(session -> session.get(AccountVersioned.class, iban).getBalance());
+    }
+}
@@ -0,0 +1,58 @@
+package dev.karolkoltun.persistence.cache;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Second-level cache kept in the heap of this JVM, every region bounded with {@link BoundedStorageAccess}. Good enough
+ * for read-mostly reference data of a single application instance - nothing is shared between processes.
+ * <p>
+ * Configured with {@link #MAX_ENTRIES} and {@link #TIME_TO_LIVE_MILLIS}, applied to every entity and query results
+ * region. The update timestamps region is never bounded: an evicted timestamp would make stale query results look
+ * up to date.
+ */
+public class BoundedRegionFactory extends RegionFactoryTemplate {
+    private static final long serialVersionUID = 1L;
+
+    public static final String MAX_ENTRIES = "dev.karolkoltun.cache.max_entries";
+    public static final String TIME_TO_LIVE_MILLIS = "dev.karolkoltun.cache.time_to_live_millis";
+
+    private int maxEntries;
+    private Duration timeToLive;
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    protected void prepareForUse(SessionFactoryOptions settings, Map configValues) {
+        maxEntries = ConfigurationHelper.getInt(MAX_ENTRIES, configValues, 10_000);
+        timeToLive = Duration.ofMillis(ConfigurationHelper.getLong(TIME_TO_LIVE_MILLIS, configValues, 600_000));
+    }
+
+    @Override
+    protected void releaseFromUse() {
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+                                                                    DomainDataRegionBuildingContext buildingContext) {
+        return new BoundedStorageAccess(maxEntries, timeToLive);
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName, SessionFactoryImplementor sessionFactory) {
+        return new BoundedStorageAccess(maxEntries, timeToLive);
+    }
+
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(String regionName, SessionFactoryImplementor sessionFactory) {
+        return new BoundedStorageAccess(Integer.MAX_VALUE, null);
+    }
+}
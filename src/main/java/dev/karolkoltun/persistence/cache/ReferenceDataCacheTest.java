@@ -0,0 +1,145 @@
+package dev.karolkoltun.persistence.cache;
+
+import dev.karolkoltun.persistence.CacheSettings;
+import dev.karolkoltun.persistence.DataSourceProvider;
+import dev.karolkoltun.persistence.H2HrDataSourceProvider;
+import dev.karolkoltun.persistence.HibernateTest;
+import dev.karolkoltun.persistence.entity.Country;
+import dev.karolkoltun.persistence.entity.Job;
+import dev.karolkoltun.persistence.entity.JobId;
+import dev.karolkoltun.persistence.entity.Region;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReferenceDataCacheTest extends HibernateTest {
+    private static final int MAX_ENTRIES = 3;
+
+    @Override
+    public DataSourceProvider dataSourceProvider() {
+        return new H2HrDataSourceProvider();
+    }
+
+    @Override
+    public boolean recreateBeforeEachTest() {
+        return true;
+    }
+
+    @Override
+    public Optional<CacheSettings> getCacheSettings() {
+        return Optional.of(CacheSettings.defaults().withMaxEntries(MAX_ENTRIES));
+    }
+
+    @Override
+    @BeforeEach
+    protected void beforeEach() {
+        super.beforeEach();
+
+        doInHibernate(session -> {
+            session.persist(new Job(JobId.IT_PROG, "Programmer", BigDecimal.valueOf(4000), BigDecimal.valueOf(10000)));
+            session.persist(new Job(JobId.FI_ACCOUNT, "Accountant", BigDecimal.valueOf(4200), BigDecimal.valueOf(9000)));
+            session.persist(new Job(JobId.SA_REP, "Sales Representative", BigDecimal.valueOf(6000), BigDecimal.valueOf(12000)));
+        });
+
+        // Start with an empty cache and no statistics from the previous tests.
+        entityManagerFactory.getCache().evictAll();
+        getStatistics().clear();
+    }
+
+    @Test
+    void shouldLoadJobFromDatabaseOnlyOnce() {
+        // WHEN
+        Job first = getUsingHibernateReadOnly(session -> session.get(Job.class, JobId.IT_PROG));
+        long statementsAfterFirstLoad = getStatistics().getPrepareStatementCount();
+        Job second = getUsingHibernateReadOnly(session -> session.get(Job.class, JobId.IT_PROG));
+
+        // THEN
+        assertThat(first.getJobTitle()).isEqualTo("Programmer");
+        assertThat(second.getJobTitle()).isEqualTo("Programmer");
+        assertThat(getStatistics().getSecondLevelCacheMissCount()).isEqualTo(1);
+        assertThat(getStatistics().getSecondLevelCacheHitCount()).isEqualTo(1);
+        assertThat(getStatistics().getPrepareStatementCount()).isEqualTo(statementsAfterFirstLoad);
+    }
+
+    @Test
+    void shouldResolveLazyAssociationFromCache() {
+        // GIVEN
+        doInHibernate(session -> {
+            Region europe = new Region(1, "Europe");
+            session.persist(europe);
+            session.persist(new Country("PL", "Poland", europe));
+        });
+        entityManagerFactory.getCache().evictAll();
+        getUsingHibernateReadOnly(session -> session.get(Country.class, "PL").getRegion().getName());
+        getStatistics().clear();
+
+        // WHEN
+        String regionName = getUsingHibernateReadOnly(session -> session.get(Country.class, "PL").getRegion().getName());
+
+        // THEN
+        assertThat(regionName).isEqualTo("Europe");
+        assertThat(getStatistics().getSecondLevelCacheHitCount()).isEqualTo(2);
+        assertThat(getStatistics().getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void shouldCacheNamedQueryResults() {
+        // WHEN
+        List<Job> first = getUsingHibernateReadOnly(session -> session.createNamedQuery("get_all_jobs", Job.class).getResultList());
+        long statementsAfterFirstQuery = getStatistics().getPrepareStatementCount();
+        List<Job> second = getUsingHibernateReadOnly(session -> session.createNamedQuery("get_all_jobs", Job.class).getResultList());
+
+        // THEN
+        assertThat(second).extracting(Job::getJobId).containsExactlyElementsOf(first.stream().map(Job::getJobId).toList());
+        assertThat(getStatistics().getQueryExecutionCount()).isEqualTo(1);
+        assertThat(getStatistics().getQueryCacheHitCount()).isEqualTo(1);
+        // Only ids are kept in the query cache; the jobs come from the second-level cache, put there by the first query.
+        assertThat(getStatistics().getPrepareStatementCount()).isEqualTo(statementsAfterFirstQuery);
+    }
+
+    @Test
+    void shouldRunCachedQueryAgainAfterTableIsModified() {
+        // GIVEN
+        findAllJobs();
+
+        // WHEN
+        doInHibernate(session -> session.persist(new Job(JobId.ST_CLERK, "Stock Clerk", BigDecimal.valueOf(2000), BigDecimal.valueOf(5000))));
+        List<Job> jobs = findAllJobs();
+
+        // THEN
+        // The insert into the jobs table made the cached result stale.
+        assertThat(jobs).extracting(Job::getJobId).contains(JobId.ST_CLERK).hasSize(4);
+        assertThat(getStatistics().getQueryCacheHitCount()).isZero();
+        assertThat(getStatistics().getQueryExecutionCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedJob() {
+        // GIVEN
+        doInHibernate(session -> session.persist(new Job(JobId.ST_CLERK, "Stock Clerk", BigDecimal.valueOf(2000), BigDecimal.valueOf(5000))));
+        entityManagerFactory.getCache().evictAll();
+        List<JobId> jobIds = List.of(JobId.IT_PROG, JobId.FI_ACCOUNT, JobId.SA_REP, JobId.ST_CLERK);
+        for (JobId jobId : jobIds) {
+            getUsingHibernateReadOnly(session -> session.get(Job.class, jobId));
+        }
+        getStatistics().clear();
+
+        // WHEN
+        // The region keeps three jobs - loading the fourth one evicted the first one.
+        getUsingHibernateReadOnly(session -> session.get(Job.class, JobId.ST_CLERK));
+        getUsingHibernateReadOnly(session -> session.get(Job.class, JobId.IT_PROG));
+
+        // THEN
+        assertThat(getStatistics().getSecondLevelCacheHitCount()).isEqualTo(1);
+        assertThat(getStatistics().getSecondLevelCacheMissCount()).isEqualTo(1);
+    }
+
+    private List<Job> findAllJobs() {
+        return getUsingHibernateReadOnly(session -> session.createNamedQuery("get_all_jobs", Job.class).getResultList());
+    }
+}
@@ -0,0 +1,239 @@
+package dev.karolkoltun.persistence.concurrency;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Steps of any number of named participants (threads) together with the order in which they have to be executed.
+ * <p>
+ * Steps of a single participant are always executed one after another, in the order in which they were added.
+ * On top of that, a step can depend on steps of other participants - it will not start before all of them finish.
+ * This allows defining a total order of steps (every step depends on the previously added one) or any partial order.
+ * <p>
+ * Steps are named after their participant and their 1-based number within the participant, e.g. "T2#3".
+ */
+public class InterleavedSchedule<TASK> {
+    private final List<String> participants;
+    private final List<Step<TASK>> steps;
+    private final Map<String, List<Step<TASK>>> stepsByParticipant;
+
+    private InterleavedSchedule(List<String> participants, List<Step<TASK>> steps) {
+        this.participants = List.copyOf(participants);
+        this.steps = List.copyOf(steps);
+
+        Map<String, List<Step<TASK>>> stepsByParticipant = new LinkedHashMap<>();
+        for (String participant : participants) {
+            stepsByParticipant.put(participant, new ArrayList<>());
+        }
+        for (Step<TASK> step : steps) {
+            stepsByParticipant.get(step.getParticipant()).add(step);
+        }
+        this.stepsByParticipant = Collections.unmodifiableMap(stepsByParticipant);
+    }
+
+    public static String stepName(String participant, int stepNumber) {
+        return participant + "#" + stepNumber;
+    }
+
+    public static <G> Builder<G> builder() {
+        return new Builder<>();
+    }
+
+    public List<String> getParticipants() {
+        return participants;
+    }
+
+    public List<Step<TASK>> getSteps() {
+        return steps;
+    }
+
+    public List<Step<TASK>> getSteps(String participant) {
+        return Collections.unmodifiableList(stepsByParticipant.get(participant));
+    }
+
+    /**
+     * Picks one of the total orders of the steps allowed by this schedule at random and returns it as a new schedule,
+     * in which every step depends on the previous one. A schedule that is already a total order has only one.
+     */
+    public InterleavedSchedule<TASK> randomLinearization(Random random) {
+        Map<String, Integer> remainingDependencies = new HashMap<>();
+        Map<String, List<Step<TASK>>> dependents = new HashMap<>();
+        for (Step<TASK> step : steps) {
+            Set<String> dependencies = new LinkedHashSet<>(step.getDependencies());
+            if (step.getIndex() > 0) {
+                dependencies.add(stepName(step.getParticipant(), step.getIndex()));
+            }
+            remainingDependencies.put(step.getName(), dependencies.size());
+            for (String dependency : dependencies) {
+                dependents.computeIfAbsent(dependency, __ -> new ArrayList<>()).add(step);
+            }
+        }
+
+        List<Step<TASK>> ready = new ArrayList<>();
+        for (Step<TASK> step : steps) {
+            if (remainingDependencies.get(step.getName()) == 0) {
+                ready.add(step);
+            }
+        }
+
+        Builder<TASK> builder = builder();
+        participants.forEach(builder::participant);
+        while (!ready.isEmpty()) {
+            Step<TASK> step = ready.remove(random.nextInt(ready.size()));
+            builder.then(step.getParticipant(), step.getTask());
+            for (Step<TASK> dependent : dependents.getOrDefault(step.getName(), List.of())) {
+                if (remainingDependencies.merge(dependent.getName(), -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    public static class Step<TASK> {
+        private final String name;
+        private final String participant;
+        private final int index;
+        private final TASK task;
+        private final Set<String> dependencies;
+
+        private Step(String participant, int index, TASK task, Set<String> dependencies) {
+            this.name = stepName(participant, index + 1);
+            this.participant = participant;
+            this.index = index;
+            this.task = task;
+            this.dependencies = Collections.unmodifiableSet(dependencies);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getParticipant() {
+            return participant;
+        }
+
+        /**
+         * @return 0-based index of the step within its participant
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public TASK getTask() {
+            return task;
+        }
+
+        /**
+         * @return names of the steps (of any participant) that have to finish before this step starts
+         */
+        public Set<String> getDependencies() {
+            return dependencies;
+        }
+    }
+
+    public static class Builder<TASK> {
+        private final List<String> participants = new ArrayList<>();
+        private final Map<String, Integer> stepCounts = new HashMap<>();
+        private final List<Step<TASK>> steps = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Declares a participant. Participants are also declared implicitly by adding their first step.
+         */
+        public Builder<TASK> participant(String participant) {
+            if (!stepCounts.containsKey(participant)) {
+                participants.add(participant);
+                stepCounts.put(participant, 0);
+            }
+            return this;
+        }
+
+        /**
+         * Adds a step that starts only after the previously added step (of any participant) finishes.
+         */
+        public Builder<TASK> then(String participant, TASK task) {
+            return steps.isEmpty()
+                    ? step(participant, task)
+                    : step(participant, task, steps.get(steps.size() - 1).getName());
+        }
+
+        /**
+         * Adds a step that starts after the previous step of the same participant and all the given steps finish.
+         */
+        public Builder<TASK> step(String participant, TASK task, String... after) {
+            participant(participant);
+
+            int index = stepCounts.merge(participant, 1, Integer::sum) - 1;
+            steps.add(new Step<>(participant, index, task, new LinkedHashSet<>(List.of(after))));
+
+            return this;
+        }
+
+        public InterleavedSchedule<TASK> build() {
+            validate();
+            return new InterleavedSchedule<>(participants, steps);
+        }
+
+        private void validate() {
+            Map<String, Step<TASK>> stepsByName = new HashMap<>();
+            for (Step<TASK> step : steps) {
+                stepsByName.put(step.getName(), step);
+            }
+
+            // Edges: dependency -> dependent step, including the implicit order of steps of one participant.
+            Map<String, List<String>> dependents = new HashMap<>();
+            Map<String, Integer> inDegree = new HashMap<>();
+            for (Step<TASK> step : steps) {
+                inDegree.putIfAbsent(step.getName(), 0);
+
+                Set<String> dependencies = new LinkedHashSet<>(step.getDependencies());
+                if (step.getIndex() > 0) {
+                    dependencies.add(stepName(step.getParticipant(), step.getIndex()));
+                }
+
+                for (String dependency : dependencies) {
+                    if (!stepsByName.containsKey(dependency)) {
+                        throw new IllegalArgumentException(String.format("Step %s depends on an unknown step %s.", step.getName(), dependency));
+                    }
+                    dependents.computeIfAbsent(dependency, __ -> new ArrayList<>()).add(step.getName());
+                    inDegree.merge(step.getName(), 1, Integer::sum);
+                }
+            }
+
+            // Kahn's algorithm - if not all steps can be sorted topologically, there is a cycle and the schedule would hang.
+            Deque<String> ready = new ArrayDeque<>();
+            inDegree.forEach((step, degree) -> {
+                if (degree == 0) {
+                    ready.add(step);
+                }
+            });
+
+            int sorted = 0;
+            while (!ready.isEmpty()) {
+                String step = ready.poll();
+                sorted++;
+                for (String dependent : dependents.getOrDefault(step, List.of())) {
+                    if (inDegree.merge(dependent, -1, Integer::sum) == 0) {
+                        ready.add(dependent);
+                    }
+                }
+            }
+
+            if (sorted != steps.size()) {
+                throw new IllegalArgumentException("The step dependencies contain a cycle.");
+            }
+        }
+    }
+}
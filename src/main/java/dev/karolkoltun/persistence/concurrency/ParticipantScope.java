@@ -0,0 +1,24 @@
+package dev.karolkoltun.persistence.concurrency;
+
+/**
+ * Resources of a single participant of a scheduled run, living as long as the participant's thread -
+ * e.g. a session with an open transaction.
+ */
+public interface ParticipantScope<TASK> {
+    void execute(TASK task);
+
+    /**
+     * Called once all the participants have executed all their steps.
+     */
+    default void finish() {
+    }
+
+    /**
+     * Called instead of {@link #finish()} when something went wrong outside the steps.
+     */
+    default void abort() {
+    }
+
+    default void close() {
+    }
+}
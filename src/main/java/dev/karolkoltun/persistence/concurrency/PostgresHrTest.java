@@ -2,8 +2,11 @@ package dev.karolkoltun.persistence.concurrency;
 
 import dev.karolkoltun.persistence.DataSourceProvider;
 import dev.karolkoltun.persistence.HibernateTest;
+import dev.karolkoltun.persistence.PoolSettings;
 import dev.karolkoltun.persistence.PostgresqlHrDataSourceProvider;
 
+import java.util.Optional;
+
 public class PostgresHrTest extends HibernateTest {
     @Override
     public DataSourceProvider dataSourceProvider() {
@@ -14,4 +17,10 @@ public class PostgresHrTest extends HibernateTest {
     public boolean recreateBeforeEachTest() {
         return false;
     }
+
+    @Override
+    public Optional<PoolSettings> getPoolSettings() {
+        // Concurrency tests open a lot of sessions - do not pay for a new physical connection in each one.
+        return Optional.of(PoolSettings.defaults());
+    }
 }
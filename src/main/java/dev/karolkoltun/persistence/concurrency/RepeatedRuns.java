@@ -0,0 +1,69 @@
+package dev.karolkoltun.persistence.concurrency;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * Runs a scenario over and over, to see how often the timing-dependent anomalies and failures really happen.
+ * A failed run does not stop the repetitions - it is just counted in the {@link RunStatistics}.
+ * <p>
+ * With random interleavings, every run executes the steps in another total order allowed by the schedule - see
+ * {@link InterleavedSchedule#randomLinearization(Random)}. Scenarios built with the two-thread builders are already
+ * totally ordered, so this only makes a difference for the schedules with independent steps.
+ */
+public class RepeatedRuns<TASK> {
+    private static final Logger log = LoggerFactory.getLogger(RepeatedRuns.class);
+
+    private final ScheduledThreads<TASK> scheduledThreads;
+    private int times = 1;
+    private Duration duration;
+    private Random random;
+
+    RepeatedRuns(ScheduledThreads<TASK> scheduledThreads) {
+        this.scheduledThreads = scheduledThreads;
+    }
+
+    public RepeatedRuns<TASK> times(int times) {
+        this.times = times;
+        this.duration = null;
+        return this;
+    }
+
+    public RepeatedRuns<TASK> during(Duration duration) {
+        this.duration = duration;
+        return this;
+    }
+
+    public RepeatedRuns<TASK> randomInterleavings(long seed) {
+        this.random = new Random(seed);
+        return this;
+    }
+
+    public RunStatistics run() {
+        RunStatistics statistics = new RunStatistics();
+        InterleavedSchedule<TASK> schedule = scheduledThreads.getSchedule();
+        // Without randomization, the same threads (and the handoffs between them) serve all the runs.
+        ScheduledThreads<TASK> sameThreads = scheduledThreads.with(schedule, statistics);
+
+        long start = System.nanoTime();
+        long deadline = duration != null ? start + duration.toNanos() : Long.MAX_VALUE;
+        for (int run = 0; duration != null ? System.nanoTime() < deadline : run < times; run++) {
+            ScheduledThreads<TASK> threads = random != null
+                    ? scheduledThreads.with(schedule.randomLinearization(random), statistics)
+                    : sameThreads;
+            try {
+                threads.run();
+                statistics.runFinished(false);
+            } catch (TaskStepExecutionException e) {
+                statistics.runFinished(true);
+            }
+        }
+        statistics.finished(System.nanoTime() - start);
+
+        log.info("{}", statistics);
+        return statistics;
+    }
+}
@@ -0,0 +1,147 @@
+package dev.karolkoltun.persistence.concurrency;
+
+import dev.karolkoltun.persistence.SqlStates;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * What happened during {@link RepeatedRuns}: how many runs failed, which steps threw what (grouped by the root cause
+ * type and SQLSTATE), the latencies of the steps and the throughput.
+ */
+public class RunStatistics implements StepListener {
+    // Not synchronized - the participants may run on virtual threads.
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Samples> latencies = new TreeMap<>();
+    private final Map<Failure, Integer> failures = new LinkedHashMap<>();
+    private int runs;
+    private int failedRuns;
+    private long elapsedNanos;
+
+    /**
+     * @param sqlState null if the failure did not come from the database
+     */
+    public record Failure(String step, String exceptionType, String sqlState) {
+    }
+
+    @Override
+    public void stepExecuted(String step, long nanos, Throwable error) {
+        lock.lock();
+        try {
+            latencies.computeIfAbsent(step, __ -> new Samples()).add(nanos);
+            if (error != null) {
+                String exceptionType = ExceptionUtils.getRootCause(error).getClass().getName();
+                failures.merge(new Failure(step, exceptionType, SqlStates.of(error).orElse(null)), 1, Integer::sum);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void runFinished(boolean failed) {
+        lock.lock();
+        try {
+            runs++;
+            if (failed) {
+                failedRuns++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void finished(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getRuns() {
+        return runs;
+    }
+
+    public int getFailedRuns() {
+        return failedRuns;
+    }
+
+    public Map<Failure, Integer> getFailures() {
+        lock.lock();
+        try {
+            return Map.copyOf(failures);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of step executions that failed with the given SQLSTATE, in any step
+     */
+    public int getFailures(String sqlState) {
+        return getFailures().entrySet().stream()
+                .filter(failure -> sqlState.equals(failure.getKey().sqlState()))
+                .mapToInt(Map.Entry::getValue)
+                .sum();
+    }
+
+    /**
+     * @param percentile e.g. 50 or 99
+     * @return latency of the given step (successful and failed executions alike) at the percentile, if it was executed
+     */
+    public Optional<Duration> getLatency(String step, double percentile) {
+        lock.lock();
+        try {
+            return Optional.ofNullable(latencies.get(step))
+                    .map(samples -> Duration.ofNanos(samples.percentile(percentile)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Duration getElapsed() {
+        return Duration.ofNanos(elapsedNanos);
+    }
+
+    public double getRunsPerSecond() {
+        return elapsedNanos == 0 ? 0 : runs / (elapsedNanos / 1_000_000_000.0);
+    }
+
+    @Override
+    public String toString() {
+        lock.lock();
+        try {
+            StringBuilder summary = new StringBuilder(String.format("%d runs (%d failed) in %s, %.1f runs/s",
+                    runs, failedRuns, getElapsed(), getRunsPerSecond()));
+            latencies.forEach((step, samples) -> summary.append(String.format("%n  %s: %d executions, p50 %.3f ms, p99 %.3f ms",
+                    step, samples.size, samples.percentile(50) / 1e6, samples.percentile(99) / 1e6)));
+            failures.forEach((failure, count) -> summary.append(String.format("%n  %s failed %d times: %s (SQLSTATE %s)",
+                    failure.step(), count, failure.exceptionType(), failure.sqlState())));
+            return summary.toString();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static class Samples {
+        private long[] values = new long[64];
+        private int size;
+
+        private void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        // Nearest-rank method.
+        private long percentile(double percentile) {
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile / 100 * size);
+            return sorted[Math.max(rank, 1) - 1];
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package dev.karolkoltun.persistence.concurrency;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Runs an {@link InterleavedSchedule}: one thread per participant, each executing its steps in its own
+ * {@link ParticipantScope}, in the order defined by the schedule.
+ * <p>
+ * The first error thrown by any step is rethrown from {@link #run()} as a {@link TaskStepExecutionException};
+ * the remaining steps of all participants are skipped then. A step that is not fired within the step timeout
+ * fails the run with a {@link TimeoutException} as the cause - so does a run in which no step makes progress for that
+ * long, e.g. because a statement blocks forever.
+ * <p>
+ * The participants are started on the given {@link Executor} (see {@link StepExecutors}). It has to be able to run
+ * all of them at the same time - a pool smaller than the number of participants would make the schedule time out.
+ * <p>
+ * {@link #run()} can be called repeatedly (but not concurrently), e.g. to flush out rare anomalies. The handoffs
+ * between the steps are created once and reused by all the runs, as long as they succeed.
+ */
+public class ScheduledThreads<TASK> {
+    private static final Logger log = LoggerFactory.getLogger(ScheduledThreads.class);
+
+    public static final Duration DEFAULT_STEP_TIMEOUT = Duration.ofSeconds(30);
+
+    private final InterleavedSchedule<TASK> schedule;
+    private final Function<String, ParticipantScope<TASK>> scopeFactory;
+    private final Executor executor;
+    private final Duration stepTimeout;
+    private final StepListener listener;
+
+    private Handoffs<TASK> handoffs;
+    private int run;
+
+    public ScheduledThreads(InterleavedSchedule<TASK> schedule, Function<String, ParticipantScope<TASK>> scopeFactory) {
+        this(schedule, scopeFactory, StepExecutors.fromSystemProperty());
+    }
+
+    public ScheduledThreads(InterleavedSchedule<TASK> schedule, Function<String, ParticipantScope<TASK>> scopeFactory,
+            Executor executor) {
+        this(schedule, scopeFactory, executor, DEFAULT_STEP_TIMEOUT);
+    }
+
+    public ScheduledThreads(InterleavedSchedule<TASK> schedule, Function<String, ParticipantScope<TASK>> scopeFactory,
+            Executor executor, Duration stepTimeout) {
+        this(schedule, scopeFactory, executor, stepTimeout, StepListener.NONE);
+    }
+
+    public ScheduledThreads(InterleavedSchedule<TASK> schedule, Function<String, ParticipantScope<TASK>> scopeFactory,
+            Executor executor, Duration stepTimeout, StepListener listener) {
+        this.schedule = schedule;
+        this.scopeFactory = scopeFactory;
+        this.executor = executor;
+        this.stepTimeout = stepTimeout;
+        this.listener = listener;
+    }
+
+    public InterleavedSchedule<TASK> getSchedule() {
+        return schedule;
+    }
+
+    /**
+     * @return the same participants, scopes and settings, but another schedule and listener
+     */
+    public ScheduledThreads<TASK> with(InterleavedSchedule<TASK> schedule, StepListener listener) {
+        return new ScheduledThreads<>(schedule, scopeFactory, executor, stepTimeout, listener);
+    }
+
+    /**
+     * Runs this schedule many times, collecting the statistics of the runs.
+     */
+    public RepeatedRuns<TASK> repeat() {
+        return new RepeatedRuns<>(this);
+    }
+
+    public void run() {
+        if (handoffs == null) {
+            handoffs = new Handoffs<>(schedule);
+            run = 0;
+        }
+
+        log.info("Run #{} with {} participants and {} steps.", run + 1, schedule.getParticipants().size(), schedule.getSteps().size());
+
+        AtomicReference<TaskStepExecutionException> error = new AtomicReference<>();
+        List<ThreadWithSteps<TASK>> threads = new ArrayList<>();
+
+        for (Map.Entry<String, List<ThreadStep<TASK>>> participantSteps : handoffs.stepsByParticipant.entrySet()) {
+            String participant = participantSteps.getKey();
+            ThreadWithSteps<TASK> threadWithSteps = new ThreadWithSteps<>(participant, error, participantSteps.getValue(),
+                    () -> scopeFactory.apply(participant), handoffs.startLine, handoffs.stepsFinishedLine,
+                    handoffs.finishLine, run, stepTimeout, listener);
+            threads.add(threadWithSteps);
+            try {
+                executor.execute(threadWithSteps);
+            } catch (RejectedExecutionException e) {
+                threadWithSteps.abandon(e);
+            }
+        }
+
+        log.info("Start threads");
+        handoffs.startLine.fire();
+        awaitFinishLine(threads, error);
+
+        if (error.get() == null) {
+            run++;
+            log.info("Threads finished successfully");
+        } else {
+            // Some handoffs may have been left half-fired - start the next run from scratch.
+            handoffs.terminate();
+            handoffs = null;
+            throw error.get();
+        }
+    }
+
+    private void awaitFinishLine(List<ThreadWithSteps<TASK>> threads, AtomicReference<TaskStepExecutionException> error) {
+        int progress = -1;
+        while (true) {
+            try {
+                handoffs.finishLine.await(run, stepTimeout);
+                return;
+            } catch (TimeoutException e) {
+                // Long steps are fine, as long as something is moving.
+                int currentProgress = threads.stream()
+                        .mapToInt(ThreadWithSteps::getFiredSteps)
+                        .sum();
+                if (currentProgress != progress) {
+                    progress = currentProgress;
+                    continue;
+                }
+
+                ThreadWithSteps<TASK> stuck = threads.stream()
+                        .filter(thread -> !thread.isFinished())
+                        .findFirst()
+                        .orElseThrow();
+                log.error("{} #{}: no progress within {}; terminating", stuck.getName(), stuck.getFiredSteps() + 1, stepTimeout);
+                error.compareAndSet(null, new TaskStepExecutionException(
+                        new TimeoutException(String.format("No progress within %s.", stepTimeout)), stuck.getName(), stuck.getFiredSteps()));
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                error.compareAndSet(null, new TaskStepExecutionException(e, Thread.currentThread().getName(), 0));
+                return;
+            }
+        }
+    }
+
+    private static boolean isPreviousStepOfSameParticipant(String dependency, InterleavedSchedule.Step<?> step) {
+        for (int i = 1; i <= step.getIndex(); i++) {
+            if (dependency.equals(InterleavedSchedule.stepName(step.getParticipant(), i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * All the handoffs of a schedule. Every step waits until all its dependencies from other participants fire its
+     * handoff. Dependencies on previous steps of the same participant are satisfied just by the order of execution.
+     */
+    private static class Handoffs<TASK> {
+        private final Map<String, List<ThreadStep<TASK>>> stepsByParticipant = new LinkedHashMap<>();
+        private final List<StepHandoff> all = new ArrayList<>();
+        private final StepHandoff startLine;
+        private final StepHandoff stepsFinishedLine;
+        private final StepHandoff finishLine;
+
+        private Handoffs(InterleavedSchedule<TASK> schedule) {
+            int participants = schedule.getParticipants().size();
+            startLine = add(new StepHandoff(1));
+            stepsFinishedLine = add(new StepHandoff(participants));
+            finishLine = add(new StepHandoff(participants));
+
+            Map<String, StepHandoff> stepHandoffs = new HashMap<>();
+            Map<String, List<StepHandoff>> dependentHandoffs = new HashMap<>();
+            for (InterleavedSchedule.Step<TASK> step : schedule.getSteps()) {
+                List<String> otherParticipantsDependencies = step.getDependencies().stream()
+                        .filter(dependency -> !isPreviousStepOfSameParticipant(dependency, step))
+                        .toList();
+
+                StepHandoff handoff = add(new StepHandoff(otherParticipantsDependencies.size()));
+                stepHandoffs.put(step.getName(), handoff);
+                for (String dependency : otherParticipantsDependencies) {
+                    dependentHandoffs.computeIfAbsent(dependency, __ -> new ArrayList<>()).add(handoff);
+                }
+            }
+
+            for (String participant : schedule.getParticipants()) {
+                List<ThreadStep<TASK>> threadSteps = new ArrayList<>();
+                for (InterleavedSchedule.Step<TASK> step : schedule.getSteps(participant)) {
+                    threadSteps.add(new ThreadStep<>(stepHandoffs.get(step.getName()),
+                            dependentHandoffs.getOrDefault(step.getName(), List.of()), step.getIndex(), step.getTask()));
+                }
+                stepsByParticipant.put(participant, List.copyOf(threadSteps));
+            }
+        }
+
+        private StepHandoff add(StepHandoff handoff) {
+            all.add(handoff);
+            return handoff;
+        }
+
+        private void terminate() {
+            all.forEach(StepHandoff::terminate);
+        }
+    }
+}
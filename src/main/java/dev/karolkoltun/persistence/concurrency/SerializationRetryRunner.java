@@ -0,0 +1,143 @@
+package dev.karolkoltun.persistence.concurrency;
+
+import dev.karolkoltun.persistence.RetryPolicy;
+import dev.karolkoltun.persistence.TransactionExecutor;
+import dev.karolkoltun.persistence.TransactionOptions;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs a {@link SessionRunnableWithContext} in a REPEATABLE READ or SERIALIZABLE transaction, and runs it again when
+ * the database gives up on it with a serialization failure or a deadlock - which is what the database expects the
+ * application to do, instead of just asserting that the failure happened.
+ * See: https://www.postgresql.org/docs/15/mvcc-serialization-failure-handling.html
+ * <p>
+ * The {@link RetryPolicy} decides which SQLSTATEs are retried, how many times and how long to wait in between. On top
+ * of it, the retries of all the runs share a budget: at most {@code minRetries} plus {@code ratio} of the runs so far.
+ * Under heavy contention every retry collides again; the budget makes the runner give up instead of multiplying the
+ * load. The budget is checked without locking, so concurrent runs can overdraw it a little.
+ * <p>
+ * The retries are done by the {@link TransactionExecutor}; the runner only listens to its attempts, to keep the budget
+ * and the {@link #getMetrics() metrics} - the retries and the time wasted on the failed attempts. Every attempt starts
+ * with a fresh context from the supplier - nothing done by a failed attempt survives it.
+ */
+public class SerializationRetryRunner {
+    private final TransactionExecutor baseExecutor;
+    private final TransactionExecutor transactionExecutor;
+    private final TransactionOptions options;
+    private final RetryPolicy retryPolicy;
+    private final int budgetMinRetries;
+    private final double budgetRatio;
+
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder gaveUp = new LongAdder();
+    private final LongAdder budgetExhausted = new LongAdder();
+    private final LongAdder wastedNanos = new LongAdder();
+    private final LongAdder backoffNanos = new LongAdder();
+
+    public SerializationRetryRunner(TransactionExecutor transactionExecutor, int isolationLevel, RetryPolicy retryPolicy) {
+        this(transactionExecutor, isolationLevel, retryPolicy, 10, 0.2);
+    }
+
+    private SerializationRetryRunner(TransactionExecutor transactionExecutor, int isolationLevel, RetryPolicy retryPolicy,
+                                     int budgetMinRetries, double budgetRatio) {
+        if (isolationLevel != Connection.TRANSACTION_REPEATABLE_READ
+                && isolationLevel != Connection.TRANSACTION_SERIALIZABLE) {
+            throw new IllegalArgumentException("Only REPEATABLE READ and SERIALIZABLE transactions fail on serialization, got "
+                    + isolationLevel + ".");
+        }
+        if (budgetMinRetries < 0 || budgetRatio < 0) {
+            throw new IllegalArgumentException("The retry budget must not be negative, got " + budgetMinRetries + " + "
+                    + budgetRatio + " per run.");
+        }
+        this.baseExecutor = transactionExecutor;
+        this.transactionExecutor = transactionExecutor.withRetryPolicy(retryPolicy)
+                .withAttemptListener(new BudgetListener());
+        this.options = TransactionOptions.defaults().withIsolationLevel(isolationLevel);
+        this.retryPolicy = retryPolicy;
+        this.budgetMinRetries = budgetMinRetries;
+        this.budgetRatio = budgetRatio;
+    }
+
+    /**
+     * The same runner with another retry budget - the metrics start from zero.
+     *
+     * @param minRetries retries allowed whatever the number of runs
+     * @param ratio      retries allowed per run on top of that
+     */
+    public SerializationRetryRunner withRetryBudget(int minRetries, double ratio) {
+        return new SerializationRetryRunner(baseExecutor, options.isolationLevel(), retryPolicy, minRetries, ratio);
+    }
+
+    /**
+     * @return the context of the attempt that committed
+     * @throws RuntimeException the failure of the last attempt, when it was not retryable or there were no retries left
+     */
+    public <T> T run(Supplier<T> contextSupplier, SessionRunnableWithContext<T> runnable) {
+        runs.increment();
+        try {
+            T context = transactionExecutor.inSession(options, session -> {
+                T attemptContext = contextSupplier.get();
+                runnable.accept(session, attemptContext);
+                return attemptContext;
+            });
+            commits.increment();
+            return context;
+        } catch (RuntimeException e) {
+            gaveUp.increment();
+            throw e;
+        }
+    }
+
+    public Metrics getMetrics() {
+        return new Metrics(runs.sum(), commits.sum(), retries.sum(), gaveUp.sum(), budgetExhausted.sum(),
+                Duration.ofNanos(wastedNanos.sum()), Duration.ofNanos(backoffNanos.sum()));
+    }
+
+    /**
+     * @param runs            calls of {@link #run(Supplier, SessionRunnableWithContext)}
+     * @param commits         runs that committed, after however many attempts
+     * @param retries         attempts after the first one
+     * @param gaveUp          runs that failed - not retryable, out of attempts or out of budget
+     * @param budgetExhausted runs that failed only because the retry budget was used up
+     * @param wastedTime      time of the failed attempts - the work done in them was rolled back
+     * @param backoffTime     time spent waiting before the retries
+     */
+    public record Metrics(long runs, long commits, long retries, long gaveUp, long budgetExhausted, Duration wastedTime,
+                          Duration backoffTime) {
+
+        /**
+         * @return retries per run
+         */
+        public double retryRate() {
+            return runs == 0 ? 0 : (double) retries / runs;
+        }
+    }
+
+    private class BudgetListener implements TransactionExecutor.AttemptListener {
+
+        @Override
+        public boolean attemptFailed(RuntimeException failure, int attempt, Duration elapsed, boolean retryable) {
+            wastedNanos.add(elapsed.toNanos());
+            if (!retryable) {
+                return false;
+            }
+            if (retries.sum() >= budgetMinRetries + budgetRatio * runs.sum()) {
+                budgetExhausted.increment();
+                return false;
+            }
+            retries.increment();
+            return true;
+        }
+
+        @Override
+        public void backedOff(int attempt, Duration backoff) {
+            backoffNanos.add(backoff.toNanos());
+        }
+    }
+}
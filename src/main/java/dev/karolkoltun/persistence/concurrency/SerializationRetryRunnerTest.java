@@ -0,0 +1,146 @@
+package dev.karolkoltun.persistence.concurrency;
+
+import dev.karolkoltun.persistence.DataSourceProvider;
+import dev.karolkoltun.persistence.H2HrDataSourceProvider;
+import dev.karolkoltun.persistence.HibernateTest;
+import dev.karolkoltun.persistence.RetryPolicy;
+import dev.karolkoltun.persistence.SqlStates;
+import dev.karolkoltun.persistence.entity.Employee;
+import dev.karolkoltun.persistence.entity.JobId;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class SerializationRetryRunnerTest extends HibernateTest {
+    private static final RetryPolicy RETRY_POLICY = RetryPolicy.defaults()
+            .withMaxAttempts(5)
+            .withBackoff(Duration.ofMillis(1), Duration.ofMillis(5), 2.0);
+
+    @Override
+    public DataSourceProvider dataSourceProvider() {
+        return new H2HrDataSourceProvider();
+    }
+
+    @Override
+    public boolean recreateBeforeEachTest() {
+        return true;
+    }
+
+    @Test
+    void shouldRetrySerializationFailuresWithFreshContext() {
+        // GIVEN
+        SerializationRetryRunner runner = new SerializationRetryRunner(transactionExecutor, Connection.TRANSACTION_SERIALIZABLE, RETRY_POLICY);
+        List<EmployeeContext> contexts = new ArrayList<>();
+
+        // WHEN
+        EmployeeContext committed = runner.run(EmployeeContext::new, (session, context) -> {
+            contexts.add(context);
+            Employee employee = employee(1);
+            session.persist(employee);
+            session.flush();
+            context.setEmployee(employee);
+
+            if (contexts.size() < 3) {
+                throw new IllegalStateException(new SQLException("could not serialize access", SqlStates.SERIALIZATION_FAILURE));
+            }
+        });
+
+        // THEN
+        // Every attempt got its own context and the rows inserted by the failed ones have been rolled back.
+        assertThat(contexts).hasSize(3).doesNotHaveDuplicates();
+        assertThat(committed).isSameAs(contexts.get(2));
+        assertThat(countEmployees()).isEqualTo(1);
+
+        SerializationRetryRunner.Metrics metrics = runner.getMetrics();
+        assertThat(metrics.runs()).isEqualTo(1);
+        assertThat(metrics.commits()).isEqualTo(1);
+        assertThat(metrics.retries()).isEqualTo(2);
+        assertThat(metrics.gaveUp()).isZero();
+        assertThat(metrics.wastedTime()).isPositive();
+        assertThat(metrics.backoffTime()).isPositive();
+    }
+
+    @Test
+    void shouldRunInRequestedIsolationLevel() {
+        // GIVEN
+        SerializationRetryRunner runner = new SerializationRetryRunner(transactionExecutor, Connection.TRANSACTION_REPEATABLE_READ, RETRY_POLICY);
+        AtomicInteger isolationLevel = new AtomicInteger();
+
+        // WHEN
+        runner.run(EmptyContext::new, (session, context) -> session.doWork(connection -> isolationLevel.set(connection.getTransactionIsolation())));
+
+        // THEN
+        assertThat(isolationLevel).hasValue(Connection.TRANSACTION_REPEATABLE_READ);
+    }
+
+    @Test
+    void shouldGiveUpWhenRetryBudgetIsUsedUp() {
+        // GIVEN
+        SerializationRetryRunner runner = new SerializationRetryRunner(transactionExecutor, Connection.TRANSACTION_SERIALIZABLE, RETRY_POLICY)
+                .withRetryBudget(1, 0);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // WHEN
+        Throwable failure = catchThrowable(() -> runner.run(EmptyContext::new, (session, context) -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException(new SQLException("deadlock detected", SqlStates.DEADLOCK_DETECTED));
+        }));
+
+        // THEN
+        // The policy would allow 5 attempts, the budget only one retry.
+        assertThat(SqlStates.of(failure)).contains(SqlStates.DEADLOCK_DETECTED);
+        assertThat(attempts).hasValue(2);
+
+        SerializationRetryRunner.Metrics metrics = runner.getMetrics();
+        assertThat(metrics.retries()).isEqualTo(1);
+        assertThat(metrics.gaveUp()).isEqualTo(1);
+        assertThat(metrics.budgetExhausted()).isEqualTo(1);
+        assertThat(metrics.commits()).isZero();
+    }
+
+    @Test
+    void shouldNotRetryOtherFailures() {
+        // GIVEN
+        SerializationRetryRunner runner = new SerializationRetryRunner(transactionExecutor, Connection.TRANSACTION_SERIALIZABLE, RETRY_POLICY);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // WHEN
+        Throwable failure = catchThrowable(() -> runner.run(EmptyContext::new, (session, context) -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException(new SQLException("lock not available", SqlStates.LOCK_NOT_AVAILABLE));
+        }));
+
+        // THEN
+        assertThat(failure).isInstanceOf(IllegalStateException.class);
+        assertThat(attempts).hasValue(1);
+        assertThat(runner.getMetrics().retries()).isZero();
+        assertThat(runner.getMetrics().budgetExhausted()).isZero();
+    }
+
+    @Test
+    void shouldRejectIsolationLevelsWithoutSerializationFailures() {
+        Throwable failure = catchThrowable(() -> new SerializationRetryRunner(transactionExecutor, Connection.TRANSACTION_READ_COMMITTED, RETRY_POLICY));
+
+        assertThat(failure).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private long countEmployees() {
+        return getUsingHibernateReadOnly(session -> session.createQuery("SELECT COUNT(e) FROM Employee e", Long.class)
+                .getSingleResult());
+    }
+
+    private static Employee employee(int id) {
+        return new Employee(id, "Jane", "Doe", "jdoe@example.com", "555-1234", LocalDate.of(2020, 1, 1),
+                JobId.IT_PROG, BigDecimal.valueOf(5000));
+    }
+}
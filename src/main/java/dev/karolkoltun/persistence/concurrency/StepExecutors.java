@@ -0,0 +1,39 @@
+package dev.karolkoltun.persistence.concurrency;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Executors for the participants of {@link ScheduledThreads}. Every participant needs a thread of its own, blocked most
+ * of the time - either waiting for its turn or for the database.
+ * <p>
+ * The default can be switched for all the scenarios with {@code -DstepExecutor=virtual}.
+ */
+public final class StepExecutors {
+    public static final String SYSTEM_PROPERTY = "stepExecutor";
+
+    private StepExecutors() {
+    }
+
+    /**
+     * A new platform thread per participant - the way the scenarios have always been run.
+     */
+    public static Executor platformThreads() {
+        return command -> Thread.ofPlatform().start(command);
+    }
+
+    /**
+     * A new virtual thread per participant. Hundreds of simulated clients cost almost nothing then, as long as the
+     * steps block in a virtual-thread friendly way: j.u.c. locks and latches unmount the thread, while blocking inside
+     * a {@code synchronized} block pins the carrier thread (run with {@code -Djdk.tracePinnedThreads=short} to find
+     * such places).
+     */
+    public static Executor virtualThreads() {
+        return command -> Thread.ofVirtual().start(command);
+    }
+
+    public static Executor fromSystemProperty() {
+        return "virtual".equals(System.getProperty(SYSTEM_PROPERTY))
+                ? virtualThreads()
+                : platformThreads();
+    }
+}
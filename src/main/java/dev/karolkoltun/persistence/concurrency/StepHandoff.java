@@ -0,0 +1,56 @@
+package dev.karolkoltun.persistence.concurrency;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A gate that opens once it is fired by all its parties. Unlike a {@link java.util.concurrent.CountDownLatch}, it does
+ * not have to be re-created for the next run of a schedule - it is based on a {@link Phaser}, which resets itself
+ * whenever all the parties arrive. The waiting side only has to know which run (phase) it is waiting for.
+ */
+public final class StepHandoff {
+    private final int parties;
+    private final Phaser phaser;
+
+    public StepHandoff(int parties) {
+        this.parties = parties;
+        this.phaser = new Phaser(parties);
+    }
+
+    public void fire() {
+        if (parties > 0) {
+            phaser.arrive();
+        }
+    }
+
+    /**
+     * Blocks until all the parties fire the gate in the given run.
+     *
+     * @throws TimeoutException      when the gate is not opened within the timeout
+     * @throws CancellationException when the gate has been {@link #terminate() terminated}
+     */
+    public void await(int run, Duration timeout) throws InterruptedException, TimeoutException {
+        if (parties == 0) {
+            return;
+        }
+        int phase;
+        try {
+            phase = phaser.awaitAdvanceInterruptibly(run, timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new TimeoutException(String.format("Not fired within %s.", timeout));
+        }
+        if (phase < 0) {
+            throw new CancellationException("The schedule has been terminated.");
+        }
+    }
+
+    /**
+     * Releases all the waiting threads for good.
+     */
+    public void terminate() {
+        phaser.forceTermination();
+    }
+}
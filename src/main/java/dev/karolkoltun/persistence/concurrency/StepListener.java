@@ -0,0 +1,16 @@
+package dev.karolkoltun.persistence.concurrency;
+
+/**
+ * Notified by the participants' threads after every executed step, so it has to be thread-safe.
+ */
+@FunctionalInterface
+public interface StepListener {
+    StepListener NONE = (step, nanos, error) -> {};
+
+    /**
+     * @param step  name of the step, e.g. "T1#2"; "T1#finish" is the finalization of the participant's scope - the
+     *              commit in case of transactions
+     * @param error thrown by the step, or null
+     */
+    void stepExecuted(String step, long nanos, Throwable error);
+}
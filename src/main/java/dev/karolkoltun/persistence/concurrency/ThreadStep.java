@@ -1,25 +1,30 @@
 package dev.karolkoltun.persistence.concurrency;
 
-public class ThreadStep<TASK> {
-    private final Runnable fireNextStepRunnable;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
 
-    private final Runnable blockUntilFiredRunnable;
+public class ThreadStep<TASK> {
+    private final StepHandoff handoff;
+    private final List<StepHandoff> nextStepsHandoffs;
     private final int stepCount;
     private final TASK task;
 
-    public ThreadStep(Runnable fireNextStepRunnable, Runnable blockUntilFiredRunnable, int stepCount, TASK task) {
-        this.fireNextStepRunnable = fireNextStepRunnable;
-        this.blockUntilFiredRunnable = blockUntilFiredRunnable;
+    public ThreadStep(StepHandoff handoff, List<StepHandoff> nextStepsHandoffs, int stepCount, TASK task) {
+        this.handoff = handoff;
+        this.nextStepsHandoffs = List.copyOf(nextStepsHandoffs);
         this.stepCount = stepCount;
         this.task = task;
     }
 
     public void fireNextStepOnAnotherThread() {
-        fireNextStepRunnable.run();
+        for (StepHandoff nextStepHandoff : nextStepsHandoffs) {
+            nextStepHandoff.fire();
+        }
     }
 
-    public void blockUntilFiredByAnotherThread() {
-        blockUntilFiredRunnable.run();
+    public void blockUntilFiredByAnotherThread(int run, Duration timeout) throws InterruptedException, TimeoutException {
+        handoff.await(run, timeout);
     }
 
     public int getStepIndex() {
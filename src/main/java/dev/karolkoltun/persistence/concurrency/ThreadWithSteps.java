@@ -1,76 +1,179 @@
 package dev.karolkoltun.persistence.concurrency;
 
-import dev.karolkoltun.persistence.HibernateTest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.util.List;
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.function.Consumer;
 import java.util.function.Supplier;
 
-public class ThreadWithSteps<CTX> extends Thread {
+/**
+ * Steps of a single participant. Runs on whatever thread the {@link java.util.concurrent.Executor} of the scheduler
+ * gives it - the thread is renamed after the participant for the time of the run, so the logs stay readable.
+ */
+public class ThreadWithSteps<TASK> implements Runnable {
     private static final Logger log = LoggerFactory.getLogger(ThreadWithSteps.class);
 
+    private final String name;
     private final AtomicReference<TaskStepExecutionException> error;
-    private final List<ThreadStep<Consumer<CTX>>> steps;
-    private final Supplier<CTX> contextSupplier;
-    private final CountDownLatch stepsFinishedLatch;
-    private final CountDownLatch finishLatch;
-
-    public ThreadWithSteps(String name, AtomicReference<TaskStepExecutionException> error, List<ThreadStep<Consumer<CTX>>> steps, Supplier<CTX> contextSupplier,
-            CountDownLatch stepsFinishedLatch, CountDownLatch finishLatch) {
-        super(name);
+    private final List<ThreadStep<TASK>> steps;
+    private final Supplier<ParticipantScope<TASK>> scopeSupplier;
+    private final StepHandoff startLine;
+    private final StepHandoff stepsFinishedLine;
+    private final StepHandoff finishLine;
+    private final int run;
+    private final Duration stepTimeout;
+    private final StepListener listener;
+
+    private volatile int firedSteps = 0;
+    private volatile boolean finished = false;
+
+    public ThreadWithSteps(String name, AtomicReference<TaskStepExecutionException> error, List<ThreadStep<TASK>> steps,
+            Supplier<ParticipantScope<TASK>> scopeSupplier, StepHandoff startLine, StepHandoff stepsFinishedLine,
+            StepHandoff finishLine, int run, Duration stepTimeout, StepListener listener) {
+        this.name = name;
         this.error = error;
         this.steps = steps;
-        this.contextSupplier = contextSupplier;
-        this.stepsFinishedLatch = stepsFinishedLatch;
-        this.finishLatch = finishLatch;
+        this.scopeSupplier = scopeSupplier;
+        this.startLine = startLine;
+        this.stepsFinishedLine = stepsFinishedLine;
+        this.finishLine = finishLine;
+        this.run = run;
+        this.stepTimeout = stepTimeout;
+        this.listener = listener;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return number of steps that were either executed or skipped so far
+     */
+    public int getFiredSteps() {
+        return firedSteps;
+    }
+
+    public boolean isFinished() {
+        return finished;
     }
 
     @Override
     public void run() {
-        executeTasks();
+        Thread thread = Thread.currentThread();
+        String originalName = thread.getName();
+        thread.setName(name);
+        try {
+            executeTasks();
+        } finally {
+            thread.setName(originalName);
+        }
+    }
+
+    /**
+     * Releases everything that waits for this participant, when its steps could not even be started.
+     */
+    public void abandon(Throwable cause) {
+        error.compareAndSet(null, new TaskStepExecutionException(cause, name, 0));
+        steps.forEach(ThreadStep::fireNextStepOnAnotherThread);
+        stepsFinishedLine.fire();
+        finished = true;
+        finishLine.fire();
     }
 
     private void executeTasks() {
+        ParticipantScope<TASK> scope = null;
+        boolean reachedFinishLine = false;
+        boolean finishing = false;
+        long finishStart = 0;
+
         try {
-            CTX threadContext = contextSupplier.get();
+            scope = scopeSupplier.get();
 
-            for (ThreadStep<Consumer<CTX>> step : steps) {
-                String logPrefix = String.format(String.format("%s #%s:", this.getName(), step.getStepIndex() + 1));
+            startLine.await(run, stepTimeout);
+
+            for (ThreadStep<TASK> step : steps) {
+                String logPrefix = String.format("%s #%s:", name, step.getStepIndex() + 1);
 
                 log.info("{} await", logPrefix);
-                step.blockUntilFiredByAnotherThread();
+                try {
+                    step.blockUntilFiredByAnotherThread(run, stepTimeout);
+                } catch (Exception exception) {
+                    if (exception instanceof InterruptedException) {
+                        Thread.currentThread().interrupt();
+                    }
+                    log.error("{} not fired", logPrefix);
+                    error.compareAndSet(null, new TaskStepExecutionException(exception, name, step.getStepIndex()));
+                    break;
+                }
 
                 if (error.get() != null) {
                     log.info("{} detected error in another thread; exit", logPrefix);
                     break;
                 }
 
+                long start = System.nanoTime();
                 try {
                     log.info("{} execute", logPrefix);
-                    step.getTask().accept(threadContext);
+                    scope.execute(step.getTask());
+                    listener.stepExecuted(InterleavedSchedule.stepName(name, step.getStepIndex() + 1), System.nanoTime() - start, null);
                 } catch (Throwable throwable) {
                     log.error("{} error", logPrefix);
-                    error.set(new TaskStepExecutionException(throwable, this.getName(), step.getStepIndex()));
+                    listener.stepExecuted(InterleavedSchedule.stepName(name, step.getStepIndex() + 1), System.nanoTime() - start, throwable);
+                    error.compareAndSet(null, new TaskStepExecutionException(throwable, name, step.getStepIndex()));
                     break;
                 } finally {
                     step.fireNextStepOnAnotherThread();
+                    firedSteps++;
                 }
             }
 
-            log.info("{} FINISH: Awaiting on the finish line for another thread", this.getName());
+            // Steps skipped after an error will never be executed - do not let other threads wait for them.
+            fireRemainingSteps();
 
-            stepsFinishedLatch.countDown();
-            // Do not finish yet - another thread might still be running.
-            HibernateTest.awaitOnLatch(stepsFinishedLatch);
+            log.info("{} FINISH: Awaiting on the finish line for other threads", name);
 
-            log.info("{} FINISH: Finished", this.getName());
+            reachedFinishLine = true;
+            stepsFinishedLine.fire();
+            // Do not finish yet - other threads might still be running.
+            stepsFinishedLine.await(run, stepTimeout);
+
+            // Now we can finalize the scope (e.g. commit the transaction) - only after other threads finished too.
+            finishing = true;
+            finishStart = System.nanoTime();
+            scope.finish();
+            listener.stepExecuted(name + "#finish", System.nanoTime() - finishStart, null);
+
+            log.info("{} FINISH: Finished", name);
+        } catch (Throwable throwable) {
+            log.error("{} FINISH: error", name);
+            if (finishing) {
+                listener.stepExecuted(name + "#finish", System.nanoTime() - finishStart, throwable);
+            }
+            error.compareAndSet(null, new TaskStepExecutionException(throwable, name, firedSteps));
+            if (scope != null) {
+                scope.abort();
+            }
         } finally {
-            // Whatever happened, do not let the main thread wait indefinitely.
-            finishLatch.countDown();
+            // Whatever happened, do not let other threads wait indefinitely.
+            fireRemainingSteps();
+            if (!reachedFinishLine) {
+                stepsFinishedLine.fire();
+            }
+            if (scope != null) {
+                scope.close();
+            }
+            // Do not let the main thread wait either.
+            finished = true;
+            finishLine.fire();
+        }
+    }
+
+    private void fireRemainingSteps() {
+        for (int i = firedSteps; i < steps.size(); i++) {
+            steps.get(i).fireNextStepOnAnotherThread();
         }
+        firedSteps = steps.size();
     }
 }
@@ -0,0 +1,166 @@
+package dev.karolkoltun.persistence.concurrency;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Any number of threads, each running its steps in its own session and transaction, interleaved according to an
+ * {@link InterleavedSchedule}. Transactions that are still active when all the threads finish their steps are committed
+ * (or rolled back if marked as rollback-only).
+ * <p>
+ * Example - three readers run concurrently, the writer starts after all of them:
+ * <pre>
+ * ThreadsWithTransactions.configure(entityManagerFactory, EmptyContext::new)
+ *         .step("R1", read)
+ *         .step("R2", read)
+ *         .step("R3", read)
+ *         .step("W", write, "R1#1", "R2#1", "R3#1")
+ *         .run();
+ * </pre>
+ */
+public class ThreadsWithTransactions<T> {
+    private static final Logger log = LoggerFactory.getLogger(ThreadsWithTransactions.class);
+
+    private final ScheduledThreads<SessionRunnableWithContext<T>> scheduledThreads;
+
+    private ThreadsWithTransactions(EntityManagerFactory entityManagerFactory,
+                                    Supplier<T> contextSupplier,
+                                    InterleavedSchedule<SessionRunnableWithContext<T>> schedule,
+                                    Executor executor,
+                                    Duration stepTimeout) {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.scheduledThreads = new ScheduledThreads<>(schedule, __ -> new TransactionScope<>(sessionFactory, contextSupplier), executor, stepTimeout);
+    }
+
+    /**
+     * Can be called repeatedly - every run starts with fresh sessions and contexts.
+     */
+    public void run() {
+        scheduledThreads.run();
+    }
+
+    public RepeatedRuns<SessionRunnableWithContext<T>> repeat() {
+        return scheduledThreads.repeat();
+    }
+
+    public static <G> Builder<G> configure(EntityManagerFactory entityManagerFactory, Supplier<G> contextSupplier) {
+        return new Builder<>(entityManagerFactory, contextSupplier);
+    }
+
+    private static class TransactionScope<T> implements ParticipantScope<SessionRunnableWithContext<T>> {
+        private final Session session;
+        private final Transaction transaction;
+        private final T context;
+
+        private TransactionScope(SessionFactory sessionFactory, Supplier<T> contextSupplier) {
+            this.session = sessionFactory.openSession();
+            try {
+                this.transaction = session.beginTransaction();
+                this.context = contextSupplier.get();
+            } catch (RuntimeException e) {
+                session.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public void execute(SessionRunnableWithContext<T> task) {
+            task.accept(session, context);
+        }
+
+        @Override
+        public void finish() {
+            if (transaction.isActive()) {
+                if (!transaction.getRollbackOnly()) {
+                    transaction.commit();
+                } else {
+                    abort();
+                }
+            }
+        }
+
+        @Override
+        public void abort() {
+            try {
+                transaction.rollback();
+            } catch (Exception e) {
+                log.error("Rollback failure", e);
+            }
+        }
+
+        @Override
+        public void close() {
+            session.close();
+        }
+    }
+
+    public static class Builder<F> {
+        private final EntityManagerFactory entityManagerFactory;
+        private final Supplier<F> contextSupplier;
+        private final InterleavedSchedule.Builder<SessionRunnableWithContext<F>> schedule = InterleavedSchedule.builder();
+        private Executor executor = StepExecutors.fromSystemProperty();
+        private Duration stepTimeout = ScheduledThreads.DEFAULT_STEP_TIMEOUT;
+
+        private Builder(EntityManagerFactory entityManagerFactory, Supplier<F> contextSupplier) {
+            this.entityManagerFactory = entityManagerFactory;
+            this.contextSupplier = contextSupplier;
+        }
+
+        /**
+         * @see StepExecutors
+         */
+        public Builder<F> executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * How long a step may wait for its turn before the whole run fails.
+         */
+        public Builder<F> stepTimeout(Duration stepTimeout) {
+            this.stepTimeout = stepTimeout;
+            return this;
+        }
+
+        /**
+         * Adds a step that starts after the previously added step (of any thread) finishes.
+         */
+        public Builder<F> then(String thread, SessionRunnableWithContext<F> step) {
+            schedule.then(thread, step);
+            return this;
+        }
+
+        /**
+         * Adds a step that starts after the previous step of the same thread and all the given steps finish,
+         * e.g. {@code step("T3", task, "T1#2", "T2#2")}.
+         */
+        public Builder<F> step(String thread, SessionRunnableWithContext<F> step, String... after) {
+            schedule.step(thread, step, after);
+            return this;
+        }
+
+        public Builder<F> thenCommits(String thread) {
+            return then(thread, (session, context) -> session.getTransaction().commit());
+        }
+
+        public Builder<F> thenTimeoutsOn(String thread, SessionRunnableWithContext<F> step, Duration duration) {
+            return then(thread, new TimeoutSessionRunnableWithContext<>(step, duration));
+        }
+
+        public ThreadsWithTransactions<F> build() {
+            return new ThreadsWithTransactions<>(entityManagerFactory, contextSupplier, schedule.build(), executor, stepTimeout);
+        }
+
+        public void run() {
+            build().run();
+        }
+    }
+}
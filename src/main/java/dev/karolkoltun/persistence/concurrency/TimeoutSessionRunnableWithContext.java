@@ -1,12 +1,43 @@
 package dev.karolkoltun.persistence.concurrency;
 
+import org.hibernate.HibernateException;
 import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionImplementor;
 import org.opentest4j.AssertionFailedError;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.time.Duration;
 import java.util.concurrent.*;
 
+/**
+ * A step that is expected to block - e.g. on a lock held by another thread - for longer than {@code timeout}. When the
+ * timeout passes, the blocked statement is cancelled on the database: with a PostgreSQL cancel request, elsewhere with
+ * {@link java.sql.Statement#cancel()} of the last query Hibernate has run (e.g. a {@code SELECT ... FOR UPDATE}).
+ * Hibernate does not keep track of its updates, nor of the statements run on the JDBC connection directly, and not
+ * every database gives up a lock wait when cancelled - H2 waits for its lock timeout. If the statement is still running
+ * after the grace period, the step fails.
+ * <p>
+ * A cancelled statement fails its transaction - PostgreSQL rejects every later statement of it (SQLSTATE 25P02). The
+ * transaction is marked as rollback-only, so the thread must not run any more statements after this step and does not
+ * commit.
+ */
 public class TimeoutSessionRunnableWithContext<T> implements SessionRunnableWithContext<T> {
+    private static final Logger log = LoggerFactory.getLogger(TimeoutSessionRunnableWithContext.class);
+
+    // How long to wait for the blocked statement to give up after it has been cancelled.
+    private static final Duration CANCEL_GRACE_PERIOD = Duration.ofSeconds(5);
+
+    // Shared by all the timed steps. A thread is held by a blocked statement only until the statement gets cancelled,
+    // then it is reused by the next timed step.
+    private static final ExecutorService executorService = Executors.newCachedThreadPool(Thread.ofPlatform()
+            .daemon()
+            .name("timeout-step-", 0)
+            .factory());
+
     private final Duration timeout;
     private final SessionRunnableWithContext<T> runnable;
 
@@ -17,20 +48,59 @@ public class TimeoutSessionRunnableWithContext<T> implements SessionRunnableWith
 
     @Override
     public void accept(Session session, T t) {
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        // The transaction is already running, so this is the connection the statements of the runnable will use.
+        Connection connection = session.doReturningWork(c -> c);
 
+        Future<?> future = executorService.submit(() -> runnable.accept(session, t));
         try {
-            Future<?> future = executorService.submit(() -> runnable.accept(session, t));
             future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
 
             // Unexpected behavior.
             throw new AssertionFailedError(String.format("The expected timeout after %s did not happen.", timeout));
         } catch (TimeoutException exception) {
-            // Expected behavior.
-        } catch (ExecutionException | InterruptedException exception) {
+            // Expected behavior. Now make the database give up on the blocked statement - otherwise it would keep
+            // waiting for the lock in the background and the session could not be used safely.
+            cancelRunningStatement(session, connection);
+            try {
+                awaitCancelled(future);
+            } finally {
+                session.getTransaction().setRollbackOnly();
+            }
+        } catch (ExecutionException exception) {
+            throw new RuntimeException(exception);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
             throw new RuntimeException(exception);
-        } finally {
-            executorService.shutdownNow();
+        }
+    }
+
+    private static void cancelRunningStatement(Session session, Connection connection) {
+        try {
+            if (connection.isWrapperFor(PGConnection.class)) {
+                // Sends a cancel request for whatever the backend of this connection is running - the same thing
+                // pg_cancel_backend() does, without the need for another connection.
+                connection.unwrap(PGConnection.class).cancelQuery();
+            } else {
+                // Statement.cancel() is meant to be called from another thread, while the statement runs.
+                session.unwrap(SessionImplementor.class).getJdbcCoordinator().cancelLastQuery();
+            }
+        } catch (SQLException | HibernateException exception) {
+            log.error("Could not cancel the blocked statement", exception);
+        }
+    }
+
+    private static void awaitCancelled(Future<?> future) {
+        try {
+            future.get(CANCEL_GRACE_PERIOD.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException exception) {
+            // Expected - the statement was cancelled (SQLSTATE 57014).
+            log.info("Blocked statement cancelled: {}", exception.getCause().toString());
+        } catch (TimeoutException exception) {
+            // The statement keeps running in the background - the session cannot be used safely anymore.
+            throw new IllegalStateException(String.format("The blocked statement did not finish within %s after being cancelled.",
+                    CANCEL_GRACE_PERIOD), exception);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
         }
     }
 }
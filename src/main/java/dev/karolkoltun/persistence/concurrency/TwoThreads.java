@@ -1,98 +1,45 @@
 package dev.karolkoltun.persistence.concurrency;
 
-import dev.karolkoltun.persistence.HibernateTest;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
-import java.util.stream.IntStream;
 
 public class TwoThreads<CTX> {
-    private static final Logger log = LoggerFactory.getLogger(TwoThreads.class);
-
-    private final Supplier<CTX> contextSupplier;
-    private final String threadOneName;
-    private final List<ThreadStep<Consumer<CTX>>> threadOneSteps = new ArrayList<>();
-    private final String threadTwoName;
-    private final List<ThreadStep<Consumer<CTX>>> threadTwoSteps = new ArrayList<>();
-    private final CountDownLatch startLatch = new CountDownLatch(1);
-    private final CountDownLatch stepsFinishedLatch = new CountDownLatch(2);
-    private final CountDownLatch finishLatch = new CountDownLatch(2);
+    private final ScheduledThreads<Consumer<CTX>> threads;
 
     private TwoThreads(Supplier<CTX> contextSupplier,
             String threadOneName,
             List<Consumer<CTX>> threadOneTasks,
             String threadTwoName,
-            List<Consumer<CTX>> threadTwoTasks) {
+            List<Consumer<CTX>> threadTwoTasks,
+            Executor executor,
+            Duration stepTimeout) {
         if (threadOneTasks.size() != threadTwoTasks.size()) {
             throw new IllegalArgumentException("Uneven number of steps.");
         }
-        this.contextSupplier = contextSupplier;
-        this.threadOneName = threadOneName;
-        this.threadTwoName = threadTwoName;
-
-        int steps = threadOneTasks.size();
-        List<CountDownLatch> threadOneLatches = IntStream.range(0, steps)
-                .mapToObj(__ -> new CountDownLatch(1))
-                .toList();
-        List<CountDownLatch> threadTwoLatches = IntStream.range(0, steps)
-                .mapToObj(__ -> new CountDownLatch(1))
-                .toList();
-
-        for (int i = 0; i < steps; ++i) {
-            CountDownLatch thisStepThreadOneLatch = i != 0
-                    ? threadOneLatches.get(i)
-                    : startLatch;
-            CountDownLatch thisStepThreadTwoLatch = threadTwoLatches.get(i);
-
-            CountDownLatch nextStepThreadOneLatch = i != (steps - 1)
-                    ? threadOneLatches.get(i + 1)
-                    : null;
-
-            Runnable blockThreadOneUntilFired = () -> HibernateTest.awaitOnLatch(thisStepThreadOneLatch);
-            Runnable blockThreadTwoUntilFired = () -> HibernateTest.awaitOnLatch(thisStepThreadTwoLatch);
-
-            Runnable fireThreadOneNextStep = nextStepThreadOneLatch != null
-                    ? nextStepThreadOneLatch::countDown
-                    : () -> {
-                    };
-            Runnable fireThreadTwoCurrentStep = thisStepThreadTwoLatch::countDown;
-
-            Consumer<CTX> threadOneTask = threadOneTasks.get(i);
-            Consumer<CTX> threadTwoTask = threadTwoTasks.get(i);
-
-            ThreadStep<Consumer<CTX>> threadOneStep = new ThreadStep<>(fireThreadTwoCurrentStep, blockThreadOneUntilFired, i, threadOneTask);
-            ThreadStep<Consumer<CTX>> threadTwoStep = new ThreadStep<>(fireThreadOneNextStep, blockThreadTwoUntilFired, i, threadTwoTask);
-
-            this.threadOneSteps.add(threadOneStep);
-            this.threadTwoSteps.add(threadTwoStep);
+
+        // The threads take turns: T1 #1, T2 #1, T1 #2, T2 #2...
+        InterleavedSchedule.Builder<Consumer<CTX>> schedule = InterleavedSchedule.builder();
+        for (int i = 0; i < threadOneTasks.size(); ++i) {
+            schedule.then(threadOneName, threadOneTasks.get(i))
+                    .then(threadTwoName, threadTwoTasks.get(i));
         }
+
+        this.threads = new ScheduledThreads<>(schedule.build(), __ -> {
+            CTX context = contextSupplier.get();
+            return task -> task.accept(context);
+        }, executor, stepTimeout);
     }
 
     public void run() {
-        int steps = threadOneSteps.size();
-
-        log.info("Configured with {} steps.", steps);
-
-        AtomicReference<TaskStepExecutionException> error = new AtomicReference<>();
-
-        new ThreadWithSteps<>(threadOneName, error, threadOneSteps, contextSupplier, stepsFinishedLatch, finishLatch).start();
-        new ThreadWithSteps<>(threadTwoName, error, threadTwoSteps, contextSupplier, stepsFinishedLatch, finishLatch).start();
-
-        log.info("Start threads");
-        startLatch.countDown();
-        HibernateTest.awaitOnLatch(finishLatch);
+        threads.run();
+    }
 
-        if (error.get() == null) {
-            log.info("Threads finished successfully");
-        } else {
-            throw error.get();
-        }
+    public RepeatedRuns<Consumer<CTX>> repeat() {
+        return threads.repeat();
     }
 
     public static <G> Builder.StartBuilder<G> configure(Supplier<G> contextSupplier) {
@@ -106,6 +53,8 @@ public class TwoThreads<CTX> {
         private final List<Consumer<F>> threadOneSteps = new ArrayList<>();
         private final String threadTwoName;
         private final List<Consumer<F>> threadTwoSteps = new ArrayList<>();
+        private Executor executor = StepExecutors.fromSystemProperty();
+        private Duration stepTimeout = ScheduledThreads.DEFAULT_STEP_TIMEOUT;
 
         private Builder(Supplier<F> contextSupplier) {
             this.contextSupplier = contextSupplier;
@@ -128,7 +77,9 @@ public class TwoThreads<CTX> {
                     threadOneName,
                     threadOneSteps,
                     threadTwoName,
-                    threadTwoSteps);
+                    threadTwoSteps,
+                    executor,
+                    stepTimeout);
         }
 
         public static class StartBuilder<F> {
@@ -138,6 +89,22 @@ public class TwoThreads<CTX> {
                 this.builder = builder;
             }
 
+            /**
+             * @see StepExecutors
+             */
+            public StartBuilder<F> executor(Executor executor) {
+                builder.executor = executor;
+                return this;
+            }
+
+            /**
+             * How long a step may wait for its turn before the whole run fails.
+             */
+            public StartBuilder<F> stepTimeout(Duration stepTimeout) {
+                builder.stepTimeout = stepTimeout;
+                return this;
+            }
+
             public ThreadTwoStepBuilder<F> threadOneStartsWith(Consumer<F> step) {
                 return builder.addThreadOneStep(step);
             }
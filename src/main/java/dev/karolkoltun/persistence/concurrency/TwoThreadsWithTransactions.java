@@ -1,20 +1,11 @@
 package dev.karolkoltun.persistence.concurrency;
 
-import dev.karolkoltun.persistence.HibernateTest;
-import org.hibernate.Session;
-import org.hibernate.SessionFactory;
-import org.hibernate.Transaction;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 import javax.persistence.EntityManagerFactory;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.Executor;
 import java.util.function.Supplier;
-import java.util.stream.IntStream;
 
 // todo instead of throwing a Throwable from Runtime, it could just return a result:
 //      either it was success (with context) or an Exception in step i
@@ -23,162 +14,39 @@ import java.util.stream.IntStream;
 //      then we could use custom AsstertJ assertions
 //
 // todo write tests
-// todo use nicer technology than a list of latches
 // todo employ vavr just for the sake of learning it
 public class TwoThreadsWithTransactions<T> {
-    private static final Logger log = LoggerFactory.getLogger(TwoThreadsWithTransactions.class);
-
-    private final EntityManagerFactory entityManagerFactory;
-    private final Supplier<T> contextSupplier;
-    private final String threadOneName;
-    private final List<ThreadStep<SessionRunnableWithContext<T>>> threadOneSteps = new ArrayList<>();
-    private final String threadTwoName;
-    private final List<ThreadStep<SessionRunnableWithContext<T>>> threadTwoSteps = new ArrayList<>();
-    private final CountDownLatch startLatch = new CountDownLatch(1);
-    private final CountDownLatch stepsFinishedLatch = new CountDownLatch(2);
-    private final CountDownLatch finishLatch = new CountDownLatch(2);
+    private final ThreadsWithTransactions<T> threads;
 
     private TwoThreadsWithTransactions(EntityManagerFactory entityManagerFactory,
                                        Supplier<T> contextSupplier,
                                        String threadOneName,
                                        List<SessionRunnableWithContext<T>> threadOneTasks,
                                        String threadTwoName,
-                                       List<SessionRunnableWithContext<T>> threadTwoTasks) {
+                                       List<SessionRunnableWithContext<T>> threadTwoTasks,
+                                       Executor executor,
+                                       Duration stepTimeout) {
         if (threadOneTasks.size() != threadTwoTasks.size()) {
             throw new IllegalArgumentException("Uneven number of steps.");
         }
-        this.entityManagerFactory = entityManagerFactory;
-        this.contextSupplier = contextSupplier;
-        this.threadOneName = threadOneName;
-        this.threadTwoName = threadTwoName;
-
-        int steps = threadOneTasks.size();
-        List<CountDownLatch> threadOneLatches = IntStream.range(0, steps)
-                .mapToObj(__ -> new CountDownLatch(1))
-                .toList();
-        List<CountDownLatch> threadTwoLatches = IntStream.range(0, steps)
-                .mapToObj(__ -> new CountDownLatch(1))
-                .toList();
-
-        for (int i = 0; i < steps; ++i) {
-            CountDownLatch thisStepThreadOneLatch = i != 0
-                    ? threadOneLatches.get(i)
-                    : startLatch;
-            CountDownLatch thisStepThreadTwoLatch = threadTwoLatches.get(i);
-
-            CountDownLatch nextStepThreadOneLatch = i != (steps - 1)
-                    ? threadOneLatches.get(i + 1)
-                    : null;
 
-            Runnable blockThreadOneUntilFired = () -> HibernateTest.awaitOnLatch(thisStepThreadOneLatch);
-            Runnable blockThreadTwoUntilFired = () -> HibernateTest.awaitOnLatch(thisStepThreadTwoLatch);
-
-            Runnable fireThreadOneNextStep = nextStepThreadOneLatch != null
-                    ? nextStepThreadOneLatch::countDown
-                    : () -> {
-            };
-            Runnable fireThreadTwoCurrentStep = thisStepThreadTwoLatch::countDown;
-
-            SessionRunnableWithContext<T> threadOneTask = threadOneTasks.get(i);
-            SessionRunnableWithContext<T> threadTwoTask = threadTwoTasks.get(i);
-
-            ThreadStep<SessionRunnableWithContext<T>> threadOneStep = new ThreadStep<SessionRunnableWithContext<T>>(fireThreadTwoCurrentStep, blockThreadOneUntilFired, i, threadOneTask);
-            ThreadStep<SessionRunnableWithContext<T>> threadTwoStep = new ThreadStep<SessionRunnableWithContext<T>>(fireThreadOneNextStep, blockThreadTwoUntilFired, i, threadTwoTask);
-
-            this.threadOneSteps.add(threadOneStep);
-            this.threadTwoSteps.add(threadTwoStep);
+        // The threads take turns: T1 #1, T2 #1, T1 #2, T2 #2...
+        ThreadsWithTransactions.Builder<T> builder = ThreadsWithTransactions.configure(entityManagerFactory, contextSupplier)
+                .executor(executor)
+                .stepTimeout(stepTimeout);
+        for (int i = 0; i < threadOneTasks.size(); ++i) {
+            builder.then(threadOneName, threadOneTasks.get(i))
+                    .then(threadTwoName, threadTwoTasks.get(i));
         }
+        this.threads = builder.build();
     }
 
     public void run() {
-        int steps = threadOneSteps.size();
-
-        log.info("Configured with {} steps.", steps);
-
-        AtomicReference<TaskStepExecutionException> error = new AtomicReference<>();
-
-        new Thread(() -> executeTasks(error, threadOneName, threadOneSteps)).start();
-        new Thread(() -> executeTasks(error, threadTwoName, threadTwoSteps)).start();
-
-        log.info("Start threads");
-        startLatch.countDown();
-        HibernateTest.awaitOnLatch(finishLatch);
-
-        if (error.get() == null) {
-            log.info("Threads finished successfully");
-        } else {
-            throw error.get();
-        }
+        threads.run();
     }
 
-    private void executeTasks(AtomicReference<TaskStepExecutionException> error, String threadName, List<ThreadStep<SessionRunnableWithContext<T>>> threadSteps) {
-        Transaction transaction = null;
-
-        try (Session session = entityManagerFactory.unwrap(SessionFactory.class).openSession()) {
-            transaction = session.beginTransaction();
-
-            T threadContext = contextSupplier.get();
-
-            for (ThreadStep<SessionRunnableWithContext<T>> step : threadSteps) {
-                String logPrefix = String.format(String.format("%s #%s:", threadName, step.getStepIndex() + 1));
-
-                log.info("{} await", logPrefix);
-                step.blockUntilFiredByAnotherThread();
-
-                if (error.get() != null) {
-                    log.info("{} detected error in another thread; exit", logPrefix);
-                    break;
-                }
-
-                try {
-                    log.info("{} execute", logPrefix);
-                    step.getTask().accept(session, threadContext);
-                } catch (Throwable throwable) {
-                    log.error("{} error", logPrefix);
-                    error.set(new TaskStepExecutionException(throwable, threadName, step.getStepIndex()));
-                    break;
-                } finally {
-                    step.fireNextStepOnAnotherThread();
-                }
-            }
-
-            log.info("{} FINISH: Awaiting on the finish line for another thread", threadName);
-
-            stepsFinishedLatch.countDown();
-            // Do not finish yet - another thread might still be running.
-            HibernateTest.awaitOnLatch(stepsFinishedLatch);
-
-            // Now we can finalize the transaction - only after another thread finished too.
-            commitOrRollback(transaction);
-
-            log.info("{} FINISH: Finished", threadName);
-        } catch (Throwable t) {
-            tryRollback(transaction);
-            throw t;
-        } finally {
-            // Whatever happened, do not let the main thread wait indefinitely.
-            finishLatch.countDown();
-        }
-    }
-
-    private static void commitOrRollback(Transaction transaction) {
-        if (transaction.isActive()) {
-            if (!transaction.getRollbackOnly()) {
-                transaction.commit();
-            } else {
-                tryRollback(transaction);
-            }
-        }
-    }
-
-    private static void tryRollback(Transaction transaction) {
-        if (transaction != null) {
-            try {
-                transaction.rollback();
-            } catch (Exception e) {
-                log.error("Rollback failure", e);
-            }
-        }
+    public RepeatedRuns<SessionRunnableWithContext<T>> repeat() {
+        return threads.repeat();
     }
 
     public static <G> Builder.StartBuilder<G> configure(EntityManagerFactory entityManagerFactory, Supplier<G> contextSupplier) {
@@ -193,6 +61,8 @@ public class TwoThreadsWithTransactions<T> {
         private final List<SessionRunnableWithContext<F>> threadOneSteps = new ArrayList<>();
         private final String threadTwoName;
         private final List<SessionRunnableWithContext<F>> threadTwoSteps = new ArrayList<>();
+        private Executor executor = StepExecutors.fromSystemProperty();
+        private Duration stepTimeout = ScheduledThreads.DEFAULT_STEP_TIMEOUT;
 
         private Builder(EntityManagerFactory entityManagerFactory, Supplier<F> contextSupplier) {
             this.entityManagerFactory = entityManagerFactory;
@@ -217,7 +87,9 @@ public class TwoThreadsWithTransactions<T> {
                     threadOneName,
                     threadOneSteps,
                     threadTwoName,
-                    threadTwoSteps);
+                    threadTwoSteps,
+                    executor,
+                    stepTimeout);
         }
 
         public static class StartBuilder<F> {
@@ -227,6 +99,22 @@ public class TwoThreadsWithTransactions<T> {
                 this.builder = builder;
             }
 
+            /**
+             * @see StepExecutors
+             */
+            public StartBuilder<F> executor(Executor executor) {
+                builder.executor = executor;
+                return this;
+            }
+
+            /**
+             * How long a step may wait for its turn before the whole run fails.
+             */
+            public StartBuilder<F> stepTimeout(Duration stepTimeout) {
+                builder.stepTimeout = stepTimeout;
+                return this;
+            }
+
             public ThreadTwoStepBuilder<F> threadOneStartsWith(SessionRunnableWithContext<F> step) {
                 return builder.addThreadOneStep(step);
             }
@@ -2,13 +2,13 @@ package dev.karolkoltun.persistence.concurrency.isolation.levels;
 
 import dev.karolkoltun.persistence.DataSourceProvider;
 import dev.karolkoltun.persistence.HibernateTest;
+import dev.karolkoltun.persistence.PoolSettings;
 import dev.karolkoltun.persistence.PostgresqlHrDataSourceProvider;
 import dev.karolkoltun.persistence.entity.Employee;
 import dev.karolkoltun.persistence.entity.JobId;
 import org.hibernate.FlushMode;
 import org.hibernate.Session;
 
-import javax.persistence.LockModeType;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Optional;
@@ -24,6 +24,12 @@ public abstract class PostgresIsolationLevelTest extends HibernateTest {
         return Optional.of(getTestedIsolationLevel());
     }
 
+    @Override
+    public Optional<PoolSettings> getPoolSettings() {
+        // The tested isolation level is set on the pool connections.
+        return Optional.of(PoolSettings.defaults());
+    }
+
     @Override
     public DataSourceProvider dataSourceProvider() {
         return new PostgresqlHrDataSourceProvider();
@@ -68,28 +74,23 @@ public abstract class PostgresIsolationLevelTest extends HibernateTest {
 
     protected int addExampleEmployee() {
         return getUsingHibernate(session -> {
-            // Lock table first.
-            session.createQuery("SELECT e FROM Employee e")
-                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
-                    .getResultList();
-
-            int availableId = session.createQuery("SELECT MAX(e.id) + 1 FROM Employee e", Integer.class)
-                    .getSingleResult();
-
             Employee employee = new Employee();
 
-            employee.setId(availableId);
             employee.setFirstName("Example");
             employee.setLastName("Employee");
-            employee.setEmail("eemp_" + availableId + "@example.com");
             employee.setHireDate(LocalDate.now());
             employee.setJobId(JobId.FI_ACCOUNT);
-            employee.setPhone("1234" + availableId);
             employee.setSalary(BigDecimal.valueOf(5000));
 
+            // The id comes from employees_seq - no need to lock the table and look for the highest id.
             session.persist(employee);
+            int id = employee.getId();
+
+            // Inserted on commit, so the generated id can still be used in the other columns.
+            employee.setEmail("eemp_" + id + "@example.com");
+            employee.setPhone("1234" + id);
 
-            return availableId;
+            return id;
         }, false, FlushMode.AUTO);
     }
 }
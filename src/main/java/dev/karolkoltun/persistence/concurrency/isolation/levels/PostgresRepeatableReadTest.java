@@ -1,7 +1,9 @@
 package dev.karolkoltun.persistence.concurrency.isolation.levels;
 
+import dev.karolkoltun.persistence.RetryPolicy;
 import dev.karolkoltun.persistence.concurrency.EmployeeContext;
 import dev.karolkoltun.persistence.concurrency.EmptyContext;
+import dev.karolkoltun.persistence.concurrency.SerializationRetryRunner;
 import dev.karolkoltun.persistence.concurrency.SessionRunnableWithContext;
 import dev.karolkoltun.persistence.concurrency.TwoThreadsWithTransactions;
 import dev.karolkoltun.persistence.entity.Employee;
@@ -10,6 +12,11 @@ import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static java.sql.Connection.TRANSACTION_SERIALIZABLE;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -64,4 +71,46 @@ public class PostgresRepeatableReadTest extends PostgresIsolationLevelTest {
                 .thenThreadTwoTimeoutsOn(deleteEmployee, Duration.ofSeconds(3))
                 .run();
     }
+
+    @Test
+    void concurrentSalaryRaisesAllCommitWhenSerializationFailuresAreRetried() throws Exception {
+        int threads = 4;
+        int raisesPerThread = 5;
+        BigDecimal salaryBefore = getUsingHibernateReadOnly(session -> session.find(Employee.class, 100).getSalary());
+        SerializationRetryRunner runner = new SerializationRetryRunner(transactionExecutor, getTestedIsolationLevel(),
+                RetryPolicy.defaults().withMaxAttempts(20).withBackoff(Duration.ofMillis(1), Duration.ofMillis(50), 2.0))
+                .withRetryBudget(1000, 1.0);
+
+        // Read-modify-write: two transactions reading the same salary cannot both commit - one of them gets 40001.
+        SessionRunnableWithContext<EmployeeContext> raiseSalary = (session, context) -> {
+            Employee employee = session.find(Employee.class, 100);
+            employee.setSalary(employee.getSalary().add(BigDecimal.ONE));
+            context.setEmployee(employee);
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < raisesPerThread; i++) {
+                        runner.run(EmployeeContext::new, raiseSalary);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // No raise has been lost - the failed attempts were re-run on the fresh salary.
+        BigDecimal salaryAfter = getUsingHibernateReadOnly(session -> session.find(Employee.class, 100).getSalary());
+        assertThat(salaryAfter).isEqualByComparingTo(salaryBefore.add(BigDecimal.valueOf((long) threads * raisesPerThread)));
+
+        SerializationRetryRunner.Metrics metrics = runner.getMetrics();
+        assertThat(metrics.commits()).isEqualTo(threads * raisesPerThread);
+        assertThat(metrics.gaveUp()).isZero();
+    }
 }
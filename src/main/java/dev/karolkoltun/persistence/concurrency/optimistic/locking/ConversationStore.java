@@ -0,0 +1,233 @@
+package dev.karolkoltun.persistence.concurrency.optimistic.locking;
+
+import dev.karolkoltun.persistence.TransactionExecutor;
+import dev.karolkoltun.persistence.TransactionOptions;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.Type;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Long conversations in the session-per-request style, without re-reading or merging everything on every request - the
+ * plain variant in {@link HibernateOptimisticLockingLongConversationTests} reattaches every entity of the conversation
+ * when saving it.
+ * The entities loaded in a conversation are kept detached, off any session, together with a snapshot of their state
+ * and version taken when they were loaded. Loading an entity the conversation already has does not go to the database.
+ * <p>
+ * {@link #finish(String)} compares every entity with its snapshot and reattaches only the changed ones, with
+ * {@link Session#update(Object)}: the flush issues {@code update ... where id=? and version=?} for each of them, with no
+ * {@code SELECT} before, and nothing for the unchanged ones. A row changed by someone else in the meantime fails the
+ * version check - an {@link javax.persistence.OptimisticLockException}, and none of the changes is saved. Either way
+ * the conversation is over.
+ * <p>
+ * Only versioned entities (like {@link dev.karolkoltun.persistence.entity.EmployeeVersioned}) can be kept - without a
+ * version the update could not detect the conflicts. There are at most {@code maxConversations} conversations, the
+ * least recently used one is dropped first, and a conversation not used for {@code timeToLive} expires. The expired
+ * conversations are removed when a new one begins, whether anybody comes back for them or not. A conversation is meant
+ * to be used by one request at a time.
+ */
+public class ConversationStore {
+    private final TransactionExecutor transactionExecutor;
+    private final int maxConversations;
+    private final long timeToLiveNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Conversation> conversations;
+
+    public ConversationStore(TransactionExecutor transactionExecutor, int maxConversations, Duration timeToLive) {
+        if (maxConversations < 1) {
+            throw new IllegalArgumentException("The maximum number of conversations has to be positive, got " + maxConversations + ".");
+        }
+        this.transactionExecutor = transactionExecutor;
+        this.maxConversations = maxConversations;
+        this.timeToLiveNanos = timeToLive.toNanos();
+        // Access order - every get moves the conversation to the end, so the eldest one is the least recently used.
+        this.conversations = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Conversation> eldest) {
+                return size() > ConversationStore.this.maxConversations;
+            }
+        };
+    }
+
+    /**
+     * @return id of the new conversation
+     */
+    public String begin() {
+        String conversationId = UUID.randomUUID().toString();
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            removeExpired(now);
+            conversations.put(conversationId, new Conversation(now));
+        } finally {
+            lock.unlock();
+        }
+        return conversationId;
+    }
+
+    /**
+     * The entity as the conversation has it - loaded from the database (in a short transaction of its own) only the
+     * first time. Change it freely; the changes are saved by {@link #finish(String)}.
+     *
+     * @return null if there is no such entity
+     * @throws IllegalStateException if the conversation has expired, has been dropped or is over
+     */
+    public <E> E load(String conversationId, Class<E> entityClass, Object id) {
+        Conversation conversation = conversation(conversationId);
+        EntityKey key = new EntityKey(entityClass, id);
+        Tracked tracked = conversation.entities.get(key);
+        if (tracked != null) {
+            return entityClass.cast(tracked.entity());
+        }
+
+        return transactionExecutor.inSession(TransactionOptions.defaults(), session -> {
+            E loaded = session.find(entityClass, id);
+            if (loaded == null) {
+                return null;
+            }
+            EntityPersister persister = persister(session, entityClass);
+            conversation.entities.put(key, new Tracked(loaded, snapshot(persister, loaded)));
+            return loaded;
+        });
+    }
+
+    /**
+     * Saves the changed entities of the conversation, in one transaction, and ends the conversation.
+     *
+     * @return number of the entities updated
+     * @throws javax.persistence.OptimisticLockException if one of the changed entities has been changed by someone else
+     * @throws IllegalStateException                     if the conversation has expired, has been dropped or is over
+     */
+    public int finish(String conversationId) {
+        Conversation conversation = conversation(conversationId);
+        try {
+            return transactionExecutor.inSession(TransactionOptions.defaults(), session -> {
+                int updated = 0;
+                for (Tracked tracked : conversation.entities.values()) {
+                    EntityPersister persister = persister(session, tracked.entity().getClass());
+                    // A failed attempt (e.g. a deadlock, retried by the executor) may have left the version of its
+                    // flushed update in the entity, though the update was rolled back.
+                    restoreVersion(persister, tracked);
+                    if (isChanged(persister, tracked)) {
+                        // Reattaches the entity and schedules the versioned update - no select.
+                        session.update(tracked.entity());
+                        updated++;
+                    }
+                }
+                // A conflict surfaces here as an OptimisticLockException - the commit would wrap it.
+                session.flush();
+                return updated;
+            });
+        } finally {
+            // After a failed flush some of the entities may carry versions that were rolled back - the conversation
+            // cannot go on either way.
+            abandon(conversationId);
+        }
+    }
+
+    /**
+     * Ends the conversation without saving anything.
+     */
+    public void abandon(String conversationId) {
+        lock.lock();
+        try {
+            conversations.remove(conversationId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return conversations.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Called under the lock. The least recently used conversations come first - the expired ones are all at the front.
+    private void removeExpired(long now) {
+        Iterator<Conversation> iterator = conversations.values().iterator();
+        while (iterator.hasNext() && now - iterator.next().lastUsedAt >= timeToLiveNanos) {
+            iterator.remove();
+        }
+    }
+
+    private Conversation conversation(String conversationId) {
+        lock.lock();
+        try {
+            Conversation conversation = conversations.get(conversationId);
+            if (conversation == null) {
+                throw new IllegalStateException("No conversation " + conversationId + " - it is over, has expired or has been dropped.");
+            }
+            long now = System.nanoTime();
+            if (now - conversation.lastUsedAt >= timeToLiveNanos) {
+                conversations.remove(conversationId);
+                throw new IllegalStateException("The conversation " + conversationId + " has expired.");
+            }
+            conversation.lastUsedAt = now;
+            return conversation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static EntityPersister persister(Session session, Class<?> entityClass) {
+        EntityPersister persister = session.getSessionFactory().unwrap(SessionFactoryImplementor.class)
+                .getMetamodel()
+                .entityPersister(entityClass);
+        if (!persister.isVersioned()) {
+            throw new IllegalArgumentException(entityClass.getName() + " has no version - its conflicts would go unnoticed.");
+        }
+        return persister;
+    }
+
+    private static Object[] snapshot(EntityPersister persister, Object entity) {
+        Object[] values = persister.getPropertyValues(entity);
+        Type[] types = persister.getPropertyTypes();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = types[i].deepCopy(values[i], persister.getFactory());
+        }
+        return values;
+    }
+
+    private static void restoreVersion(EntityPersister persister, Tracked tracked) {
+        int version = persister.getVersionProperty();
+        persister.setPropertyValue(tracked.entity(), version, tracked.snapshot()[version]);
+    }
+
+    private static boolean isChanged(EntityPersister persister, Tracked tracked) {
+        Object[] values = persister.getPropertyValues(tracked.entity());
+        Type[] types = persister.getPropertyTypes();
+        for (int i = 0; i < values.length; i++) {
+            if (!types[i].isEqual(tracked.snapshot()[i], values[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record EntityKey(Class<?> entityClass, Object id) {
+    }
+
+    private record Tracked(Object entity, Object[] snapshot) {
+    }
+
+    private static class Conversation {
+        private final Map<EntityKey, Tracked> entities = new LinkedHashMap<>();
+        private long lastUsedAt;
+
+        private Conversation(long lastUsedAt) {
+            this.lastUsedAt = lastUsedAt;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package dev.karolkoltun.persistence.concurrency.optimistic.locking;
+
+import dev.karolkoltun.persistence.DataSourceProvider;
+import dev.karolkoltun.persistence.H2HrDataSourceProvider;
+import dev.karolkoltun.persistence.HibernateTest;
+import dev.karolkoltun.persistence.SqlStates;
+import dev.karolkoltun.persistence.entity.Employee;
+import dev.karolkoltun.persistence.entity.EmployeeVersioned;
+import dev.karolkoltun.persistence.entity.JobId;
+import org.h2.api.Trigger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.OptimisticLockException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class ConversationStoreTest extends HibernateTest {
+    private static final BigDecimal SALARY = BigDecimal.valueOf(5000);
+
+    private ConversationStore conversationStore;
+
+    @Override
+    public DataSourceProvider dataSourceProvider() {
+        return new H2HrDataSourceProvider();
+    }
+
+    @Override
+    public boolean recreateBeforeEachTest() {
+        return true;
+    }
+
+    @Override
+    @BeforeEach
+    protected void beforeEach() {
+        super.beforeEach();
+
+        doInHibernate(session -> {
+            session.persist(employee(100));
+            session.persist(employee(101));
+        });
+        conversationStore = new ConversationStore(transactionExecutor, 10, Duration.ofMinutes(10));
+    }
+
+    @Test
+    void shouldUpdateOnlyChangedEntitiesWithoutReloadingThem() {
+        // GIVEN
+        String conversation = conversationStore.begin();
+        EmployeeVersioned first = conversationStore.load(conversation, EmployeeVersioned.class, 100);
+        conversationStore.load(conversation, EmployeeVersioned.class, 101);
+
+        // The next request of the conversation gets the same object, with no round trip.
+        List<String> reloadStatements = captureSql(() -> assertThat(conversationStore.load(conversation, EmployeeVersioned.class, 100))
+                .isSameAs(first))
+                .getStatements();
+        assertThat(reloadStatements).isEmpty();
+
+        // WHEN
+        first.setEmail("jane.doe@example.com");
+        int[] updated = new int[1];
+        List<String> finishStatements = captureSql(() -> updated[0] = conversationStore.finish(conversation)).getStatements();
+
+        // THEN
+        // update employees set ... where employee_id=? and version=? - no select before it, nothing for the other employee.
+        assertThat(updated[0]).isEqualTo(1);
+        assertThat(finishStatements).hasSize(1);
+        assertThat(finishStatements.get(0)).startsWith("update").contains("version");
+
+        assertThat(find(100).getEmail()).isEqualTo("jane.doe@example.com");
+        assertThat(find(100).getVersion()).isEqualTo((short) 1);
+        assertThat(find(101).getVersion()).isEqualTo((short) 0);
+        assertThat(conversationStore.size()).isZero();
+    }
+
+    @Test
+    void shouldNotWriteAnythingWithoutChanges() {
+        // GIVEN
+        String conversation = conversationStore.begin();
+        conversationStore.load(conversation, EmployeeVersioned.class, 100);
+
+        // WHEN
+        int[] updated = new int[1];
+        List<String> finishStatements = captureSql(() -> updated[0] = conversationStore.finish(conversation)).getStatements();
+
+        // THEN
+        assertThat(updated[0]).isZero();
+        assertThat(finishStatements).isEmpty();
+    }
+
+    @Test
+    void shouldDetectConflictAndSaveNothing() {
+        // GIVEN
+        String conversation = conversationStore.begin();
+        EmployeeVersioned first = conversationStore.load(conversation, EmployeeVersioned.class, 100);
+        EmployeeVersioned second = conversationStore.load(conversation, EmployeeVersioned.class, 101);
+
+        // Meanwhile another user saves a conflicting update.
+        doInHibernate(session -> {
+            EmployeeVersioned employee = session.find(EmployeeVersioned.class, 100);
+            employee.setSalary(employee.getSalary().add(BigDecimal.TEN));
+        });
+
+        // WHEN
+        second.setSalary(SALARY.add(BigDecimal.ONE));
+        first.setEmail("jane.doe@example.com");
+        Throwable failure = catchThrowable(() -> conversationStore.finish(conversation));
+
+        // THEN
+        assertThat(failure).isInstanceOf(OptimisticLockException.class);
+        // The change of the other employee has been rolled back too.
+        assertThat(find(101).getSalary()).isEqualByComparingTo(SALARY);
+        assertThat(find(101).getVersion()).isEqualTo((short) 0);
+        assertThat(find(100).getEmail()).isEqualTo("jdoe@example.com");
+        assertThat(conversationStore.size()).isZero();
+    }
+
+    @Test
+    void shouldRetryDeadlockWithVersionsAsLoaded() {
+        // GIVEN
+        String conversation = conversationStore.begin();
+        EmployeeVersioned first = conversationStore.load(conversation, EmployeeVersioned.class, 100);
+        EmployeeVersioned second = conversationStore.load(conversation, EmployeeVersioned.class, 101);
+        // The second update of the first attempt fails with a deadlock - after the first one went through.
+        DeadlockOnSecondUpdate.UPDATES.set(0);
+        doUsingJDBC(connection -> execute(connection, "CREATE TRIGGER deadlock_on_second_update BEFORE UPDATE ON employees "
+                + "FOR EACH ROW CALL \"" + DeadlockOnSecondUpdate.class.getName() + "\""));
+
+        // WHEN
+        first.setEmail("jane.doe@example.com");
+        second.setSalary(SALARY.add(BigDecimal.ONE));
+        int updated = conversationStore.finish(conversation);
+
+        // THEN
+        // The retry did not take the version bumped by the rolled back update for a conflict.
+        assertThat(DeadlockOnSecondUpdate.UPDATES).hasValueGreaterThan(2);
+        assertThat(updated).isEqualTo(2);
+        assertThat(find(100).getEmail()).isEqualTo("jane.doe@example.com");
+        assertThat(find(100).getVersion()).isEqualTo((short) 1);
+        assertThat(find(101).getSalary()).isEqualByComparingTo(SALARY.add(BigDecimal.ONE));
+        assertThat(find(101).getVersion()).isEqualTo((short) 1);
+    }
+
+    @Test
+    void shouldDropLeastRecentlyUsedConversation() {
+        // GIVEN
+        ConversationStore store = new ConversationStore(transactionExecutor, 2, Duration.ofMinutes(10));
+        String first = store.begin();
+        String second = store.begin();
+        store.load(first, EmployeeVersioned.class, 100);
+
+        // WHEN
+        String third = store.begin();
+
+        // THEN
+        assertThat(store.size()).isEqualTo(2);
+        assertThat(catchThrowable(() -> store.load(second, EmployeeVersioned.class, 100))).isInstanceOf(IllegalStateException.class);
+        assertThat(store.load(first, EmployeeVersioned.class, 100)).isNotNull();
+        assertThat(store.load(third, EmployeeVersioned.class, 100)).isNotNull();
+    }
+
+    @Test
+    void shouldExpireIdleConversation() throws InterruptedException {
+        // GIVEN
+        ConversationStore store = new ConversationStore(transactionExecutor, 10, Duration.ofMillis(50));
+        String conversation = store.begin();
+
+        // WHEN
+        Thread.sleep(100);
+
+        // THEN
+        assertThat(catchThrowable(() -> store.load(conversation, EmployeeVersioned.class, 100))).isInstanceOf(IllegalStateException.class);
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void shouldRemoveAbandonedExpiredConversationsOnBegin() throws InterruptedException {
+        // GIVEN
+        ConversationStore store = new ConversationStore(transactionExecutor, 10, Duration.ofMillis(50));
+        String first = store.begin();
+        String second = store.begin();
+        // Nobody comes back for them.
+        Thread.sleep(100);
+
+        // WHEN
+        String third = store.begin();
+
+        // THEN
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(catchThrowable(() -> store.load(first, EmployeeVersioned.class, 100))).isInstanceOf(IllegalStateException.class);
+        assertThat(catchThrowable(() -> store.load(second, EmployeeVersioned.class, 100))).isInstanceOf(IllegalStateException.class);
+        assertThat(store.load(third, EmployeeVersioned.class, 100)).isNotNull();
+    }
+
+    @Test
+    void shouldRejectEntitiesWithoutVersion() {
+        String conversation = conversationStore.begin();
+
+        Throwable failure = catchThrowable(() -> conversationStore.load(conversation, Employee.class, 100));
+
+        assertThat(failure).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void execute(Connection connection, String sql) {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private EmployeeVersioned find(int id) {
+        return getUsingHibernateReadOnly(session -> session.find(EmployeeVersioned.class, id));
+    }
+
+    private static EmployeeVersioned employee(int id) {
+        return new EmployeeVersioned(id, "Jane", "Doe", "jdoe@example.com", "555-1234", LocalDate.of(2020, 1, 1),
+                JobId.IT_PROG, SALARY);
+    }
+
+    public static class DeadlockOnSecondUpdate implements Trigger {
+        static final AtomicInteger UPDATES = new AtomicInteger();
+
+        @Override
+        public void fire(Connection connection, Object[] oldRow, Object[] newRow) throws SQLException {
+            if (UPDATES.incrementAndGet() == 2) {
+                throw new SQLException("deadlock detected", SqlStates.DEADLOCK_DETECTED);
+            }
+        }
+    }
+}
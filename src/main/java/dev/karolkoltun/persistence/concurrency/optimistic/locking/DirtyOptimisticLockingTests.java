@@ -0,0 +1,139 @@
+package dev.karolkoltun.persistence.concurrency.optimistic.locking;
+
+import dev.karolkoltun.persistence.DataSourceProvider;
+import dev.karolkoltun.persistence.H2HrDataSourceProvider;
+import dev.karolkoltun.persistence.HibernateTest;
+import dev.karolkoltun.persistence.concurrency.TwoThreadsWithTransactions;
+import dev.karolkoltun.persistence.entity.EmployeeDirtyLocked;
+import dev.karolkoltun.persistence.entity.EmployeeVersioned;
+import dev.karolkoltun.persistence.entity.JobId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.OptimisticLockException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class DirtyOptimisticLockingTests extends HibernateTest {
+    private static final int EMPLOYEE_ID = 100;
+    private static final BigDecimal SALARY = BigDecimal.valueOf(5000);
+
+    @Override
+    public DataSourceProvider dataSourceProvider() {
+        return new H2HrDataSourceProvider();
+    }
+
+    @Override
+    public boolean recreateBeforeEachTest() {
+        return true;
+    }
+
+    @Override
+    @BeforeEach
+    protected void beforeEach() {
+        super.beforeEach();
+
+        doInHibernate(session -> session.persist(new EmployeeVersioned(EMPLOYEE_ID, "Jane", "Doe", "jdoe@example.com", "555-1234",
+                LocalDate.of(2020, 1, 1), JobId.IT_PROG, SALARY)));
+    }
+
+    @Test
+    void dirtyLockingLetsChangesOfDifferentColumnsThrough() {
+        // WHEN
+        Throwable failure = updateConcurrently(EmployeeDirtyLocked.class,
+                employee -> employee.setSalary(SALARY.add(BigDecimal.ONE)),
+                employee -> employee.setEmail("jane.doe@example.com"));
+
+        // THEN
+        assertThat(failure).isNull();
+        EmployeeDirtyLocked employee = getUsingHibernateReadOnly(session -> session.find(EmployeeDirtyLocked.class, EMPLOYEE_ID));
+        // Neither change is lost.
+        assertThat(employee.getSalary()).isEqualByComparingTo(SALARY.add(BigDecimal.ONE));
+        assertThat(employee.getEmail()).isEqualTo("jane.doe@example.com");
+    }
+
+    @Test
+    void dirtyLockingDetectsChangesOfTheSameColumn() {
+        // WHEN
+        Throwable failure = updateConcurrently(EmployeeDirtyLocked.class,
+                employee -> employee.setSalary(SALARY.add(BigDecimal.ONE)),
+                employee -> employee.setSalary(SALARY.add(BigDecimal.TEN)));
+
+        // THEN
+        assertThat(failure).isInstanceOf(OptimisticLockException.class);
+        EmployeeDirtyLocked employee = getUsingHibernateReadOnly(session -> session.find(EmployeeDirtyLocked.class, EMPLOYEE_ID));
+        assertThat(employee.getSalary()).isEqualByComparingTo(SALARY.add(BigDecimal.ONE));
+    }
+
+    @Test
+    void versionLockingRejectsChangesOfDifferentColumns() {
+        // WHEN
+        Throwable failure = updateConcurrently(EmployeeVersioned.class,
+                employee -> employee.setSalary(SALARY.add(BigDecimal.ONE)),
+                employee -> employee.setEmail("jane.doe@example.com"));
+
+        // THEN
+        // The version covers the whole row - the email change fails even though nobody else touched the email.
+        assertThat(failure).isInstanceOf(OptimisticLockException.class);
+        EmployeeVersioned employee = getUsingHibernateReadOnly(session -> session.find(EmployeeVersioned.class, EMPLOYEE_ID));
+        assertThat(employee.getEmail()).isEqualTo("jdoe@example.com");
+        assertThat(employee.getVersion()).isEqualTo((short) 1);
+    }
+
+    @Test
+    void dynamicUpdateSetsOnlyChangedColumns() {
+        // WHEN
+        String dirtyUpdate = captureUpdate(EmployeeDirtyLocked.class, employee -> employee.setSalary(SALARY.add(BigDecimal.ONE)));
+        String versionedUpdate = captureUpdate(EmployeeVersioned.class, employee -> employee.setSalary(SALARY.add(BigDecimal.TEN)));
+
+        // THEN
+        // update employees set salary=? where employee_id=? and salary=?
+        assertThat(dirtyUpdate).contains("salary").doesNotContain("first_name", "email", "version");
+        // update employees set email=?, first_name=?, ..., salary=?, version=? where employee_id=? and version=?
+        assertThat(versionedUpdate).contains("salary", "first_name", "email", "version");
+        assertThat(dirtyUpdate.length()).isLessThan(versionedUpdate.length());
+    }
+
+    // Both transactions load the employee, then the first one changes it and commits, then the second one changes it and
+    // flushes. Returns what the flush of the second one threw.
+    private <E> Throwable updateConcurrently(Class<E> entityClass, Consumer<E> firstChange, Consumer<E> secondChange) {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        TwoThreadsWithTransactions.configure(entityManagerFactory, LoadedEmployee<E>::new)
+                .threadOneStartsWith((session, context) -> context.employee = session.find(entityClass, EMPLOYEE_ID))
+                .thenThreadTwo((session, context) -> context.employee = session.find(entityClass, EMPLOYEE_ID))
+                .thenThreadOne((session, context) -> {
+                    firstChange.accept(context.employee);
+                    session.getTransaction().commit();
+                })
+                .thenThreadTwo((session, context) -> {
+                    secondChange.accept(context.employee);
+                    failure.set(catchThrowable(session::flush));
+                    if (failure.get() != null) {
+                        session.getTransaction().setRollbackOnly();
+                    }
+                })
+                .run();
+
+        return failure.get();
+    }
+
+    private <E> String captureUpdate(Class<E> entityClass, Consumer<E> change) {
+        List<String> statements = captureSql(() -> doInHibernate(session -> change.accept(session.find(entityClass, EMPLOYEE_ID))))
+                .getStatements();
+        return statements.stream()
+                .filter(statement -> statement.startsWith("update"))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No update in " + statements));
+    }
+
+    private static class LoadedEmployee<E> {
+        private E employee;
+    }
+}
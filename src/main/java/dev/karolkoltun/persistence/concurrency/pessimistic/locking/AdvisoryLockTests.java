@@ -0,0 +1,106 @@
+package dev.karolkoltun.persistence.concurrency.pessimistic.locking;
+
+import dev.karolkoltun.persistence.DataSourceProvider;
+import dev.karolkoltun.persistence.HibernateTest;
+import dev.karolkoltun.persistence.PostgresqlHrDataSourceProvider;
+import dev.karolkoltun.persistence.concurrency.EmptyContext;
+import dev.karolkoltun.persistence.concurrency.TwoThreadsWithTransactions;
+import dev.karolkoltun.persistence.entity.Department;
+import dev.karolkoltun.persistence.entity.Employee;
+import org.hibernate.LockOptions;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.LockModeType;
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdvisoryLockTests extends HibernateTest {
+
+    @Override
+    public DataSourceProvider dataSourceProvider() {
+        return new PostgresqlHrDataSourceProvider();
+    }
+
+    @Override
+    public boolean recreateBeforeEachTest() {
+        // Reuse the data that came with the database.
+        return false;
+    }
+
+    @Test
+    void keyIsStableAndDistinguishesEntities() {
+        assertEquals(AdvisoryLocks.key(Employee.class, 100), AdvisoryLocks.key(Employee.class, 100));
+        assertNotEquals(AdvisoryLocks.key(Employee.class, 100), AdvisoryLocks.key(Employee.class, 101));
+        assertNotEquals(AdvisoryLocks.key(Employee.class, 100), AdvisoryLocks.key(Department.class, 100));
+    }
+
+    @Test
+    void sessionLockExcludesOthersUntilUnlocked() {
+        // Every test locks a different key - a lock left behind by a failed test must not break the other tests.
+        long key = AdvisoryLocks.key(Employee.class, 101);
+
+        TwoThreadsWithTransactions.configure(entityManagerFactory, EmptyContext::new)
+                .threadOneStartsWith((session, context) -> AdvisoryLocks.lock(session, key))
+                .thenThreadTwo((session, context) -> assertFalse(AdvisoryLocks.tryLock(session, key)))
+                .thenThreadOne((session, context) -> assertTrue(AdvisoryLocks.unlock(session, key)))
+                .thenThreadTwo((session, context) -> {
+                    assertTrue(AdvisoryLocks.tryLock(session, key));
+                    // Still in the same transaction, so it is still the same connection.
+                    assertTrue(AdvisoryLocks.unlock(session, key));
+                })
+                .run();
+    }
+
+    @Test
+    void sessionLockIsReentrant() {
+        long key = AdvisoryLocks.key(Employee.class, 102);
+
+        doInHibernate(session -> {
+            AdvisoryLocks.lock(session, key);
+            assertTrue(AdvisoryLocks.tryLock(session, key));
+
+            // Every lock needs its own unlock.
+            assertTrue(AdvisoryLocks.unlock(session, key));
+            assertTrue(AdvisoryLocks.unlock(session, key));
+            assertFalse(AdvisoryLocks.unlock(session, key));
+        });
+    }
+
+    @Test
+    void transactionLockIsReleasedByCommit() {
+        long key = AdvisoryLocks.key(Employee.class, 103);
+
+        TwoThreadsWithTransactions.configure(entityManagerFactory, EmptyContext::new)
+                .threadOneStartsWith((session, context) -> AdvisoryLocks.lockForTransaction(session, key))
+                .thenThreadTwo((session, context) -> assertFalse(AdvisoryLocks.tryLockForTransaction(session, key)))
+                .thenThreadOneCommits()
+                .thenThreadTwo((session, context) -> assertTrue(AdvisoryLocks.tryLockForTransaction(session, key)))
+                .run();
+    }
+
+    @Test
+    void blockingLockWaitsForHolder() {
+        long key = AdvisoryLocks.key(Employee.class, 104);
+
+        TwoThreadsWithTransactions.configure(entityManagerFactory, EmptyContext::new)
+                .threadOneStartsWith((session, context) -> AdvisoryLocks.lockForTransaction(session, key))
+                .thenThreadTwoTimeoutsOn((session, context) -> AdvisoryLocks.lockForTransaction(session, key), Duration.ofSeconds(2))
+                .run();
+    }
+
+    @Test
+    void advisoryLockDoesNotLockRow() {
+        // The lock is on a number that happens to be derived from Employee #105 - the row itself is not locked.
+        long key = AdvisoryLocks.key(Employee.class, 105);
+
+        TwoThreadsWithTransactions.configure(entityManagerFactory, EmptyContext::new)
+                .threadOneStartsWith((session, context) -> AdvisoryLocks.lockForTransaction(session, key))
+                .thenThreadTwo((session, context) -> assertNotNull(session.find(Employee.class, 105,
+                        LockModeType.PESSIMISTIC_WRITE,
+                        Collections.singletonMap(AvailableSettings.JPA_LOCK_TIMEOUT, LockOptions.NO_WAIT))))
+                .run();
+    }
+}
@@ -0,0 +1,104 @@
+package dev.karolkoltun.persistence.concurrency.pessimistic.locking;
+
+import org.hibernate.Session;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * PostgreSQL advisory locks - exclusive locks on application-defined 64-bit keys instead of rows. Nothing in the
+ * database is locked; the lock only means something to the code that takes it with the same key.
+ * <p>
+ * There are two kinds:
+ * <ul>
+ *     <li>session-level ({@link #lock(Connection, long)}) - held until {@link #unlock(Connection, long) unlocked},
+ *     whatever happens to the transaction. The PostgreSQL session is the physical connection, not the Hibernate session:
+ *     unlock it before the connection goes back to the pool, in the same transaction, or the lock stays with the pooled
+ *     connection;</li>
+ *     <li>transaction-level ({@link #lockForTransaction(Connection, long)}) - released by the commit or rollback, there is
+ *     no way to unlock it earlier.</li>
+ * </ul>
+ * The blocking variants wait for the lock (up to the {@code lock_timeout} of the connection), the {@code try} variants
+ * return false right away if someone else holds it.
+ * See: https://www.postgresql.org/docs/15/explicit-locking.html#ADVISORY-LOCKS
+ */
+public final class AdvisoryLocks {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private AdvisoryLocks() {
+    }
+
+    /**
+     * The key of an entity - the same entity always gets the same key, in every JVM. It is a hash (64-bit FNV-1a of the
+     * entity class name and the id), so two entities can share a key - very unlikely, and they would only lock each other
+     * out.
+     */
+    public static long key(Class<?> entityClass, Object id) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : (entityClass.getName() + "#" + id).getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    public static void lock(Connection connection, long key) {
+        call(connection, "SELECT pg_advisory_lock(?)", key);
+    }
+
+    public static boolean tryLock(Connection connection, long key) {
+        return call(connection, "SELECT pg_try_advisory_lock(?)", key);
+    }
+
+    /**
+     * @return false if the connection did not hold the lock - PostgreSQL logs a warning then
+     */
+    public static boolean unlock(Connection connection, long key) {
+        return call(connection, "SELECT pg_advisory_unlock(?)", key);
+    }
+
+    public static void lockForTransaction(Connection connection, long key) {
+        call(connection, "SELECT pg_advisory_xact_lock(?)", key);
+    }
+
+    public static boolean tryLockForTransaction(Connection connection, long key) {
+        return call(connection, "SELECT pg_try_advisory_xact_lock(?)", key);
+    }
+
+    public static void lock(Session session, long key) {
+        session.doWork(connection -> lock(connection, key));
+    }
+
+    public static boolean tryLock(Session session, long key) {
+        return session.doReturningWork(connection -> tryLock(connection, key));
+    }
+
+    public static boolean unlock(Session session, long key) {
+        return session.doReturningWork(connection -> unlock(connection, key));
+    }
+
+    public static void lockForTransaction(Session session, long key) {
+        session.doWork(connection -> lockForTransaction(connection, key));
+    }
+
+    public static boolean tryLockForTransaction(Session session, long key) {
+        return session.doReturningWork(connection -> tryLockForTransaction(connection, key));
+    }
+
+    // The blocking functions return void, which reads as null - hence false.
+    private static boolean call(Connection connection, String sql, long key) {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, key);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getBoolean(1);
+            }
+        } catch (SQLException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+}
@@ -270,13 +270,13 @@ public class PredicateLockTests extends HibernateTest {
         };
 
         SessionRunnableWithContext<EmptyContext> addNewProgrammer = (session, context) -> {
-            int availableId = session.createQuery("SELECT MAX(e.id) FROM Employee e", Integer.class)
-                    .getSingleResult();
+            // Every value of the sequence is the last id of a block reserved for the caller, so it does not collide with the ids Hibernate allocates.
+            int id = ((Number) session.createSQLQuery("SELECT nextval('employees_seq')").getSingleResult()).intValue();
             int updated = session.createSQLQuery("" +
                             "INSERT INTO employees (employee_id, first_name, last_name, email, phone_number, hire_date, job_id, salary, commission_pct, manager_id, department_id) " +
                             "VALUES (:id, 'New', 'Employee', :mail, '1245', :date, :jobId, 1234, NULL, NULL, 90)")
-                    .setParameter("id", availableId + 1)
-                    .setParameter("mail", "emp" + (availableId + 1) + "@hr.co")
+                    .setParameter("id", id)
+                    .setParameter("mail", "emp" + id + "@hr.co")
                     .setParameter("date", LocalDate.now())
                     .setParameter("jobId", IT_PROG.name())
                     .executeUpdate();
@@ -301,6 +301,6 @@ public class PredicateLockTests extends HibernateTest {
         return pessimisticNoWaitLock;
     }
 
-    // todo tests: skip lock usage
+    // SKIP LOCKED: see WorkQueueTest.
 
 }
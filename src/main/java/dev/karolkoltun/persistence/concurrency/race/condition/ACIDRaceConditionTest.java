@@ -4,6 +4,12 @@ import dev.karolkoltun.persistence.entity.Account;
 import dev.karolkoltun.persistence.PostgresqlBankDataSourceProvider;
 import dev.karolkoltun.persistence.DataSourceProvider;
 import dev.karolkoltun.persistence.HibernateTest;
+import dev.karolkoltun.persistence.SqlStates;
+import dev.karolkoltun.persistence.bank.AccountTransferService;
+import dev.karolkoltun.persistence.concurrency.InterleavedSchedule;
+import dev.karolkoltun.persistence.concurrency.RunStatistics;
+import dev.karolkoltun.persistence.concurrency.StepExecutors;
+import dev.karolkoltun.persistence.concurrency.ThreadsWithTransactions;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,10 +20,14 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.*;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ACIDRaceConditionTest extends HibernateTest {
 
@@ -120,6 +130,132 @@ public class ACIDRaceConditionTest extends HibernateTest {
     assertEquals(10, getBalance(BOB_IBAN));
   }
 
+  // STEP 5: Transactions do not help with a check-then-act race either. All the participants check the balance first,
+  // then each of them transfers the money it has just seen.
+  @Test
+  void testManyParticipantsCheckBalanceThenTransferInTransactions() {
+    manyParticipantsCheckBalanceThenTransfer(StepExecutors.platformThreads());
+  }
+
+  // The same scenario, each participant on a virtual thread.
+  @Test
+  void testManyParticipantsCheckBalanceThenTransferInTransactionsOnVirtualThreads() {
+    manyParticipantsCheckBalanceThenTransfer(StepExecutors.virtualThreads());
+  }
+
+  private void manyParticipantsCheckBalanceThenTransfer(Executor executor) {
+    int participants = 8;
+    int transferredDollars = 10;
+
+    assertEquals(10, getBalance(ALICE_IBAN));
+    assertEquals(0, getBalance(BOB_IBAN));
+
+    ThreadsWithTransactions.Builder<BalanceContext> threads = ThreadsWithTransactions.configure(entityManagerFactory, BalanceContext::new)
+        .executor(executor);
+
+    String[] everyoneHasReadTheBalance = new String[participants];
+    for (int i = 0; i < participants; ++i) {
+      String participant = "T" + (i + 1);
+      threads.step(participant, (session, context) -> context.aliceBalance = session.doReturningWork(connection -> getBalance(connection, ALICE_IBAN)));
+      everyoneHasReadTheBalance[i] = InterleavedSchedule.stepName(participant, 1);
+    }
+
+    for (int i = 0; i < participants; ++i) {
+      threads.step("T" + (i + 1), (session, context) -> {
+        if (context.aliceBalance >= transferredDollars) {
+          session.doWork(connection -> {
+            add(connection, ALICE_IBAN, -transferredDollars);
+            add(connection, BOB_IBAN, transferredDollars);
+          });
+        }
+        session.getTransaction().commit();
+      }, everyoneHasReadTheBalance);
+    }
+
+    threads.run();
+
+    assertEquals(10 - participants * transferredDollars, getBalance(ALICE_IBAN));
+    assertEquals(participants * transferredDollars, getBalance(BOB_IBAN));
+  }
+
+  // STEP 6: A lost update depends on timing, so let's run it many times, in random orders. On REPEATABLE READ, the
+  // updates based on a stale read fail with a serialization failure instead of being lost.
+  @Test
+  void testRepeatedLostUpdateFailsWithSerializationFailuresOnRepeatableRead() {
+    int runs = 20;
+    ThreadsWithTransactions.Builder<BalanceContext> threads = ThreadsWithTransactions.configure(entityManagerFactory, BalanceContext::new);
+
+    for (int i = 0; i < 3; ++i) {
+      String participant = "T" + (i + 1);
+      threads.step(participant, (session, context) -> context.aliceBalance = session.doReturningWork(connection -> {
+            setTransactionIsolationLevel(connection, "REPEATABLE READ");
+            return getBalance(connection, ALICE_IBAN);
+          }))
+          .step(participant, (session, context) -> {
+            session.doWork(connection -> setBalance(connection, ALICE_IBAN, context.aliceBalance - 1));
+            session.getTransaction().commit();
+          });
+    }
+
+    RunStatistics statistics = threads.build()
+        .repeat()
+        .times(runs)
+        .randomInterleavings(42)
+        .run();
+
+    assertEquals(runs, statistics.getRuns());
+    assertTrue(statistics.getFailedRuns() > 0);
+    statistics.getFailures().keySet()
+        .forEach(failure -> assertEquals(SqlStates.SERIALIZATION_FAILURE, failure.sqlState()));
+  }
+
+  // STEP 7: Or do not read the balance at all. The balance check is a part of the debit, so the database does it under the
+  // row lock of the update - only one participant gets the money, and no one has to retry.
+  @Test
+  void testManyParticipantsTransferWithGuardedUpdates() {
+    manyParticipantsTransferAtomically(AccountTransferService.Mode.GUARDED_UPDATES);
+  }
+
+  // The same, with the debit and the credit in one statement.
+  @Test
+  void testManyParticipantsTransferWithSingleStatement() {
+    manyParticipantsTransferAtomically(AccountTransferService.Mode.POSTGRES_CTE);
+  }
+
+  private void manyParticipantsTransferAtomically(AccountTransferService.Mode mode) {
+    AccountTransferService accountTransferService = new AccountTransferService(transactionExecutor, mode);
+    int participants = 8;
+    int transferredDollars = 10;
+
+    CountDownLatch startLatch = new CountDownLatch(1);
+    List<Future<Boolean>> transfers = new ArrayList<>();
+    ExecutorService executor = Executors.newFixedThreadPool(participants);
+    try {
+      for (int i = 0; i < participants; ++i) {
+        transfers.add(executor.submit(() -> {
+          awaitOnLatch(startLatch);
+          return accountTransferService.transfer(ALICE_IBAN, BOB_IBAN, transferredDollars);
+        }));
+      }
+      startLatch.countDown();
+
+      long done = 0;
+      for (Future<Boolean> transfer : transfers) {
+        if (transfer.get()) {
+          done++;
+        }
+      }
+      assertEquals(1, done);
+    } catch (InterruptedException | ExecutionException exception) {
+      throw new IllegalStateException(exception);
+    } finally {
+      executor.shutdown();
+    }
+
+    assertEquals(0, getBalance(ALICE_IBAN));
+    assertEquals(10, getBalance(BOB_IBAN));
+  }
+
   void transferWithoutTransaction(String fromIban, String toIban, int transferredDolars) {
     // The entire operation is done without a single transaction.
     Integer fromBalance = getBalance(fromIban);
@@ -211,6 +347,10 @@ public class ACIDRaceConditionTest extends HibernateTest {
     awaitOnLatch(allWorkerThreadsHaveFinishedLatch);
   }
 
+  private static class BalanceContext {
+    private int aliceBalance;
+  }
+
   private void createAccounts() {
     doUsingJpa(entityManager -> {
       Account bobAccount = new Account(BOB_IBAN, "Bob", 0);
@@ -272,6 +412,17 @@ public class ACIDRaceConditionTest extends HibernateTest {
     log.info("after add: [{}: {}].", iban, getBalance(connection, iban));
   }
 
+  private void setBalance(Connection connection, String iban, int balance) {
+    try (PreparedStatement statement = connection.prepareStatement("UPDATE account SET balance = ? WHERE iban = ?")) {
+      statement.setInt(1, balance);
+      statement.setString(2, iban);
+
+      statement.executeUpdate();
+    } catch (SQLException exception) {
+      throw new IllegalStateException(exception);
+    }
+  }
+
   private Integer getBalanceUsingJDBC(String iban) {
     return getUsingJDBC(connection -> {
       printConnectionDetails(connection);
@@ -307,6 +458,15 @@ public class ACIDRaceConditionTest extends HibernateTest {
     }
   }
 
+  // Unlike Connection.setTransactionIsolation, it does not outlive the transaction on a pooled connection.
+  private void setTransactionIsolationLevel(Connection connection, String isolationLevel) {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("SET TRANSACTION ISOLATION LEVEL " + isolationLevel);
+    } catch (SQLException exception) {
+      throw new IllegalStateException(exception);
+    }
+  }
+
   private void printConnectionDetails(Connection connection) {
     int isolationLevelIntegerValue;
     boolean autoCommit;
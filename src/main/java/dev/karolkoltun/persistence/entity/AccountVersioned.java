@@ -0,0 +1,63 @@
+package dev.karolkoltun.persistence.entity;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Version;
+
+/**
+ * {@link Account} with optimistic locking - every update checks and increments the version of the row.
+ */
+@Entity
+@Table(name = "account")
+public class AccountVersioned {
+  @Id
+  private String iban;
+  private String owner;
+  private Integer balance;
+
+  @Version
+  private Integer version;
+
+  public AccountVersioned() {
+  }
+
+  public AccountVersioned(String iban, String owner, Integer balance) {
+    this.iban = iban;
+    this.owner = owner;
+    this.balance = balance;
+    this.version = 0;
+  }
+
+  public String getIban() {
+    return iban;
+  }
+
+  public void setIban(String iban) {
+    this.iban = iban;
+  }
+
+  public String getOwner() {
+    return owner;
+  }
+
+  public void setOwner(String owner) {
+    this.owner = owner;
+  }
+
+  public Integer getBalance() {
+    return balance;
+  }
+
+  public void setBalance(Integer balance) {
+    this.balance = balance;
+  }
+
+  public Integer getVersion() {
+    return version;
+  }
+
+  public void setVersion(Integer version) {
+    this.version = version;
+  }
+}
@@ -0,0 +1,32 @@
+package dev.karolkoltun.persistence.entity;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.mapping.KeyValue;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.mapping.SimpleValue;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+/**
+ * With a generated id Hibernate takes an entity with the id already set for a detached one, and {@code persist()}
+ * fails. This makes the ids of the entities using {@link PooledSequenceGenerator} behave like the assigned ones: the
+ * id alone does not tell whether the entity is new. Registered in {@code META-INF/services}, so it applies to both the
+ * native and the JPA bootstrap.
+ */
+public class AssignedIdIntegrator implements Integrator {
+  @Override
+  public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    for (PersistentClass entity : metadata.getEntityBindings()) {
+      KeyValue identifier = entity.getIdentifier();
+      if (identifier instanceof SimpleValue simpleValue
+          && PooledSequenceGenerator.class.getName().equals(simpleValue.getIdentifierGeneratorStrategy())) {
+        simpleValue.setNullValue("undefined");
+      }
+    }
+  }
+
+  @Override
+  public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+  }
+}
@@ -0,0 +1,46 @@
+package dev.karolkoltun.persistence.entity;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+
+@Entity
+@Table(name = "countries")
+@Immutable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY)
+public class Country {
+
+  @Id
+  @Column(name = "country_id")
+  private String id;
+
+  @Column(name = "country_name")
+  private String name;
+
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "region_id")
+  private Region region;
+
+  protected Country() {
+  }
+
+  public Country(String id, String name, Region region) {
+    this.id = id;
+    this.name = name;
+    this.region = region;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public Region getRegion() {
+    return region;
+  }
+}
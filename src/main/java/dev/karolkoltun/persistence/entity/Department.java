@@ -0,0 +1,55 @@
+package dev.karolkoltun.persistence.entity;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+
+@Entity
+@Table(name = "departments")
+@Immutable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY)
+public class Department {
+
+  @Id
+  @Column(name = "department_id")
+  private Integer id;
+
+  @Column(name = "department_name")
+  private String name;
+
+  // A plain column - the departments are cached as read-only, the employees change all the time.
+  @Column(name = "manager_id")
+  private Integer managerId;
+
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "location_id")
+  private Location location;
+
+  protected Department() {
+  }
+
+  public Department(Integer id, String name, Integer managerId, Location location) {
+    this.id = id;
+    this.name = name;
+    this.managerId = managerId;
+    this.location = location;
+  }
+
+  public Integer getId() {
+    return id;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public Integer getManagerId() {
+    return managerId;
+  }
+
+  public Location getLocation() {
+    return location;
+  }
+}
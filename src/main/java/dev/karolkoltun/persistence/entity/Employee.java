@@ -1,5 +1,8 @@
 package dev.karolkoltun.persistence.entity;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
 import javax.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -26,7 +29,16 @@ import static javax.persistence.EnumType.STRING;
 public class Employee {
 
   @Id
-//  @GeneratedValue(strategy = GenerationType.AUTO)
+  @GeneratedValue(generator = "employees_seq")
+  @GenericGenerator(
+      name = "employees_seq",
+      strategy = "dev.karolkoltun.persistence.entity.PooledSequenceGenerator",
+      parameters = {
+          @Parameter(name = "sequence_name", value = "employees_seq"),
+          @Parameter(name = "initial_value", value = "1000"),
+          @Parameter(name = "increment_size", value = "50"),
+          @Parameter(name = "optimizer", value = "pooled")
+      })
   @Column(name = "employee_id")
   private Integer id;
 
@@ -0,0 +1,155 @@
+package dev.karolkoltun.persistence.entity;
+
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.OptimisticLockType;
+import org.hibernate.annotations.OptimisticLocking;
+import org.hibernate.annotations.Parameter;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static javax.persistence.EnumType.STRING;
+
+/**
+ * The same row as {@link EmployeeVersioned}, but optimistically locked without a version column. The {@code UPDATE} sets
+ * only the changed columns ({@link DynamicUpdate}) and checks that they still hold the loaded values:
+ * {@code update employees set salary=? where employee_id=? and salary=?}. Two transactions changing different columns of
+ * the same employee do not conflict then - with {@code @Version} the second one would fail.
+ * <p>
+ * The check needs the loaded values, so it only works for entities changed in the session which loaded them - a merged
+ * detached entity is not checked.
+ */
+@Entity
+@Table(name = "employees")
+@DynamicUpdate
+@OptimisticLocking(type = OptimisticLockType.DIRTY)
+public class EmployeeDirtyLocked {
+
+  @Id
+  @GeneratedValue(generator = "employees_seq")
+  @GenericGenerator(
+      name = "employees_seq",
+      strategy = "dev.karolkoltun.persistence.entity.PooledSequenceGenerator",
+      parameters = {
+          @Parameter(name = "sequence_name", value = "employees_seq"),
+          @Parameter(name = "initial_value", value = "1000"),
+          @Parameter(name = "increment_size", value = "50"),
+          @Parameter(name = "optimizer", value = "pooled")
+      })
+  @Column(name = "employee_id")
+  private Integer id;
+
+  @Column(name = "first_name")
+  private String firstName;
+
+  @Column(name = "last_name")
+  private String lastName;
+
+  private String email;
+
+  @Column(name = "phone_number")
+  private String phone;
+
+  @Column(name = "hire_date")
+  private LocalDate hireDate;
+
+  @Column(name = "job_id")
+  @Enumerated(STRING)
+  private JobId jobId;
+
+  private BigDecimal salary;
+
+  public EmployeeDirtyLocked() {
+  }
+
+  public EmployeeDirtyLocked(Integer id, String firstName, String lastName, String email, String phone, LocalDate hireDate, JobId jobId, BigDecimal salary) {
+    this.id = id;
+    this.firstName = firstName;
+    this.lastName = lastName;
+    this.email = email;
+    this.phone = phone;
+    this.hireDate = hireDate;
+    this.jobId = jobId;
+    this.salary = salary;
+  }
+
+  public Integer getId() {
+    return id;
+  }
+
+  public void setId(Integer id) {
+    this.id = id;
+  }
+
+  public String getFirstName() {
+    return firstName;
+  }
+
+  public void setFirstName(String firstName) {
+    this.firstName = firstName;
+  }
+
+  public String getLastName() {
+    return lastName;
+  }
+
+  public void setLastName(String lastName) {
+    this.lastName = lastName;
+  }
+
+  public String getEmail() {
+    return email;
+  }
+
+  public void setEmail(String email) {
+    this.email = email;
+  }
+
+  public String getPhone() {
+    return phone;
+  }
+
+  public void setPhone(String phone) {
+    this.phone = phone;
+  }
+
+  public LocalDate getHireDate() {
+    return hireDate;
+  }
+
+  public void setHireDate(LocalDate hireDate) {
+    this.hireDate = hireDate;
+  }
+
+  public JobId getJobId() {
+    return jobId;
+  }
+
+  public void setJobId(JobId jobId) {
+    this.jobId = jobId;
+  }
+
+  public BigDecimal getSalary() {
+    return salary;
+  }
+
+  public void setSalary(BigDecimal salary) {
+    this.salary = salary;
+  }
+
+  @Override
+  public String toString() {
+    return "Employee{" +
+            "id=" + id +
+            ", firstName='" + firstName + '\'' +
+            ", lastName='" + lastName + '\'' +
+            ", email='" + email + '\'' +
+            ", phone='" + phone + '\'' +
+            ", hireDate=" + hireDate +
+            ", jobId=" + jobId +
+            ", salary=" + salary +
+            '}';
+  }
+}
@@ -1,11 +1,46 @@
 package dev.karolkoltun.persistence.entity;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
 import java.math.BigDecimal;
 
+import static javax.persistence.EnumType.STRING;
+
+@NamedQueries(
+    @NamedQuery(
+        name = "get_all_jobs",
+        query = "SELECT j FROM Job j ORDER BY j.jobId",
+        hints = {
+            // The query cache keeps just the ids of the jobs found - they resolve without a round trip only because
+            // Job is in the second-level cache too.
+            @QueryHint(
+                name = "org.hibernate.cacheable",
+                value = "true"
+            )
+        }
+    )
+)
+@Entity
+@Table(name = "jobs")
+@Immutable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY)
 public class Job {
+
+  @Id
+  @Column(name = "job_id")
+  @Enumerated(STRING)
   private JobId jobId;
+
+  @Column(name = "job_title")
   private String jobTitle;
+
+  @Column(name = "min_salary")
   private BigDecimal minSalary;
+
+  @Column(name = "max_salary")
   private BigDecimal maxSalary;
 
   public Job() {
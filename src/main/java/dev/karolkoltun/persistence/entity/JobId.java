@@ -1,5 +1,8 @@
 package dev.karolkoltun.persistence.entity;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public enum JobId {
   AC_ACCOUNT,
   AC_MGR,
@@ -19,5 +22,27 @@ public enum JobId {
   SA_REP,
   SH_CLERK,
   ST_CLERK,
-  ST_MAN
+  ST_MAN;
+
+  private static final Map<String, JobId> BY_CODE = new HashMap<>();
+
+  static {
+    for (JobId jobId : values()) {
+      BY_CODE.put(jobId.name(), jobId);
+    }
+  }
+
+  /**
+   * Same as {@link #valueOf(String)}, but returns null for null - for decoding {@code job_id} columns.
+   */
+  public static JobId fromCode(String code) {
+    if (code == null) {
+      return null;
+    }
+    JobId jobId = BY_CODE.get(code);
+    if (jobId == null) {
+      throw new IllegalArgumentException("Unknown job id: " + code);
+    }
+    return jobId;
+  }
 }
@@ -0,0 +1,69 @@
+package dev.karolkoltun.persistence.entity;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+
+@Entity
+@Table(name = "locations")
+@Immutable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY)
+public class Location {
+
+  @Id
+  @Column(name = "location_id")
+  private Integer id;
+
+  @Column(name = "street_address")
+  private String streetAddress;
+
+  @Column(name = "postal_code")
+  private String postalCode;
+
+  private String city;
+
+  @Column(name = "state_province")
+  private String stateProvince;
+
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "country_id")
+  private Country country;
+
+  protected Location() {
+  }
+
+  public Location(Integer id, String streetAddress, String postalCode, String city, String stateProvince, Country country) {
+    this.id = id;
+    this.streetAddress = streetAddress;
+    this.postalCode = postalCode;
+    this.city = city;
+    this.stateProvince = stateProvince;
+    this.country = country;
+  }
+
+  public Integer getId() {
+    return id;
+  }
+
+  public String getStreetAddress() {
+    return streetAddress;
+  }
+
+  public String getPostalCode() {
+    return postalCode;
+  }
+
+  public String getCity() {
+    return city;
+  }
+
+  public String getStateProvince() {
+    return stateProvince;
+  }
+
+  public Country getCountry() {
+    return country;
+  }
+}
@@ -0,0 +1,23 @@
+package dev.karolkoltun.persistence.entity;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import java.io.Serializable;
+
+/**
+ * Sequence generator meant to be used with the pooled optimizer: one call to the sequence reserves a block of
+ * {@code increment_size} ids, which are then handed out from memory. Concurrent inserters do not contend on the table
+ * and make one round trip per block, not per id. The increment of the database sequence has to be equal to
+ * {@code increment_size}.
+ * <p>
+ * An id set before the entity is persisted is kept - plenty of the tests and benchmarks here use fixed ids. See
+ * {@link AssignedIdIntegrator} for the other half of it.
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+  @Override
+  public Serializable generate(SharedSessionContractImplementor session, Object object) {
+    Serializable id = session.getEntityPersister(null, object).getIdentifier(object, session);
+    return id != null ? id : super.generate(session, object);
+  }
+}
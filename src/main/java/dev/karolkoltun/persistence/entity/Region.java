@@ -0,0 +1,37 @@
+package dev.karolkoltun.persistence.entity;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+
+@Entity
+@Table(name = "regions")
+@Immutable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY)
+public class Region {
+
+  @Id
+  @Column(name = "region_id")
+  private Integer id;
+
+  @Column(name = "region_name")
+  private String name;
+
+  protected Region() {
+  }
+
+  public Region(Integer id, String name) {
+    this.id = id;
+    this.name = name;
+  }
+
+  public Integer getId() {
+    return id;
+  }
+
+  public String getName() {
+    return name;
+  }
+}
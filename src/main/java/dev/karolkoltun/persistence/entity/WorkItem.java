@@ -0,0 +1,59 @@
+package dev.karolkoltun.persistence.entity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * A job waiting in the {@code work_items} queue table. Workers claim the {@link Status#NEW} items, process them and
+ * mark them as {@link Status#DONE} in the same transaction.
+ */
+@Entity
+@Table(name = "work_items")
+public class WorkItem {
+  public enum Status {
+    NEW,
+    DONE
+  }
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  private String payload;
+
+  @Enumerated(EnumType.STRING)
+  private Status status;
+
+  @Column(name = "processed_by")
+  private String processedBy;
+
+  public WorkItem() {
+  }
+
+  public WorkItem(String payload) {
+    this.payload = payload;
+    this.status = Status.NEW;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public String getPayload() {
+    return payload;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public String getProcessedBy() {
+    return processedBy;
+  }
+}
@@ -10,6 +10,7 @@ import java.sql.Statement;
 import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import static java.lang.String.format;
 import static java.util.Optional.empty;
@@ -55,8 +56,9 @@ class BasicOperationsTest extends JdbcTest {
             getByFirstName.setString(1, firstNameToLookFor);
             ResultSet resultSet = getByFirstName.executeQuery();
 
+            EmployeeRowMapper employeeRowMapper = EmployeeRowMapper.forResultSet(resultSet);
             while (resultSet.next()) {
-                employees.add(QueryUtils.employeeFromResultSet(resultSet));
+                employees.add(employeeRowMapper.map(resultSet));
             }
 
             resultSet.close();
@@ -65,4 +67,56 @@ class BasicOperationsTest extends JdbcTest {
         // THEN
         assertEquals(expectedResultSetLength, employees.size());
     }
+
+    @Test
+    void shouldStreamAllEmployees() throws Exception {
+        // GIVEN
+        int expectedEmployees = 107;
+
+        // WHEN
+        long davids;
+        long employees;
+        try (Connection connection = getConnection()) {
+            try (Stream<Employee> stream = new EmployeeExport(10).stream(connection)) {
+                davids = stream.filter(employee -> employee.getFirstName().equals("David")).count();
+            }
+            try (Stream<Employee> stream = new EmployeeExport(10).stream(connection)) {
+                employees = stream.count();
+            }
+
+            // THEN
+            assertThat(connection.getAutoCommit()).isTrue();
+        }
+        assertEquals(3, davids);
+        assertEquals(expectedEmployees, employees);
+    }
+
+    @Test
+    void shouldLeaveTransactionOfCallerOpenAfterStreaming() throws Exception {
+        // GIVEN
+        try (Connection connection = getConnection()) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("UPDATE employees SET first_name = 'Steve' WHERE employee_id = 100");
+            }
+
+            // WHEN
+            long steves;
+            try (Stream<Employee> stream = new EmployeeExport(10).stream(connection)) {
+                steves = stream.filter(employee -> employee.getFirstName().equals("Steve")).count();
+            }
+            connection.commit();
+
+            // THEN
+            // The stream has seen the uncommitted update and has not rolled it back.
+            assertThat(steves).isEqualTo(1);
+            assertThat(connection.getAutoCommit()).isFalse();
+        }
+        try (Connection connection = getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery(format(getByIdSql, 100))) {
+            assertThat(resultSet.next()).isTrue();
+            assertThat(resultSet.getString("first_name")).isEqualTo("Steve");
+        }
+    }
 }
@@ -0,0 +1,223 @@
+package dev.karolkoltun.persistence.jdbc;
+
+import dev.karolkoltun.persistence.entity.Employee;
+import dev.karolkoltun.persistence.entity.PayrollService;
+
+import java.math.BigDecimal;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Increments salaries of many employees using JDBC batches - one round trip per batch instead of one per employee.
+ * <p>
+ * Every update is first checked with {@link PayrollService#isSalaryUpdateAllowed(Employee, BigDecimal)} against the
+ * current salary, which is also loaded with one query per batch. Updates that are not allowed, employees that do not
+ * exist and updates the database refuses are reported as {@link RowFailure}s, the rest of the updates go through.
+ * <p>
+ * When a batch fails, the drivers differ in what they have done with the rest of it (PostgreSQL even aborts the whole
+ * transaction), so the batch is rolled back to a savepoint and executed again row by row, each row under its own
+ * savepoint.
+ * <p>
+ * Note that with MySQL the driver sends a batch as a single statement only with {@code rewriteBatchedStatements=true}.
+ */
+public class BatchSalaryUpdateService {
+  private static final String INCREMENT_SALARY = "UPDATE employees SET salary = salary + ? WHERE employee_id = ?";
+
+  public enum CommitMode {
+    /**
+     * All or nothing - one commit at the end. Locks on all the updated rows are held until then.
+     */
+    SINGLE_TRANSACTION,
+    /**
+     * A commit after every batch. When the run fails, the batches committed before stay committed.
+     */
+    PER_BATCH
+  }
+
+  public enum Reason {
+    NOT_ALLOWED,
+    EMPLOYEE_NOT_FOUND,
+    DATABASE_ERROR
+  }
+
+  /**
+   * @param error the error reported by the database, only for {@link Reason#DATABASE_ERROR}
+   */
+  public record RowFailure(int employeeId, BigDecimal salaryUpdate, Reason reason, SQLException error) {
+  }
+
+  public record Report(int updatedRows, int batches, List<RowFailure> failures) {
+  }
+
+  private final PayrollService payrollService;
+  private final int batchSize;
+  private final CommitMode commitMode;
+
+  public BatchSalaryUpdateService(PayrollService payrollService, int batchSize, CommitMode commitMode) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("The batch size has to be positive, got " + batchSize + ".");
+    }
+    this.payrollService = payrollService;
+    this.batchSize = batchSize;
+    this.commitMode = commitMode;
+  }
+
+  /**
+   * @param salaryUpdates salary increments by employee id
+   * @throws SQLException when the run cannot go on; the work not committed yet is rolled back
+   */
+  public Report incrementSalaries(Connection connection, Map<Integer, BigDecimal> salaryUpdates) throws SQLException {
+    // Updating the rows in the same order in every run keeps concurrent runs from deadlocking on each other.
+    List<Map.Entry<Integer, BigDecimal>> updates = new ArrayList<>(new TreeMap<>(salaryUpdates).entrySet());
+
+    int updatedRows = 0;
+    int batches = 0;
+    List<RowFailure> failures = new ArrayList<>();
+
+    boolean autoCommit = connection.getAutoCommit();
+    connection.setAutoCommit(false);
+    try (PreparedStatement incrementSalary = connection.prepareStatement(INCREMENT_SALARY)) {
+      for (int from = 0; from < updates.size(); from += batchSize) {
+        List<Map.Entry<Integer, BigDecimal>> batch = updates.subList(from, Math.min(from + batchSize, updates.size()));
+
+        List<Map.Entry<Integer, BigDecimal>> allowed = validate(connection, batch, failures);
+        updatedRows += executeBatch(connection, incrementSalary, allowed, failures);
+        batches++;
+
+        if (commitMode == CommitMode.PER_BATCH) {
+          connection.commit();
+        }
+      }
+
+      if (commitMode == CommitMode.SINGLE_TRANSACTION) {
+        connection.commit();
+      }
+    } catch (SQLException | RuntimeException e) {
+      rollback(connection, e);
+      throw e;
+    } finally {
+      connection.setAutoCommit(autoCommit);
+    }
+
+    return new Report(updatedRows, batches, Collections.unmodifiableList(failures));
+  }
+
+  private List<Map.Entry<Integer, BigDecimal>> validate(Connection connection,
+                                                        List<Map.Entry<Integer, BigDecimal>> batch,
+                                                        List<RowFailure> failures) throws SQLException {
+    Map<Integer, Employee> employees = getEmployees(connection, batch);
+
+    List<Map.Entry<Integer, BigDecimal>> allowed = new ArrayList<>(batch.size());
+    for (Map.Entry<Integer, BigDecimal> update : batch) {
+      Employee employee = employees.get(update.getKey());
+      if (employee == null) {
+        failures.add(new RowFailure(update.getKey(), update.getValue(), Reason.EMPLOYEE_NOT_FOUND, null));
+      } else if (!payrollService.isSalaryUpdateAllowed(employee, update.getValue())) {
+        failures.add(new RowFailure(update.getKey(), update.getValue(), Reason.NOT_ALLOWED, null));
+      } else {
+        allowed.add(update);
+      }
+    }
+    return allowed;
+  }
+
+  private static Map<Integer, Employee> getEmployees(Connection connection,
+                                                     List<Map.Entry<Integer, BigDecimal>> batch) throws SQLException {
+    String sql = "SELECT * FROM employees WHERE employee_id IN (" + String.join(", ", Collections.nCopies(batch.size(), "?")) + ")";
+
+    Map<Integer, Employee> employees = new HashMap<>();
+    try (PreparedStatement getByIds = connection.prepareStatement(sql)) {
+      for (int i = 0; i < batch.size(); i++) {
+        getByIds.setInt(i + 1, batch.get(i).getKey());
+      }
+      try (ResultSet resultSet = getByIds.executeQuery()) {
+        for (Employee employee : EmployeeRowMapper.forResultSet(resultSet).mapAll(resultSet)) {
+          employees.put(employee.getId(), employee);
+        }
+      }
+    }
+    return employees;
+  }
+
+  private static int executeBatch(Connection connection,
+                                  PreparedStatement incrementSalary,
+                                  List<Map.Entry<Integer, BigDecimal>> batch,
+                                  List<RowFailure> failures) throws SQLException {
+    if (batch.isEmpty()) {
+      return 0;
+    }
+
+    for (Map.Entry<Integer, BigDecimal> update : batch) {
+      incrementSalary.setBigDecimal(1, update.getValue());
+      incrementSalary.setInt(2, update.getKey());
+      incrementSalary.addBatch();
+    }
+
+    Savepoint beforeBatch = connection.setSavepoint();
+    int[] updateCounts;
+    try {
+      updateCounts = incrementSalary.executeBatch();
+    } catch (BatchUpdateException e) {
+      incrementSalary.clearBatch();
+      connection.rollback(beforeBatch);
+      return executeRowByRow(connection, incrementSalary, batch, failures);
+    }
+    connection.releaseSavepoint(beforeBatch);
+
+    int updatedRows = 0;
+    for (int i = 0; i < updateCounts.length; i++) {
+      if (updateCounts[i] == 0) {
+        // Deleted after it was validated.
+        Map.Entry<Integer, BigDecimal> update = batch.get(i);
+        failures.add(new RowFailure(update.getKey(), update.getValue(), Reason.EMPLOYEE_NOT_FOUND, null));
+      } else if (updateCounts[i] > 0 || updateCounts[i] == Statement.SUCCESS_NO_INFO) {
+        updatedRows++;
+      }
+    }
+    return updatedRows;
+  }
+
+  private static int executeRowByRow(Connection connection,
+                                     PreparedStatement incrementSalary,
+                                     List<Map.Entry<Integer, BigDecimal>> batch,
+                                     List<RowFailure> failures) throws SQLException {
+    int updatedRows = 0;
+    for (Map.Entry<Integer, BigDecimal> update : batch) {
+      incrementSalary.setBigDecimal(1, update.getValue());
+      incrementSalary.setInt(2, update.getKey());
+
+      Savepoint beforeRow = connection.setSavepoint();
+      try {
+        if (incrementSalary.executeUpdate() == 0) {
+          failures.add(new RowFailure(update.getKey(), update.getValue(), Reason.EMPLOYEE_NOT_FOUND, null));
+        } else {
+          updatedRows++;
+        }
+        connection.releaseSavepoint(beforeRow);
+      } catch (SQLException e) {
+        connection.rollback(beforeRow);
+        failures.add(new RowFailure(update.getKey(), update.getValue(), Reason.DATABASE_ERROR, e));
+      }
+    }
+    return updatedRows;
+  }
+
+  private static void rollback(Connection connection, Exception cause) {
+    try {
+      connection.rollback();
+    } catch (SQLException e) {
+      cause.addSuppressed(e);
+    }
+  }
+}
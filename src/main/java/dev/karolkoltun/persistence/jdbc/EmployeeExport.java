@@ -0,0 +1,109 @@
+package dev.karolkoltun.persistence.jdbc;
+
+import dev.karolkoltun.persistence.entity.Employee;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads the whole {@code employees} table as a stream - the driver fetches {@code fetchSize} rows at a time, so the
+ * memory needed does not grow with the table.
+ * <p>
+ * PostgreSQL uses a cursor only when the fetch size is set and auto-commit is off; otherwise it reads the whole result
+ * into memory before returning the first row. The stream turns auto-commit off for as long as it is open, if it is on;
+ * a transaction the caller has already begun is left to the caller. With MySQL the connection needs
+ * {@code useCursorFetch=true} for the fetch size to be respected.
+ */
+public class EmployeeExport {
+  private static final String SELECT_ALL = "SELECT * FROM employees";
+
+  private final int fetchSize;
+
+  public EmployeeExport(int fetchSize) {
+    if (fetchSize < 1) {
+      throw new IllegalArgumentException("The fetch size has to be positive, got " + fetchSize + ".");
+    }
+    this.fetchSize = fetchSize;
+  }
+
+  /**
+   * The stream has to be closed (e.g. with try-with-resources) - that closes the cursor and, if the stream has turned
+   * auto-commit off, ends its read-only transaction and turns auto-commit back on. The connection itself stays open.
+   */
+  public Stream<Employee> stream(Connection connection) throws SQLException {
+    boolean autoCommit = connection.getAutoCommit();
+    if (autoCommit) {
+      connection.setAutoCommit(false);
+    }
+
+    PreparedStatement selectAll = null;
+    try {
+      selectAll = connection.prepareStatement(SELECT_ALL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+      selectAll.setFetchSize(fetchSize);
+
+      ResultSet resultSet = selectAll.executeQuery();
+      EmployeeRowMapper employeeRowMapper = EmployeeRowMapper.forResultSet(resultSet);
+
+      PreparedStatement statement = selectAll;
+      return StreamSupport.stream(new Rows(resultSet, employeeRowMapper), false)
+          .onClose(() -> close(connection, statement, autoCommit));
+    } catch (SQLException | RuntimeException e) {
+      try {
+        close(connection, selectAll, autoCommit);
+      } catch (RuntimeException closeFailure) {
+        e.addSuppressed(closeFailure);
+      }
+      throw e;
+    }
+  }
+
+  // The transaction begun by the stream has only read, so there is nothing to commit. A transaction of the caller may
+  // hold uncommitted work - it is not ours to end.
+  private static void close(Connection connection, PreparedStatement statement, boolean autoCommit) {
+    try {
+      try {
+        if (statement != null) {
+          statement.close();
+        }
+      } finally {
+        if (autoCommit) {
+          connection.rollback();
+          connection.setAutoCommit(true);
+        }
+      }
+    } catch (SQLException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static class Rows extends Spliterators.AbstractSpliterator<Employee> {
+    private final ResultSet resultSet;
+    private final EmployeeRowMapper employeeRowMapper;
+
+    private Rows(ResultSet resultSet, EmployeeRowMapper employeeRowMapper) {
+      super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+      this.resultSet = resultSet;
+      this.employeeRowMapper = employeeRowMapper;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Employee> action) {
+      try {
+        if (!resultSet.next()) {
+          return false;
+        }
+        action.accept(employeeRowMapper.map(resultSet));
+        return true;
+      } catch (SQLException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+}
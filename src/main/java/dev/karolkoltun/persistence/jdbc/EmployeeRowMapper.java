@@ -0,0 +1,69 @@
+package dev.karolkoltun.persistence.jdbc;
+
+import dev.karolkoltun.persistence.entity.Employee;
+import dev.karolkoltun.persistence.entity.JobId;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+/**
+ * Maps rows of the {@code employees} table. Looking a column up by name is a search through the columns of the result
+ * set on every call, so the indexes are resolved once, from the metadata, and the rows are then read by index.
+ * <p>
+ * {@code hire_date} is read as {@link LocalDate} directly instead of through {@link java.sql.Date}, and {@code job_id}
+ * is decoded with {@link JobId#fromCode(String)}.
+ */
+public final class EmployeeRowMapper implements RowMapper<Employee> {
+  private final int employeeId;
+  private final int firstName;
+  private final int lastName;
+  private final int email;
+  private final int phoneNumber;
+  private final int hireDate;
+  private final int jobId;
+  private final int salary;
+
+  private EmployeeRowMapper(ResultSetMetaData metaData) throws SQLException {
+    this.employeeId = indexOf(metaData, "employee_id");
+    this.firstName = indexOf(metaData, "first_name");
+    this.lastName = indexOf(metaData, "last_name");
+    this.email = indexOf(metaData, "email");
+    this.phoneNumber = indexOf(metaData, "phone_number");
+    this.hireDate = indexOf(metaData, "hire_date");
+    this.jobId = indexOf(metaData, "job_id");
+    this.salary = indexOf(metaData, "salary");
+  }
+
+  public static EmployeeRowMapper forMetaData(ResultSetMetaData metaData) throws SQLException {
+    return new EmployeeRowMapper(metaData);
+  }
+
+  public static EmployeeRowMapper forResultSet(ResultSet resultSet) throws SQLException {
+    return new EmployeeRowMapper(resultSet.getMetaData());
+  }
+
+  @Override
+  public Employee map(ResultSet resultSet) throws SQLException {
+    return new Employee(
+        resultSet.getInt(employeeId),
+        resultSet.getString(firstName),
+        resultSet.getString(lastName),
+        resultSet.getString(email),
+        resultSet.getString(phoneNumber),
+        resultSet.getObject(hireDate, LocalDate.class),
+        JobId.fromCode(resultSet.getString(jobId)),
+        resultSet.getBigDecimal(salary));
+  }
+
+  // Labels are compared ignoring case - H2 reports them in upper case unless told otherwise.
+  private static int indexOf(ResultSetMetaData metaData, String column) throws SQLException {
+    for (int i = 1; i <= metaData.getColumnCount(); i++) {
+      if (column.equalsIgnoreCase(metaData.getColumnLabel(i))) {
+        return i;
+      }
+    }
+    throw new IllegalArgumentException("The result set has no " + column + " column.");
+  }
+}
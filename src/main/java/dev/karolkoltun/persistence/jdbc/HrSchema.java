@@ -0,0 +1,79 @@
+package dev.karolkoltun.persistence.jdbc;
+
+import org.apache.ibatis.jdbc.ScriptRunner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.apache.ibatis.io.Resources.getResourceAsReader;
+
+/**
+ * The hr schema of the H2 database the JDBC tests run on.
+ * <p>
+ * {@link #load(Connection)} runs {@code init-hr-schema.sql} through {@link ScriptRunner} - statement by statement, a
+ * round trip for each of its few hundred statements, most of them single-row inserts. A {@link Snapshot} of the loaded
+ * schema is a compressed script written by the database itself ({@code SCRIPT TO ... COMPRESSION DEFLATE}); restoring
+ * it is one {@code RUNSCRIPT}, executed on the server.
+ */
+public final class HrSchema {
+  public static final String URL = "jdbc:h2:tcp://localhost/~/hr;DATABASE_TO_UPPER=false";
+
+  private HrSchema() {
+  }
+
+  /**
+   * Drops the schema, if there is one, and creates it again from {@code init-hr-schema.sql}.
+   */
+  public static void load(Connection connection) throws IOException {
+    load(connection, true);
+  }
+
+  /**
+   * Like {@link #load(Connection)}, optionally without printing every statement to {@code System.out}.
+   */
+  public static void load(Connection connection, boolean logStatements) throws IOException {
+    ScriptRunner runner = new ScriptRunner(connection);
+
+    if (!logStatements) {
+      runner.setLogWriter(null);
+    }
+    runner.setAutoCommit(true);
+    runner.setStopOnError(true);
+    runner.runScript(getResourceAsReader("init-hr-schema.sql"));
+  }
+
+  /**
+   * Writes the current state of the schema - tables, data, sequences and views - to a temporary file, deleted when
+   * the JVM exits. The file is written and read by the H2 server, so the server has to run on this machine.
+   */
+  public static Snapshot snapshot(Connection connection) throws IOException, SQLException {
+    Path file = Files.createTempFile("hr-schema", ".sql.deflate");
+    file.toFile().deleteOnExit();
+
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("SCRIPT TO " + quote(file) + " COMPRESSION DEFLATE SCHEMA hr");
+    }
+    return new Snapshot(file);
+  }
+
+  public record Snapshot(Path file) {
+
+    /**
+     * Drops the schema, whatever has been done to it, and creates it again as it was when the snapshot was taken.
+     */
+    public void restore(Connection connection) throws SQLException {
+      try (Statement statement = connection.createStatement()) {
+        statement.execute("DROP SCHEMA IF EXISTS hr CASCADE");
+        statement.execute("RUNSCRIPT FROM " + quote(file) + " COMPRESSION DEFLATE");
+      }
+    }
+  }
+
+  private static String quote(Path file) {
+    return "'" + file.toAbsolutePath().toString().replace("'", "''") + "'";
+  }
+}
@@ -0,0 +1,44 @@
+package dev.karolkoltun.persistence.jdbc;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HrSchemaTest extends JdbcTest {
+
+  @Test
+  void restoreUndoesChangesOfPreviousTest() throws Exception {
+    // GIVEN
+    try (Connection connection = getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.executeUpdate("DELETE FROM job_history");
+      statement.executeUpdate("UPDATE employees SET salary = 1 WHERE employee_id = 100");
+      statement.executeQuery("SELECT NEXT VALUE FOR employees_seq").close();
+      statement.executeUpdate("DROP VIEW emp_details_view");
+    }
+
+    // WHEN
+    // What every test starts with.
+    beforeEach();
+
+    // THEN
+    try (Connection connection = getConnection();
+        Statement statement = connection.createStatement()) {
+      assertThat(queryLong(statement, "SELECT COUNT(*) FROM job_history")).isEqualTo(10);
+      assertThat(queryLong(statement, "SELECT salary FROM employees WHERE employee_id = 100")).isEqualTo(24000);
+      assertThat(queryLong(statement, "SELECT NEXT VALUE FOR employees_seq")).isEqualTo(1000);
+      assertThat(queryLong(statement, "SELECT COUNT(*) FROM emp_details_view")).isEqualTo(106);
+    }
+  }
+
+  private static long queryLong(Statement statement, String sql) throws Exception {
+    try (ResultSet resultSet = statement.executeQuery(sql)) {
+      resultSet.next();
+      return resultSet.getLong(1);
+    }
+  }
+}
@@ -1,6 +1,5 @@
 package dev.karolkoltun.persistence.jdbc;
 
-import org.apache.ibatis.jdbc.ScriptRunner;
 import org.h2.tools.Server;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -9,21 +8,21 @@ import org.junit.jupiter.api.BeforeEach;
 import java.sql.Connection;
 import java.sql.DriverManager;
 
-import static org.apache.ibatis.io.Resources.getResourceAsReader;
-
 class JdbcTest {
   private static Server server;
+  // The script is run once per JVM - every test after that starts from the snapshot of its result.
+  private static HrSchema.Snapshot snapshot;
 
   @BeforeEach
   void beforeEach() throws Exception {
-    Connection connection = DriverManager.getConnection("jdbc:h2:tcp://localhost/~/hr;DATABASE_TO_UPPER=false", "user", "sa");
-    ScriptRunner runner = new ScriptRunner(connection);
-
-    runner.setAutoCommit(true);
-    runner.setStopOnError(true);
-    runner.runScript(getResourceAsReader("init-hr-schema.sql"));
-
-    connection.close();
+    try (Connection connection = DriverManager.getConnection(HrSchema.URL, "user", "sa")) {
+      if (snapshot == null) {
+        HrSchema.load(connection);
+        snapshot = HrSchema.snapshot(connection);
+      } else {
+        snapshot.restore(connection);
+      }
+    }
   }
 
   @BeforeAll
@@ -0,0 +1,26 @@
+package dev.karolkoltun.persistence.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps the current row of a result set. Implementations are meant to be created once per result set (see
+ * {@link EmployeeRowMapper#forMetaData(java.sql.ResultSetMetaData)}), so that the per-row work is just reading values.
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+  T map(ResultSet resultSet) throws SQLException;
+
+  /**
+   * Maps all the remaining rows of the result set.
+   */
+  default List<T> mapAll(ResultSet resultSet) throws SQLException {
+    List<T> rows = new ArrayList<>();
+    while (resultSet.next()) {
+      rows.add(map(resultSet));
+    }
+    return rows;
+  }
+}
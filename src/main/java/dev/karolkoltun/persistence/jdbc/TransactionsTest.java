@@ -8,8 +8,11 @@ import org.junit.jupiter.api.Test;
 import java.math.BigDecimal;
 import java.sql.*;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import static dev.karolkoltun.persistence.jdbc.BatchSalaryUpdateService.Reason.EMPLOYEE_NOT_FOUND;
+import static dev.karolkoltun.persistence.jdbc.BatchSalaryUpdateService.Reason.NOT_ALLOWED;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class TransactionsTest extends JdbcTest {
@@ -44,39 +47,21 @@ class TransactionsTest extends JdbcTest {
     });
 
     // When
-    PreparedStatement updateSalary = null;
-    Connection connection = getConnection();
-
-    try {
-      connection.setAutoCommit(false);
-      updateSalary = connection.prepareStatement(incrementSalaryString);
-
-      for (Map.Entry<Integer, BigDecimal> entry : plannedUpdateSalaries.entrySet()) {
-        updateSalary.setBigDecimal(1, entry.getValue());
-        updateSalary.setInt(2, entry.getKey());
-        updateSalary.executeUpdate();
-        connection.commit();
-      }
-    } catch (SQLException e) {
-      e.printStackTrace();
-
-      try {
-        System.err.print("Transaction is being rolled back");
-        connection.rollback();
-      } catch (SQLException excep) {
-        e.printStackTrace();
-      }
-    } finally {
-      if (updateSalary != null) {
-        updateSalary.close();
-      }
-      connection.setAutoCommit(true);
+    BatchSalaryUpdateService.Report report;
+    try (Connection connection = getConnection()) {
+      report = new BatchSalaryUpdateService(payrollService, 2, BatchSalaryUpdateService.CommitMode.SINGLE_TRANSACTION)
+          .incrementSalaries(connection, plannedUpdateSalaries);
     }
 
     // Then
+    // Alexander Hunold (103) earns 9000, so the raise would be more than 10 percent.
+    assertEquals(3, report.updatedRows());
+    assertEquals(2, report.batches());
+    assertEquals(List.of(new BatchSalaryUpdateService.RowFailure(103, BigDecimal.valueOf(1000), NOT_ALLOWED, null)), report.failures());
+
     salariesBeforeUpdate.forEach((id, oldSalary) -> {
       try {
-        BigDecimal update = plannedUpdateSalaries.get(id);
+        BigDecimal update = id == 103 ? BigDecimal.ZERO : plannedUpdateSalaries.get(id);
         assertEquals(oldSalary.add(update), getEmployeeById(id).getSalary());
       } catch (Exception e) {
         throw new RuntimeException(e);
@@ -84,6 +69,27 @@ class TransactionsTest extends JdbcTest {
     });
   }
 
+  @Test
+  void reportMissingEmployeesWithoutAbortingTheBatch() throws Exception {
+    // Given
+    BigDecimal oldSalary = getEmployeeById(100).getSalary();
+    Map<Integer, BigDecimal> salaryUpdates = Map.of(
+        100, BigDecimal.valueOf(100),
+        99999, BigDecimal.valueOf(100));
+
+    // When
+    BatchSalaryUpdateService.Report report;
+    try (Connection connection = getConnection()) {
+      report = new BatchSalaryUpdateService(payrollService, 100, BatchSalaryUpdateService.CommitMode.PER_BATCH)
+          .incrementSalaries(connection, salaryUpdates);
+    }
+
+    // Then
+    assertEquals(1, report.updatedRows());
+    assertEquals(List.of(new BatchSalaryUpdateService.RowFailure(99999, BigDecimal.valueOf(100), EMPLOYEE_NOT_FOUND, null)), report.failures());
+    assertEquals(oldSalary.add(BigDecimal.valueOf(100)), getEmployeeById(100).getSalary());
+  }
+
   @Test
   void rollbackEmployeeSalaryUpdates() throws Exception {
     // Given
@@ -0,0 +1,55 @@
+package dev.karolkoltun.persistence.jpa;
+
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+
+import javax.persistence.EntityManager;
+import java.util.function.Consumer;
+
+/**
+ * Goes through the results of a query one entity at a time, instead of loading them all with
+ * {@code getResultList()}. The rows come from a forward-only cursor, {@code fetchSize} at a time, and the persistence
+ * context is cleared every {@code clearEvery} entities - otherwise it would keep every entity read so far.
+ * <p>
+ * The entities are loaded as read-only and detached soon after they are passed to the consumer, so changing them has
+ * no effect. Lazy associations have to be read in the consumer, before the entity gets detached.
+ */
+public class EntityScroller {
+  private final int fetchSize;
+  private final int clearEvery;
+
+  public EntityScroller(int fetchSize, int clearEvery) {
+    if (fetchSize < 1 || clearEvery < 1) {
+      throw new IllegalArgumentException(String.format("The fetch size (%d) and the clear interval (%d) have to be positive.", fetchSize, clearEvery));
+    }
+    this.fetchSize = fetchSize;
+    this.clearEvery = clearEvery;
+  }
+
+  /**
+   * Runs within the current transaction of the entity manager.
+   *
+   * @return number of entities passed to the consumer
+   */
+  public <T> long forEach(EntityManager entityManager, String jpql, Class<T> type, Consumer<? super T> consumer) {
+    Session session = entityManager.unwrap(Session.class);
+    Query<T> query = session.createQuery(jpql, type)
+        .setReadOnly(true)
+        .setFetchSize(fetchSize)
+        .setCacheMode(CacheMode.IGNORE);
+
+    long count = 0;
+    try (ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY)) {
+      while (results.next()) {
+        consumer.accept(type.cast(results.get(0)));
+        if (++count % clearEvery == 0) {
+          session.clear();
+        }
+      }
+    }
+    return count;
+  }
+}
@@ -1,5 +1,10 @@
 package dev.karolkoltun.persistence.jpa;
 
+import dev.karolkoltun.persistence.BatchSettings;
+import dev.karolkoltun.persistence.CacheSettings;
+import dev.karolkoltun.persistence.metrics.MeteredConnectionProvider;
+import dev.karolkoltun.persistence.metrics.SqlLogging;
+
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.Persistence;
@@ -17,6 +22,13 @@ class JpaSetup {
   private final EntityManagerFactory entityManagerFactory;
 
   JpaSetup(String persistenceUnitName, String hibernateDialect) {
+    this(persistenceUnitName, hibernateDialect, null);
+  }
+
+  /**
+   * @param cacheSettings second-level and query cache settings, or null to leave the caches off
+   */
+  JpaSetup(String persistenceUnitName, String hibernateDialect, CacheSettings cacheSettings) {
     this.persistenceUnitName = persistenceUnitName;
 
     // No automatic scanning by Hibernate, all persistence units list explicit classes/packages
@@ -25,19 +37,36 @@ class JpaSetup {
         "none"
     );
 
-    // Nice SQL logging
+    // Nice SQL logging, unless turned off with -DshowSql=false
+    String showSql = String.valueOf(SqlLogging.isEnabled());
     properties.put(
         "hibernate.show_sql",
-        "true"
+        showSql
     );
     properties.put(
         "hibernate.format_sql",
-        "true"
+        showSql
     );
     properties.put(
         "hibernate.use_sql_comments",
+        showSql
+    );
+
+    // Statement shapes and call sites for SqlCapture and NPlusOneDetector
+    properties.put(
+        "hibernate.connection.provider_class",
+        MeteredConnectionProvider.class.getName()
+    );
+
+    // Statement, entity and cache counters, see SessionFactory#getStatistics()
+    properties.put(
+        "hibernate.generate_statistics",
         "true"
     );
+    properties.put(
+        "hibernate.session.events.log",
+        "false"
+    );
 
     // When EntityManager#remove() is called, reset identifier value of the entity.
     // It then can be considered transient.
@@ -51,6 +80,13 @@ class JpaSetup {
         hibernateDialect
     );
 
+    // Send inserts and updates in JDBC batches, sorted by entity type and id, instead of one round trip per entity.
+    properties.putAll(BatchSettings.defaults().toProperties());
+
+    if (cacheSettings != null) {
+      properties.putAll(cacheSettings.toProperties());
+    }
+
     entityManagerFactory =
         Persistence.createEntityManagerFactory(persistenceUnitName, properties);
   }
@@ -1,5 +1,6 @@
 package dev.karolkoltun.persistence.jpa;
 
+import dev.karolkoltun.persistence.CacheSettings;
 import dev.karolkoltun.persistence.entity.Employee;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
@@ -8,6 +9,7 @@ import org.junit.jupiter.api.BeforeEach;
 
 import javax.persistence.EntityManager;
 import javax.transaction.UserTransaction;
+import java.util.Optional;
 
 /**
  * Class used for starting JPA environment before and after a test class. Class inspired by test
@@ -26,7 +28,7 @@ class JpaTest {
 
   @BeforeEach
   void beforeEach() {
-    JPA = new JpaSetup(PERSISTENCE_UNIT_NAME, TM.getHibernateDialect());
+    JPA = new JpaSetup(PERSISTENCE_UNIT_NAME, TM.getHibernateDialect(), getCacheSettings().orElse(null));
 
     // Always drop the schema, cleaning up at least some of the artifacts
     // that might be left over from the last run, if it didn't cleanup
@@ -36,6 +38,13 @@ class JpaTest {
     JPA.createSchema();
   }
 
+  /**
+   * When present, the second-level and query caches are enabled.
+   */
+  Optional<CacheSettings> getCacheSettings() {
+    return Optional.empty();
+  }
+
   @AfterAll
   static void afterAll() {
     if (TM != null) {
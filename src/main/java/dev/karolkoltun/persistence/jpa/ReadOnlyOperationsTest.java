@@ -242,4 +242,39 @@ class ReadOnlyOperationsTest extends JpaTest {
       TM.rollback();
     }
   }
+
+  @Test
+  void shouldScrollThroughEmployeesKeepingPersistenceContextSmall() throws Exception {
+    try {
+      // GIVEN
+      int employees = 25;
+      int clearEvery = 10;
+      for (int id = 1; id <= employees; id++) {
+        save(exampleEmployee(id, "Jane", "Doe"));
+      }
+
+      EntityManager entityManager = JPA.createEntityManager();
+      UserTransaction transaction = TM.getUserTransaction();
+
+      transaction.begin();
+
+      // WHEN
+      Session session = entityManager.unwrap(Session.class);
+      int[] maxManagedEntities = new int[1];
+      long scrolled = new EntityScroller(5, clearEvery).forEach(entityManager, "SELECT e FROM Employee e", Employee.class, employee -> {
+        assertTrue(session.isReadOnly(employee));
+        maxManagedEntities[0] = Math.max(maxManagedEntities[0], session.getStatistics().getEntityCount());
+      });
+
+      transaction.commit();
+      entityManager.close();
+
+      // THEN
+      // All the employees went through, but the persistence context never held more than clearEvery of them.
+      assertEquals(employees, scrolled);
+      assertEquals(clearEvery, maxManagedEntities[0]);
+    } finally {
+      TM.rollback();
+    }
+  }
 }
@@ -1,6 +1,8 @@
 package dev.karolkoltun.persistence.jpa;
 
 import dev.karolkoltun.persistence.entity.Employee;
+import dev.karolkoltun.persistence.metrics.NPlusOneDetector;
+import dev.karolkoltun.persistence.metrics.NPlusOneDetector.NPlusOneQueriesError;
 import org.hibernate.Hibernate;
 import org.hibernate.LazyInitializationException;
 import org.junit.jupiter.api.Test;
@@ -9,6 +11,7 @@ import javax.persistence.EntityManager;
 import javax.persistence.EntityNotFoundException;
 import javax.persistence.PersistenceUnitUtil;
 import javax.transaction.UserTransaction;
+import java.util.List;
 
 import static dev.karolkoltun.persistence.jpa.TestUtils.exampleEmployee;
 import static org.junit.jupiter.api.Assertions.*;
@@ -181,4 +184,47 @@ class ReferencesTest extends JpaTest {
       TM.rollback();
     }
   }
+
+  @Test
+  void shouldDetectOneQueryPerReferenceInitializedInLoop() throws Exception {
+    try {
+      // GIVEN
+      List<Integer> ids = List.of(1, 2, 3, 4, 5);
+      for (Integer id : ids) {
+        save(exampleEmployee(id, "Jane", "Doe"));
+      }
+
+      EntityManager entityManager = JPA.createEntityManager();
+      UserTransaction transaction = TM.getUserTransaction();
+      NPlusOneDetector detector = new NPlusOneDetector(3, NPlusOneDetector.Mode.FAIL);
+
+      transaction.begin();
+
+      // WHEN
+      // Every reference is initialized on its own, with a query of its own
+      NPlusOneQueriesError error = assertThrows(NPlusOneQueriesError.class, () -> detector.run(() -> {
+        for (Integer id : ids) {
+          entityManager.getReference(Employee.class, id).getFirstName();
+        }
+      }));
+
+      // Loading them all with one query is fine
+      List<Employee> employees = detector.get(() -> entityManager
+          .createQuery("SELECT e FROM Employee e WHERE e.id IN :ids", Employee.class)
+          .setParameter("ids", ids)
+          .getResultList());
+
+      // THEN
+      assertEquals(1, error.getRepeatedStatements().size());
+      assertEquals(ids.size(), error.getRepeatedStatements().get(0).executions());
+      // The report points at the getter called in the loop
+      assertTrue(error.getMessage().contains(ReferencesTest.class.getName()), error.getMessage());
+      assertEquals(ids.size(), employees.size());
+
+      transaction.commit();
+      entityManager.close();
+    } finally {
+      TM.rollback();
+    }
+  }
 }
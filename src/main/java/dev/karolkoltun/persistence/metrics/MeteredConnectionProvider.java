@@ -0,0 +1,89 @@
+package dev.karolkoltun.persistence.metrics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.jdbc.connections.internal.DatasourceConnectionProviderImpl;
+import org.hibernate.engine.jdbc.connections.internal.DriverManagerConnectionProviderImpl;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.jndi.spi.JndiService;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.ServiceRegistryAwareService;
+import org.hibernate.service.spi.ServiceRegistryImplementor;
+import org.hibernate.service.spi.Stoppable;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Hands out the connections of the standard Hibernate connection provider - a given datasource or the built-in
+ * DriverManager pool, chosen the same way Hibernate does - wrapped so that every statement is recorded in
+ * {@link #getSqlMetrics()} and in the {@link SqlCapture}s of the executing thread.
+ * <p>
+ * Enabled with {@code hibernate.connection.provider_class}. Unlike a {@code StatementInspector}, which only sees the
+ * SQL, this also sees how long the statement took and how many rows it returned.
+ */
+public class MeteredConnectionProvider implements ConnectionProvider, Configurable, ServiceRegistryAwareService, Stoppable {
+    private static final long serialVersionUID = 1L;
+
+    private final transient SqlMetrics sqlMetrics = new SqlMetrics();
+    private transient ServiceRegistryImplementor serviceRegistry;
+    private ConnectionProvider delegate;
+
+    @Override
+    public void injectServices(ServiceRegistryImplementor serviceRegistry) {
+        this.serviceRegistry = serviceRegistry;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void configure(Map configurationValues) {
+        if (configurationValues.get(AvailableSettings.DATASOURCE) != null) {
+            DatasourceConnectionProviderImpl datasourceConnectionProvider = new DatasourceConnectionProviderImpl();
+            datasourceConnectionProvider.setJndiService(serviceRegistry.getService(JndiService.class));
+            datasourceConnectionProvider.configure(configurationValues);
+            delegate = datasourceConnectionProvider;
+        } else {
+            DriverManagerConnectionProviderImpl driverManagerConnectionProvider = new DriverManagerConnectionProviderImpl();
+            driverManagerConnectionProvider.injectServices(serviceRegistry);
+            driverManagerConnectionProvider.configure(configurationValues);
+            delegate = driverManagerConnectionProvider;
+        }
+    }
+
+    public SqlMetrics getSqlMetrics() {
+        return sqlMetrics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return MeteredJdbc.wrap(delegate.getConnection(), sqlMetrics);
+    }
+
+    @Override
+    public void closeConnection(Connection connection) throws SQLException {
+        delegate.closeConnection(MeteredJdbc.unwrap(connection));
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return delegate.supportsAggressiveRelease();
+    }
+
+    @Override
+    public void stop() {
+        if (delegate instanceof Stoppable stoppable) {
+            stoppable.stop();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public boolean isUnwrappableAs(Class unwrapType) {
+        return unwrapType.isInstance(this) || delegate.isUnwrappableAs(unwrapType);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> unwrapType) {
+        return unwrapType.isInstance(this) ? unwrapType.cast(this) : delegate.unwrap(unwrapType);
+    }
+}
@@ -0,0 +1,177 @@
+package dev.karolkoltun.persistence.metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Dynamic proxies around a connection and the statements and result sets created with it. Every {@code execute*} call
+ * is timed and recorded under the shape of its SQL, and the rows read from the result sets are added to it.
+ */
+final class MeteredJdbc {
+    private MeteredJdbc() {
+    }
+
+    static Connection wrap(Connection connection, SqlMetrics metrics) {
+        return proxy(Connection.class, new ConnectionHandler(connection, metrics));
+    }
+
+    static Connection unwrap(Connection connection) {
+        if (Proxy.isProxyClass(connection.getClass()) && Proxy.getInvocationHandler(connection) instanceof ConnectionHandler handler) {
+            return handler.connection;
+        }
+        return connection;
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(MeteredJdbc.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Hibernate keeps the statements and result sets in hash maps - a proxy has to be equal only to itself.
+    private static Object identity(Object proxy, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            default -> null;
+        };
+    }
+
+    private static boolean isIdentityMethod(Method method) {
+        return method.getDeclaringClass() == Object.class && !method.getName().equals("toString");
+    }
+
+    private record ConnectionHandler(Connection connection, SqlMetrics metrics) implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (isIdentityMethod(method)) {
+                return identity(proxy, method, args);
+            }
+            Object result = MeteredJdbc.invoke(connection, method, args);
+            if (result instanceof Statement statement) {
+                // prepareStatement and prepareCall get the SQL up front, createStatement gets it on execute.
+                String sql = args != null && args.length > 0 && args[0] instanceof String string ? string : null;
+                return proxy(method.getReturnType().asSubclass(Statement.class), new StatementHandler(statement, sql, metrics));
+            }
+            return result;
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final String preparedShape;
+        private final SqlMetrics metrics;
+        // Shape of a plain statement batch - the one of the first statement added to it.
+        private String batchShape;
+        private String lastShape;
+
+        private StatementHandler(Statement statement, String sql, SqlMetrics metrics) {
+            this.statement = statement;
+            this.preparedShape = sql == null ? null : SqlShape.of(sql);
+            this.metrics = metrics;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (isIdentityMethod(method)) {
+                return identity(proxy, method, args);
+            }
+            String name = method.getName();
+            String sql = args != null && args.length > 0 && args[0] instanceof String string ? string : null;
+            if (name.equals("addBatch") && sql != null && batchShape == null) {
+                batchShape = SqlShape.of(sql);
+            } else if (name.equals("clearBatch")) {
+                batchShape = null;
+            }
+            if (!name.startsWith("execute")) {
+                Object result = MeteredJdbc.invoke(statement, method, args);
+                // After execute(), which returns only a flag.
+                return name.equals("getResultSet") ? wrapResultSet(result, lastShape) : result;
+            }
+
+            String shape = shapeOf(name, sql);
+            lastShape = shape;
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = MeteredJdbc.invoke(statement, method, args);
+            } finally {
+                metrics.recordExecution(shape, System.nanoTime() - start);
+                SqlCapture.record(shape);
+                if (name.endsWith("Batch")) {
+                    batchShape = null;
+                }
+            }
+
+            if (result instanceof Integer updated && updated > 0) {
+                metrics.recordRows(shape, updated);
+            } else if (result instanceof Long updated && updated > 0) {
+                metrics.recordRows(shape, updated);
+            } else if (result instanceof int[] batch) {
+                metrics.recordRows(shape, sumUpdated(batch));
+            } else if (result instanceof long[] batch) {
+                metrics.recordRows(shape, sumUpdated(batch));
+            }
+            return wrapResultSet(result, shape);
+        }
+
+        private String shapeOf(String name, String sql) {
+            if (sql != null) {
+                return SqlShape.of(sql);
+            }
+            if (preparedShape != null) {
+                return preparedShape;
+            }
+            return name.endsWith("Batch") && batchShape != null ? batchShape : "<unknown>";
+        }
+
+        private Object wrapResultSet(Object result, String shape) {
+            if (result instanceof ResultSet resultSet && shape != null) {
+                return proxy(ResultSet.class, new ResultSetHandler(resultSet, shape, metrics));
+            }
+            return result;
+        }
+
+        // Statement.SUCCESS_NO_INFO and EXECUTE_FAILED are negative.
+        private static long sumUpdated(int[] batch) {
+            long updated = 0;
+            for (int count : batch) {
+                updated += Math.max(count, 0);
+            }
+            return updated;
+        }
+
+        private static long sumUpdated(long[] batch) {
+            long updated = 0;
+            for (long count : batch) {
+                updated += Math.max(count, 0);
+            }
+            return updated;
+        }
+    }
+
+    private record ResultSetHandler(ResultSet resultSet, String shape, SqlMetrics metrics) implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (isIdentityMethod(method)) {
+                return identity(proxy, method, args);
+            }
+            Object result = MeteredJdbc.invoke(resultSet, method, args);
+            if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+                metrics.recordRows(shape, 1);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package dev.karolkoltun.persistence.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Catches a block of data access code issuing the same query over and over - typically one query per entity of a
+ * collection, when lazy associations or {@code getReference()} proxies are initialized one by one in a loop. On a
+ * database across the network every one of these queries is a round trip, so they add up quickly.
+ * <p>
+ * The statements executed by the current thread in the block are grouped by their shape (the SQL with the literals
+ * replaced), and every shape executed more than {@code threshold} times is reported with the lines of code that caused
+ * it. Only statements going through a {@link MeteredConnectionProvider} are seen.
+ */
+public class NPlusOneDetector {
+    private static final Logger log = LoggerFactory.getLogger(NPlusOneDetector.class);
+
+    public enum Mode {
+        /**
+         * Log the report and carry on.
+         */
+        WARN,
+        /**
+         * Throw {@link NPlusOneQueriesError} with the report.
+         */
+        FAIL
+    }
+
+    private final int threshold;
+    private final Mode mode;
+
+    /**
+     * @param threshold how many times the same statement shape may run in one block
+     */
+    public NPlusOneDetector(int threshold, Mode mode) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException(String.format("The threshold (%d) has to be positive.", threshold));
+        }
+        this.threshold = threshold;
+        this.mode = mode;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void run(Runnable block) {
+        get(() -> {
+            block.run();
+            return null;
+        });
+    }
+
+    /**
+     * The block is not checked if it fails - its own exception is more interesting.
+     */
+    public <T> T get(Supplier<T> block) {
+        T result;
+        List<RepeatedStatement> repeatedStatements;
+        try (SqlCapture capture = SqlCapture.startWithCallSites()) {
+            result = block.get();
+            repeatedStatements = findRepeatedStatements(capture);
+        }
+
+        if (!repeatedStatements.isEmpty()) {
+            String report = report(repeatedStatements);
+            if (mode == Mode.FAIL) {
+                throw new NPlusOneQueriesError(report, repeatedStatements);
+            }
+            log.warn(report);
+        }
+        return result;
+    }
+
+    /**
+     * @return statement shapes executed more than {@code threshold} times, the most frequent first
+     */
+    public List<RepeatedStatement> findRepeatedStatements(SqlCapture capture) {
+        Map<String, List<SqlCapture.CapturedStatement>> byShape = capture.getCapturedStatements().stream()
+                .collect(Collectors.groupingBy(SqlCapture.CapturedStatement::sql, LinkedHashMap::new, Collectors.toList()));
+
+        List<RepeatedStatement> repeatedStatements = new ArrayList<>();
+        byShape.forEach((sql, statements) -> {
+            if (statements.size() > threshold) {
+                Map<String, Long> callSites = statements.stream()
+                        .collect(Collectors.groupingBy(statement -> String.valueOf(statement.callSite()),
+                                LinkedHashMap::new, Collectors.counting()));
+                repeatedStatements.add(new RepeatedStatement(sql, statements.size(), callSites));
+            }
+        });
+        repeatedStatements.sort(Comparator.comparingInt(RepeatedStatement::executions).reversed());
+        return repeatedStatements;
+    }
+
+    private String report(List<RepeatedStatement> repeatedStatements) {
+        StringBuilder report = new StringBuilder(String.format(
+                "N+1 queries: %d statement(s) executed more than %d times in one block:", repeatedStatements.size(), threshold));
+        for (RepeatedStatement statement : repeatedStatements) {
+            report.append(String.format("%n  %dx %s", statement.executions(), statement.sql()));
+            statement.callSites().forEach((callSite, count) -> report.append(String.format("%n    %dx at %s", count, callSite)));
+        }
+        return report.toString();
+    }
+
+    /**
+     * @param callSites number of executions per line of code, in the order of the first execution
+     */
+    public record RepeatedStatement(String sql, int executions, Map<String, Long> callSites) {
+    }
+
+    /**
+     * An {@link AssertionError}, so that it's reported as a test failure and never retried as a database error.
+     */
+    public static class NPlusOneQueriesError extends AssertionError {
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<RepeatedStatement> repeatedStatements;
+
+        NPlusOneQueriesError(String message, List<RepeatedStatement> repeatedStatements) {
+            super(message);
+            this.repeatedStatements = List.copyOf(repeatedStatements);
+        }
+
+        public List<RepeatedStatement> getRepeatedStatements() {
+            return repeatedStatements;
+        }
+    }
+}
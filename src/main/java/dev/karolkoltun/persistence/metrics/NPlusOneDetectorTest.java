@@ -0,0 +1,122 @@
+package dev.karolkoltun.persistence.metrics;
+
+import dev.karolkoltun.persistence.DataSourceProvider;
+import dev.karolkoltun.persistence.H2HrDataSourceProvider;
+import dev.karolkoltun.persistence.HibernateTest;
+import dev.karolkoltun.persistence.entity.Country;
+import dev.karolkoltun.persistence.entity.Region;
+import dev.karolkoltun.persistence.metrics.NPlusOneDetector.NPlusOneQueriesError;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class NPlusOneDetectorTest extends HibernateTest {
+    private static final int THRESHOLD = 2;
+    private static final String ALL_COUNTRIES = "SELECT c FROM Country c ORDER BY c.id";
+
+    private NPlusOneDetector detector;
+
+    @Override
+    public DataSourceProvider dataSourceProvider() {
+        return new H2HrDataSourceProvider();
+    }
+
+    @Override
+    public boolean recreateBeforeEachTest() {
+        return true;
+    }
+
+    @Override
+    public Optional<NPlusOneDetector> getNPlusOneDetector() {
+        return Optional.ofNullable(detector);
+    }
+
+    @Override
+    @BeforeEach
+    protected void beforeEach() {
+        super.beforeEach();
+        detector = new NPlusOneDetector(THRESHOLD, NPlusOneDetector.Mode.FAIL);
+
+        // Every country in a region of its own, so that every region has to be loaded separately.
+        doInHibernate(session -> {
+            String[][] countries = {{"PL", "Poland"}, {"BR", "Brazil"}, {"JP", "Japan"}};
+            for (int i = 0; i < countries.length; i++) {
+                Region region = new Region(i, "Region " + i);
+                session.persist(region);
+                session.persist(new Country(countries[i][0], countries[i][1], region));
+            }
+        });
+    }
+
+    @Test
+    void shouldFailBlockLoadingLazyAssociationOneByOne() {
+        // WHEN
+        Throwable failure = catchThrowable(() -> doInHibernateReadOnly(session -> session
+                .createQuery(ALL_COUNTRIES, Country.class)
+                .list()
+                .forEach(country -> country.getRegion().getName())));
+
+        // THEN
+        assertThat(failure).isInstanceOf(NPlusOneQueriesError.class);
+        List<NPlusOneDetector.RepeatedStatement> repeatedStatements = ((NPlusOneQueriesError) failure).getRepeatedStatements();
+        assertThat(repeatedStatements).singleElement().satisfies(statement -> {
+            assertThat(statement.sql()).contains("regions");
+            assertThat(statement.executions()).isEqualTo(3);
+            // All from the lambda above.
+            assertThat(statement.callSites().keySet()).singleElement().asString()
+                    .startsWith(NPlusOneDetectorTest.class.getName());
+        });
+    }
+
+    @Test
+    void shouldAcceptBlockFetchingAssociationWithJoin() {
+        // WHEN
+        List<String> regionNames = getUsingHibernateReadOnly(session -> session
+                .createQuery("SELECT c FROM Country c JOIN FETCH c.region ORDER BY c.id", Country.class)
+                .list()
+                .stream()
+                .map(country -> country.getRegion().getName())
+                .toList());
+
+        // THEN
+        assertThat(regionNames).hasSize(3);
+    }
+
+    @Test
+    void shouldOnlyReportInWarnMode() {
+        // GIVEN
+        detector = new NPlusOneDetector(THRESHOLD, NPlusOneDetector.Mode.WARN);
+
+        // WHEN
+        List<String> regionNames = getUsingHibernateReadOnly(session -> session
+                .createQuery(ALL_COUNTRIES, Country.class)
+                .list()
+                .stream()
+                .map(country -> country.getRegion().getName())
+                .toList());
+
+        // THEN
+        assertThat(regionNames).containsExactly("Region 1", "Region 2", "Region 0");
+    }
+
+    @Test
+    void shouldFindRepeatedStatementsAboveThresholdOnly() {
+        // WHEN
+        SqlCapture capture = captureSql(() -> doUsingJpa(entityManager -> {
+            for (String countryId : List.of("PL", "BR")) {
+                entityManager.find(Country.class, countryId);
+            }
+        }));
+
+        // THEN
+        assertThat(capture.getStatementCount()).isEqualTo(2);
+        assertThat(new NPlusOneDetector(THRESHOLD, NPlusOneDetector.Mode.FAIL).findRepeatedStatements(capture)).isEmpty();
+        assertThat(new NPlusOneDetector(1, NPlusOneDetector.Mode.FAIL).findRepeatedStatements(capture)).singleElement()
+                .satisfies(statement -> assertThat(statement.executions()).isEqualTo(2));
+    }
+}
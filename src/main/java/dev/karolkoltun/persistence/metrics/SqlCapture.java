@@ -0,0 +1,116 @@
+package dev.karolkoltun.persistence.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Records the statements executed by the current thread between {@link #start()} and {@link #close()}, for asserting
+ * things like "this block issued exactly one query". Only the statements going through a
+ * {@link MeteredConnectionProvider} are seen. Captures can be nested - the outer one sees the statements of the inner
+ * one too.
+ */
+public final class SqlCapture implements AutoCloseable {
+    private static final ThreadLocal<SqlCapture> CURRENT = new ThreadLocal<>();
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+    // Frames of these are skipped when looking for the code which caused a statement.
+    private static final Set<String> INFRASTRUCTURE_PACKAGES = Set.of("java.", "javax.", "jdk.", "sun.", "com.sun.",
+            "org.hibernate.", "org.h2.", "org.postgresql.", "com.mysql.", "com.zaxxer.", "bitronix.");
+    private static final Set<String> INFRASTRUCTURE_CLASSES = Set.of("dev.karolkoltun.persistence.HibernateTest",
+            "dev.karolkoltun.persistence.TransactionExecutor", SqlCapture.class.getName(),
+            MeteredJdbc.class.getName(), NPlusOneDetector.class.getName());
+
+    private final SqlCapture outer;
+    private final boolean recordCallSites;
+    private final List<CapturedStatement> statements = new ArrayList<>();
+    private boolean closed;
+
+    private SqlCapture(SqlCapture outer, boolean recordCallSites) {
+        this.outer = outer;
+        this.recordCallSites = recordCallSites;
+    }
+
+    public static SqlCapture start() {
+        return start(false);
+    }
+
+    /**
+     * Like {@link #start()}, but also finds the line of code which caused every statement - the first frame outside
+     * Hibernate, the JDBC driver and the test templates. Walking the stack costs, so it's for tests only.
+     */
+    public static SqlCapture startWithCallSites() {
+        return start(true);
+    }
+
+    private static SqlCapture start(boolean recordCallSites) {
+        SqlCapture capture = new SqlCapture(CURRENT.get(), recordCallSites);
+        CURRENT.set(capture);
+        return capture;
+    }
+
+    static void record(String shape) {
+        String callSite = null;
+        for (SqlCapture capture = CURRENT.get(); capture != null; capture = capture.outer) {
+            if (capture.recordCallSites && callSite == null) {
+                callSite = findCallSite();
+            }
+            capture.statements.add(new CapturedStatement(shape, capture.recordCallSites ? callSite : null));
+        }
+    }
+
+    private static String findCallSite() {
+        return STACK_WALKER.walk(frames -> frames
+                        .filter(frame -> !isInfrastructure(frame.getClassName()))
+                        .findFirst())
+                .map(frame -> frame.toStackTraceElement().toString())
+                .orElse("<unknown>");
+    }
+
+    private static boolean isInfrastructure(String className) {
+        // Lazy loading goes through the generated proxy of the entity.
+        return className.contains("$HibernateProxy$")
+                || INFRASTRUCTURE_CLASSES.contains(className.split("\\$", 2)[0])
+                || INFRASTRUCTURE_PACKAGES.stream().anyMatch(className::startsWith);
+    }
+
+    /**
+     * @return shapes of the executed statements, in order; a JDBC batch is one statement
+     */
+    public List<String> getStatements() {
+        return statements.stream().map(CapturedStatement::sql).toList();
+    }
+
+    /**
+     * @return the executed statements, in order, with their call sites if recorded
+     */
+    public List<CapturedStatement> getCapturedStatements() {
+        return Collections.unmodifiableList(statements);
+    }
+
+    public int getStatementCount() {
+        return statements.size();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        if (CURRENT.get() != this) {
+            throw new IllegalStateException("SQL captures have to be closed in the reverse order of starting them, on the thread that started them.");
+        }
+        closed = true;
+        if (outer == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(outer);
+        }
+    }
+
+    /**
+     * @param callSite e.g. {@code com.example.FooTest.shouldBar(FooTest.java:42)}, or null if not recorded
+     */
+    public record CapturedStatement(String sql, String callSite) {
+    }
+}
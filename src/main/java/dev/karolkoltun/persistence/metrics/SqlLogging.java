@@ -0,0 +1,17 @@
+package dev.karolkoltun.persistence.metrics;
+
+/**
+ * Switch for printing the SQL to the console: on, unless the JVM is started with {@code -DshowSql=false}. Printing
+ * every statement to stdout distorts any timing, so performance runs should turn it off and look at
+ * {@link SqlMetrics} instead.
+ */
+public final class SqlLogging {
+    public static final String SHOW_SQL_PROPERTY = "showSql";
+
+    private SqlLogging() {
+    }
+
+    public static boolean isEnabled() {
+        return !"false".equals(System.getProperty(SHOW_SQL_PROPERTY));
+    }
+}
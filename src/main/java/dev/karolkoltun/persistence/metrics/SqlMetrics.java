@@ -0,0 +1,105 @@
+package dev.karolkoltun.persistence.metrics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executions, time and rows of the statements sent through one {@link MeteredConnectionProvider}, per statement
+ * shape (the SQL with literals and parameters replaced, see {@link SqlShape}). Safe to update from many threads.
+ */
+public class SqlMetrics {
+    private static final List<Duration> LATENCY_BUCKET_UPPER_BOUNDS = List.of(
+            Duration.ofNanos(10_000),
+            Duration.ofNanos(100_000),
+            Duration.ofMillis(1),
+            Duration.ofMillis(10),
+            Duration.ofMillis(100),
+            Duration.ofSeconds(1));
+
+    private final Map<String, ShapeMetrics> shapes = new ConcurrentHashMap<>();
+
+    /**
+     * Upper bounds of the latency histogram buckets; the last bucket (one more than the bounds) has no upper bound.
+     */
+    public static List<Duration> latencyBucketUpperBounds() {
+        return LATENCY_BUCKET_UPPER_BOUNDS;
+    }
+
+    void recordExecution(String shape, long nanos) {
+        shapes.computeIfAbsent(shape, __ -> new ShapeMetrics()).recordExecution(nanos);
+    }
+
+    void recordRows(String shape, long rows) {
+        shapes.computeIfAbsent(shape, __ -> new ShapeMetrics()).rows.add(rows);
+    }
+
+    /**
+     * @return the statistics of every statement shape, the ones taking the most time in total first
+     */
+    public List<StatementStats> snapshot() {
+        List<StatementStats> snapshot = new ArrayList<>();
+        shapes.forEach((shape, metrics) -> snapshot.add(metrics.snapshot(shape)));
+        snapshot.sort(Comparator.comparing(StatementStats::totalTime).reversed());
+        return snapshot;
+    }
+
+    public long getExecutionCount() {
+        long executions = 0;
+        for (ShapeMetrics metrics : shapes.values()) {
+            executions += metrics.executions.sum();
+        }
+        return executions;
+    }
+
+    public void reset() {
+        shapes.clear();
+    }
+
+    /**
+     * @param rows             rows read from the result sets of a query, or rows changed by an update
+     * @param latencyHistogram executions per latency bucket, see {@link #latencyBucketUpperBounds()}
+     */
+    public record StatementStats(String sql, long executions, long rows, Duration totalTime, Duration maxTime,
+                                 long[] latencyHistogram) {
+    }
+
+    private static class ShapeMetrics {
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLongArray latencyHistogram = new AtomicLongArray(LATENCY_BUCKET_UPPER_BOUNDS.size() + 1);
+
+        private void recordExecution(long nanos) {
+            executions.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            latencyHistogram.incrementAndGet(bucket(nanos));
+        }
+
+        private static int bucket(long nanos) {
+            for (int i = 0; i < LATENCY_BUCKET_UPPER_BOUNDS.size(); i++) {
+                if (nanos <= LATENCY_BUCKET_UPPER_BOUNDS.get(i).toNanos()) {
+                    return i;
+                }
+            }
+            return LATENCY_BUCKET_UPPER_BOUNDS.size();
+        }
+
+        private StatementStats snapshot(String shape) {
+            long[] histogram = new long[latencyHistogram.length()];
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] = latencyHistogram.get(i);
+            }
+            return new StatementStats(shape, executions.sum(), rows.sum(), Duration.ofNanos(totalNanos.sum()),
+                    Duration.ofNanos(maxNanos.get()), histogram);
+        }
+    }
+}
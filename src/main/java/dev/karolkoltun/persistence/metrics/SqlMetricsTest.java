@@ -0,0 +1,90 @@
+package dev.karolkoltun.persistence.metrics;
+
+import dev.karolkoltun.persistence.DataSourceProvider;
+import dev.karolkoltun.persistence.H2HrDataSourceProvider;
+import dev.karolkoltun.persistence.HibernateTest;
+import dev.karolkoltun.persistence.entity.Employee;
+import dev.karolkoltun.persistence.entity.JobId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SqlMetricsTest extends HibernateTest {
+    private static final int EMPLOYEES = 5;
+
+    @Override
+    public DataSourceProvider dataSourceProvider() {
+        return new H2HrDataSourceProvider();
+    }
+
+    @Override
+    public boolean recreateBeforeEachTest() {
+        return true;
+    }
+
+    @Override
+    @BeforeEach
+    protected void beforeEach() {
+        super.beforeEach();
+
+        doInHibernate(session -> {
+            for (int id = 0; id < EMPLOYEES; id++) {
+                session.persist(new Employee(id, "Jane", "Doe", "jdoe" + id + "@example.com", "555-1234",
+                        LocalDate.of(2020, 1, 1), JobId.IT_PROG, BigDecimal.valueOf(5000)));
+            }
+        });
+        getSqlMetrics().reset();
+    }
+
+    @Test
+    void shouldCaptureStatementsOfBlock() {
+        // WHEN
+        SqlCapture capture = captureSql(() -> getUsingHibernateReadOnly(session -> session
+                .createQuery("SELECT e FROM Employee e", Employee.class)
+                .list()));
+
+        // THEN
+        assertThat(capture.getStatementCount()).isEqualTo(1);
+        assertThat(capture.getStatements()).singleElement().asString().startsWith("select");
+    }
+
+    @Test
+    void shouldRecordRowsAndLatencyPerStatementShape() {
+        // WHEN
+        for (int id = 0; id < EMPLOYEES; id++) {
+            int employeeId = id;
+            getUsingHibernateReadOnly(session -> session
+                    .createNativeQuery("SELECT first_name FROM employees WHERE employee_id = " + employeeId)
+                    .getSingleResult());
+        }
+
+        // THEN
+        // Different literals, same shape.
+        List<SqlMetrics.StatementStats> statements = getSqlMetrics().snapshot();
+        assertThat(statements).singleElement().satisfies(stats -> {
+            assertThat(stats.sql()).isEqualTo("SELECT first_name FROM employees WHERE employee_id = ?");
+            assertThat(stats.executions()).isEqualTo(EMPLOYEES);
+            assertThat(stats.rows()).isEqualTo(EMPLOYEES);
+            assertThat(stats.maxTime()).isPositive().isLessThanOrEqualTo(stats.totalTime());
+            assertThat(Arrays.stream(stats.latencyHistogram()).sum()).isEqualTo(EMPLOYEES);
+        });
+    }
+
+    @Test
+    void shouldCountUpdatedRows() {
+        // WHEN
+        SqlCapture capture = captureSql(() -> doInHibernate(session -> session
+                .createNativeQuery("UPDATE employees SET salary = salary + 1 WHERE employee_id IN (1, 2, 3)")
+                .executeUpdate()));
+
+        // THEN
+        assertThat(capture.getStatements()).containsExactly("UPDATE employees SET salary = salary + ? WHERE employee_id in (...)");
+        assertThat(getSqlMetrics().snapshot()).singleElement().satisfies(stats -> assertThat(stats.rows()).isEqualTo(3));
+    }
+}
@@ -0,0 +1,59 @@
+package dev.karolkoltun.persistence.queue;
+
+import dev.karolkoltun.persistence.SqlStates;
+import org.hibernate.LockMode;
+import org.hibernate.LockOptions;
+import org.hibernate.dialect.Dialect;
+
+import javax.persistence.LockTimeoutException;
+import javax.persistence.PessimisticLockException;
+
+/**
+ * How a worker locks the items it claims. Both modes take a {@link LockMode#PESSIMISTIC_WRITE} lock
+ * ({@code SELECT ... FOR UPDATE}) and differ in what happens when a row is already locked by another worker.
+ */
+public enum ClaimMode {
+    /**
+     * Rows locked by other workers are left out of the result, so every worker gets different items and nobody waits.
+     */
+    SKIP_LOCKED(LockOptions.SKIP_LOCKED) {
+        @Override
+        public boolean isSupportedBy(Dialect dialect) {
+            return dialect.supportsSkipLocked();
+        }
+    },
+    /**
+     * The claim fails right away if any of the rows is locked. All the workers go for the same, oldest items, so all
+     * but one of them fail and have to try again.
+     */
+    NO_WAIT(LockOptions.NO_WAIT) {
+        @Override
+        public boolean isSupportedBy(Dialect dialect) {
+            return dialect.supportsNoWait();
+        }
+    };
+
+    private final int timeout;
+
+    ClaimMode(int timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * A dialect that does not support the mode silently renders a plain, blocking {@code FOR UPDATE} instead.
+     */
+    public abstract boolean isSupportedBy(Dialect dialect);
+
+    public LockOptions lockOptions() {
+        return new LockOptions(LockMode.PESSIMISTIC_WRITE).setTimeOut(timeout);
+    }
+
+    /**
+     * @return whether the claim failed because another worker holds a lock on one of the items
+     */
+    public boolean isConflict(Throwable failure) {
+        return failure instanceof LockTimeoutException
+                || failure instanceof PessimisticLockException
+                || SqlStates.is(failure, SqlStates.LOCK_NOT_AVAILABLE);
+    }
+}
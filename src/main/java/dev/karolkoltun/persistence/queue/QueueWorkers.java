@@ -0,0 +1,124 @@
+package dev.karolkoltun.persistence.queue;
+
+import dev.karolkoltun.persistence.RetryPolicy;
+import dev.karolkoltun.persistence.TransactionExecutor;
+import dev.karolkoltun.persistence.entity.WorkItem;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Drains a {@link WorkQueue} with many workers at once, each on its own thread, and reports how fast it went.
+ * <p>
+ * A worker stops when it finds no new items it could claim. A claim that fails because of another worker's lock is
+ * tried again by the {@link WorkQueue#retryingConflicts(RetryPolicy, TransactionExecutor.AttemptListener) queue}, after
+ * the backoff of the {@link RetryPolicy}, for as long as it takes; the worker only counts the conflicts.
+ */
+public class QueueWorkers {
+    private final WorkQueue workQueue;
+    private final RetryPolicy retryPolicy;
+
+    public QueueWorkers(WorkQueue workQueue, RetryPolicy retryPolicy) {
+        this.workQueue = workQueue;
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * @param processor called with every claimed batch, from many threads at once
+     */
+    public Report run(int workers, int batchSize, Consumer<? super List<WorkItem>> processor) {
+        List<Worker> tasks = new ArrayList<>();
+        for (int worker = 0; worker < workers; worker++) {
+            tasks.add(new Worker("worker-" + worker, batchSize, processor));
+        }
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            for (Future<Worker> task : executor.invokeAll(tasks)) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the workers.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A worker failed.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        return new Report(workQueue.getClaimMode(), workers, batchSize,
+                tasks.stream().mapToLong(worker -> worker.processed).sum(),
+                tasks.stream().mapToLong(worker -> worker.batches).sum(),
+                tasks.stream().mapToLong(worker -> worker.conflicts).sum(),
+                elapsed);
+    }
+
+    /**
+     * @param processed number of the items processed by all the workers
+     * @param batches   number of the committed claims that processed at least one item
+     * @param conflicts number of the claims that failed on a lock held by another worker
+     */
+    public record Report(ClaimMode claimMode,
+                         int workers,
+                         int batchSize,
+                         long processed,
+                         long batches,
+                         long conflicts,
+                         Duration elapsed) {
+
+        public double itemsPerSecond() {
+            return processed / (elapsed.toNanos() / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s, %d workers, batches of %d: %d items in %d ms (%.0f items/s), %d batches, %d conflicts",
+                    claimMode, workers, batchSize, processed, elapsed.toMillis(), itemsPerSecond(), batches, conflicts);
+        }
+    }
+
+    // The counters are read after the worker is done.
+    private class Worker implements Callable<Worker> {
+        private final String name;
+        private final WorkQueue retryingQueue;
+        private final int batchSize;
+        private final Consumer<? super List<WorkItem>> processor;
+
+        private long processed;
+        private long batches;
+        private long conflicts;
+
+        private Worker(String name, int batchSize, Consumer<? super List<WorkItem>> processor) {
+            this.name = name;
+            this.retryingQueue = workQueue.retryingConflicts(retryPolicy, (failure, attempt, elapsed, retryable) -> {
+                if (retryable) {
+                    conflicts++;
+                }
+                return true;
+            });
+            this.batchSize = batchSize;
+            this.processor = processor;
+        }
+
+        @Override
+        public Worker call() {
+            while (true) {
+                int claimed = retryingQueue.processBatch(batchSize, name, processor);
+                if (claimed == 0) {
+                    return this;
+                }
+                processed += claimed;
+                batches++;
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package dev.karolkoltun.persistence.queue;
+
+import dev.karolkoltun.persistence.RetryPolicy;
+import dev.karolkoltun.persistence.TransactionExecutor;
+import dev.karolkoltun.persistence.TransactionOptions;
+import dev.karolkoltun.persistence.entity.WorkItem;
+import org.hibernate.Session;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A job queue on top of the {@code work_items} table. A worker claims a batch of the oldest {@link WorkItem.Status#NEW}
+ * items with a pessimistic lock, processes them and marks them as done, all in one transaction. If the transaction
+ * fails, the items are unlocked and stay new, so another worker picks them up.
+ * <p>
+ * Needs a database that supports the {@link ClaimMode} - PostgreSQL 9.5+ or MySQL 8, not H2.
+ */
+public class WorkQueue {
+    private final TransactionExecutor transactionExecutor;
+    private final ClaimMode claimMode;
+
+    public WorkQueue(TransactionExecutor transactionExecutor, ClaimMode claimMode) {
+        this.transactionExecutor = transactionExecutor;
+        this.claimMode = claimMode;
+    }
+
+    public ClaimMode getClaimMode() {
+        return claimMode;
+    }
+
+    /**
+     * The same queue, retrying a claim that conflicts with another worker for as long as it takes, with the backoff of
+     * the retry policy - its limit of attempts does not apply. Every other failure goes to the caller.
+     *
+     * @param attemptListener told about every failed attempt, e.g. to count the conflicts
+     */
+    public WorkQueue retryingConflicts(RetryPolicy retryPolicy, TransactionExecutor.AttemptListener attemptListener) {
+        TransactionExecutor retryingExecutor = transactionExecutor.withRetryPolicy(retryPolicy.withMaxAttempts(Integer.MAX_VALUE))
+                .withRetryOn(claimMode::isConflict)
+                .withAttemptListener(attemptListener);
+        return new WorkQueue(retryingExecutor, claimMode);
+    }
+
+    public void enqueue(Collection<String> payloads) {
+        transactionExecutor.inSession(TransactionOptions.defaults(), session -> {
+            payloads.forEach(payload -> session.persist(new WorkItem(payload)));
+            return null;
+        });
+    }
+
+    /**
+     * Claims up to {@code batchSize} new items, passes them to the processor and marks them as done by the worker. With
+     * {@link ClaimMode#NO_WAIT}, fails with a failure for which {@link ClaimMode#isConflict(Throwable)} is true if
+     * another worker holds any of the items.
+     *
+     * @return number of the processed items; 0 if there are no new items left that are not claimed by other workers
+     */
+    public int processBatch(int batchSize, String worker, Consumer<? super List<WorkItem>> processor) {
+        return transactionExecutor.inSession(TransactionOptions.defaults(), session -> {
+            checkClaimModeSupported(session);
+
+            List<WorkItem> items = session.createQuery("SELECT w FROM WorkItem w WHERE w.status = :status ORDER BY w.id", WorkItem.class)
+                    .setParameter("status", WorkItem.Status.NEW)
+                    .setMaxResults(batchSize)
+                    .setLockOptions(claimMode.lockOptions())
+                    .getResultList();
+            if (items.isEmpty()) {
+                return 0;
+            }
+
+            processor.accept(items);
+
+            // One statement for the whole batch, instead of an update for every item.
+            session.createQuery("UPDATE WorkItem w SET w.status = :status, w.processedBy = :worker WHERE w.id IN :ids")
+                    .setParameter("status", WorkItem.Status.DONE)
+                    .setParameter("worker", worker)
+                    .setParameter("ids", items.stream().map(WorkItem::getId).toList())
+                    .executeUpdate();
+            return items.size();
+        });
+    }
+
+    public long count(WorkItem.Status status) {
+        return transactionExecutor.inSession(TransactionOptions.readOnlyDefaults(), session -> session
+                .createQuery("SELECT COUNT(w) FROM WorkItem w WHERE w.status = :status", Long.class)
+                .setParameter("status", status)
+                .getSingleResult());
+    }
+
+    /**
+     * Removes all the items, whatever their status.
+     */
+    public void clear() {
+        transactionExecutor.inSession(TransactionOptions.defaults(),
+                session -> session.createQuery("DELETE FROM WorkItem").executeUpdate());
+    }
+
+    private void checkClaimModeSupported(Session session) {
+        Dialect dialect = session.getSessionFactory().unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        if (!claimMode.isSupportedBy(dialect)) {
+            throw new UnsupportedOperationException(String.format("%s does not support claiming with %s.",
+                    dialect.getClass().getSimpleName(), claimMode));
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package dev.karolkoltun.persistence.queue;
+
+import dev.karolkoltun.persistence.DataSourceProvider;
+import dev.karolkoltun.persistence.HibernateTest;
+import dev.karolkoltun.persistence.PostgresqlBankDataSourceProvider;
+import dev.karolkoltun.persistence.RetryPolicy;
+import dev.karolkoltun.persistence.entity.WorkItem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class WorkQueueTest extends HibernateTest {
+    private static final int ITEMS = 200;
+    private static final int WORKERS = 4;
+    private static final int BATCH_SIZE = 10;
+    private static final RetryPolicy BACKOFF = RetryPolicy.defaults().withBackoff(Duration.ofMillis(1), Duration.ofMillis(20), 2.0);
+
+    @Override
+    public DataSourceProvider dataSourceProvider() {
+        return new PostgresqlBankDataSourceProvider();
+    }
+
+    @Override
+    public boolean recreateBeforeEachTest() {
+        return true;
+    }
+
+    @Override
+    @BeforeEach
+    protected void beforeEach() {
+        super.beforeEach();
+
+        new WorkQueue(transactionExecutor, ClaimMode.SKIP_LOCKED)
+                .enqueue(IntStream.range(0, ITEMS).mapToObj(item -> "item-" + item).toList());
+    }
+
+    @Test
+    void shouldProcessEveryItemOnceWithSkipLocked() {
+        shouldProcessEveryItemOnce(ClaimMode.SKIP_LOCKED);
+    }
+
+    @Test
+    void shouldProcessEveryItemOnceWithNoWait() {
+        shouldProcessEveryItemOnce(ClaimMode.NO_WAIT);
+    }
+
+    @Test
+    void shouldSkipItemsClaimedByAnotherWorker() throws Exception {
+        WorkQueue workQueue = new WorkQueue(transactionExecutor, ClaimMode.SKIP_LOCKED);
+
+        // WHEN
+        List<WorkItem> claimedByOther = new ArrayList<>();
+        List<WorkItem> claimedMeanwhile = new ArrayList<>();
+        whileAnotherWorkerHoldsBatch(workQueue, claimedByOther, () -> workQueue.processBatch(BATCH_SIZE, "second", claimedMeanwhile::addAll));
+
+        // THEN
+        // The second worker did not wait for the first one - it got the next batch right away.
+        assertThat(claimedByOther).hasSize(BATCH_SIZE);
+        assertThat(claimedMeanwhile).hasSize(BATCH_SIZE);
+        assertThat(claimedMeanwhile).extracting(WorkItem::getId)
+                .doesNotContainAnyElementsOf(claimedByOther.stream().map(WorkItem::getId).toList());
+        assertThat(workQueue.count(WorkItem.Status.DONE)).isEqualTo(2 * BATCH_SIZE);
+    }
+
+    @Test
+    void shouldFailRightAwayOnItemsClaimedByAnotherWorkerWithNoWait() throws Exception {
+        WorkQueue workQueue = new WorkQueue(transactionExecutor, ClaimMode.NO_WAIT);
+
+        // WHEN
+        List<WorkItem> claimedByOther = new ArrayList<>();
+        Throwable[] failure = new Throwable[1];
+        whileAnotherWorkerHoldsBatch(workQueue, claimedByOther,
+                () -> failure[0] = catchThrowable(() -> workQueue.processBatch(BATCH_SIZE, "second", items -> {})));
+
+        // THEN
+        assertThat(ClaimMode.NO_WAIT.isConflict(failure[0])).as("conflict: %s", failure[0]).isTrue();
+        assertThat(workQueue.count(WorkItem.Status.DONE)).isEqualTo(BATCH_SIZE);
+    }
+
+    private void shouldProcessEveryItemOnce(ClaimMode claimMode) {
+        // GIVEN
+        Set<Long> processedIds = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        QueueWorkers queueWorkers = new QueueWorkers(new WorkQueue(transactionExecutor, claimMode), BACKOFF);
+
+        // WHEN
+        QueueWorkers.Report report = queueWorkers.run(WORKERS, BATCH_SIZE, items -> items.forEach(item -> {
+            if (!processedIds.add(item.getId())) {
+                duplicates.incrementAndGet();
+            }
+        }));
+
+        // THEN
+        assertThat(report.processed()).isEqualTo(ITEMS);
+        assertThat(duplicates).hasValue(0);
+        assertThat(processedIds).hasSize(ITEMS);
+        WorkQueue workQueue = new WorkQueue(transactionExecutor, claimMode);
+        assertThat(workQueue.count(WorkItem.Status.NEW)).isZero();
+        assertThat(workQueue.count(WorkItem.Status.DONE)).isEqualTo(ITEMS);
+    }
+
+    // The other worker keeps its batch locked - its transaction stays open - until the given claim is done.
+    private static void whileAnotherWorkerHoldsBatch(WorkQueue workQueue, List<WorkItem> claimedByOther, Runnable claim) throws Exception {
+        CountDownLatch claimedLatch = new CountDownLatch(1);
+        CountDownLatch releaseLatch = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> other = executor.submit(() -> workQueue.processBatch(BATCH_SIZE, "first", items -> {
+                claimedByOther.addAll(items);
+                claimedLatch.countDown();
+                awaitOnLatch(releaseLatch);
+            }));
+            assertThat(claimedLatch.await(10, TimeUnit.SECONDS)).isTrue();
+
+            claim.run();
+
+            releaseLatch.countDown();
+            other.get(10, TimeUnit.SECONDS);
+        } finally {
+            releaseLatch.countDown();
+            executor.shutdown();
+        }
+    }
+}
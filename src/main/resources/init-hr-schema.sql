@@ -7,7 +7,7 @@ SET SCHEMA hr;
 -- SET COLLATION ENGLISH;
 
 CREATE TABLE regions (
-	region_id INT (11) NOT NULL,
+	region_id INT NOT NULL,
 	region_name VARCHAR(25),
 	PRIMARY KEY (region_id)
 	);
@@ -15,13 +15,13 @@ CREATE TABLE regions (
 CREATE TABLE countries (
 	country_id CHAR(2) NOT NULL,
 	country_name VARCHAR(40),
-	region_id INT (11) NOT NULL,
+	region_id INT NOT NULL,
 	PRIMARY KEY (country_id)
 );
 
 
 CREATE TABLE locations (
-	location_id INT (11) NOT NULL AUTO_INCREMENT,
+	location_id INT NOT NULL AUTO_INCREMENT,
 	street_address VARCHAR(40),
 	postal_code VARCHAR(12),
 	city VARCHAR(30) NOT NULL,
@@ -31,10 +31,10 @@ CREATE TABLE locations (
 	);
 
 CREATE TABLE departments (
-	department_id INT (11) NOT NULL,
+	department_id INT NOT NULL,
 	department_name VARCHAR(30) NOT NULL,
-	manager_id INT (11),
-	location_id INT (11),
+	manager_id INT,
+	location_id INT,
 	PRIMARY KEY (department_id)
 	);
 
@@ -47,7 +47,7 @@ CREATE TABLE jobs (
 	);
 
 CREATE TABLE employees (
-	employee_id INT (11) NOT NULL,
+	employee_id INT NOT NULL,
 	first_name VARCHAR(20),
 	last_name VARCHAR(25) NOT NULL,
 	email VARCHAR(25) NOT NULL,
@@ -56,17 +56,20 @@ CREATE TABLE employees (
 	job_id VARCHAR(10) NOT NULL,
 	salary DECIMAL(8, 2) NOT NULL,
 	commission_pct DECIMAL(2, 2),
-	manager_id INT (11),
-	department_id INT (11),
+	manager_id INT,
+	department_id INT,
 	PRIMARY KEY (employee_id)
 	);
 
+-- Used by Hibernate with a pooled optimizer - every value is the upper end of a block of 50 ids.
+CREATE SEQUENCE employees_seq START WITH 1000 INCREMENT BY 50;
+
 CREATE TABLE job_history (
-	employee_id INT (11) NOT NULL,
+	employee_id INT NOT NULL,
 	start_date DATE NOT NULL,
 	end_date DATE NOT NULL,
 	job_id VARCHAR(10) NOT NULL,
-	department_id INT (11) NOT NULL
+	department_id INT NOT NULL
 	);
 
 CREATE UNIQUE INDEX PK_EMPLOYEE_ID_START_DATE ON job_history (
@@ -922,7 +925,7 @@ VALUES (
 	'King',
 	'SKING',
 	'515.123.4567',
-	PARSEDATETIME('17-JUN-1987', 'dd-MMM-yyyy'),
+	PARSEDATETIME('17-Jun-1987', 'dd-MMM-yyyy'),
 	'AD_PRES',
 	24000,
 	NULL,
@@ -937,7 +940,7 @@ VALUES (
 	'Kochhar',
 	'NKOCHHAR',
 	'515.123.4568',
-	PARSEDATETIME('21-SEP-1989', 'dd-MMM-yyyy'),
+	PARSEDATETIME('21-Sep-1989', 'dd-MMM-yyyy'),
 	'AD_VP',
 	17000,
 	NULL,
@@ -952,7 +955,7 @@ VALUES (
 	'De Haan',
 	'LDEHAAN',
 	'515.123.4569',
-	PARSEDATETIME('13-JAN-1993', 'dd-MMM-yyyy'),
+	PARSEDATETIME('13-Jan-1993', 'dd-MMM-yyyy'),
 	'AD_VP',
 	17000,
 	NULL,
@@ -967,7 +970,7 @@ VALUES (
 	'Hunold',
 	'AHUNOLD',
 	'590.423.4567',
-	PARSEDATETIME('03-JAN-1990', 'dd-MMM-yyyy'),
+	PARSEDATETIME('03-Jan-1990', 'dd-MMM-yyyy'),
 	'IT_PROG',
 	9000,
 	NULL,
@@ -982,7 +985,7 @@ VALUES (
 	'Ernst',
 	'BERNST',
 	'590.423.4568',
-	PARSEDATETIME('21-MAY-1991', 'dd-MMM-yyyy'),
+	PARSEDATETIME('21-May-1991', 'dd-MMM-yyyy'),
 	'IT_PROG',
 	6000,
 	NULL,
@@ -997,7 +1000,7 @@ VALUES (
 	'Austin',
 	'DAUSTIN',
 	'590.423.4569',
-	PARSEDATETIME('25-JUN-1997', 'dd-MMM-yyyy'),
+	PARSEDATETIME('25-Jun-1997', 'dd-MMM-yyyy'),
 	'IT_PROG',
 	4800,
 	NULL,
@@ -1012,7 +1015,7 @@ VALUES (
 	'Pataballa',
 	'VPATABAL',
 	'590.423.4560',
-	PARSEDATETIME('05-FEB-1998', 'dd-MMM-yyyy'),
+	PARSEDATETIME('05-Feb-1998', 'dd-MMM-yyyy'),
 	'IT_PROG',
 	4800,
 	NULL,
@@ -1027,7 +1030,7 @@ VALUES (
 	'Lorentz',
 	'DLORENTZ',
 	'590.423.5567',
-	PARSEDATETIME('07-FEB-1999', 'dd-MMM-yyyy'),
+	PARSEDATETIME('07-Feb-1999', 'dd-MMM-yyyy'),
 	'IT_PROG',
 	4200,
 	NULL,
@@ -1042,7 +1045,7 @@ VALUES (
 	'Greenberg',
 	'NGREENBE',
 	'515.124.4569',
-	PARSEDATETIME('17-AUG-1994', 'dd-MMM-yyyy'),
+	PARSEDATETIME('17-Aug-1994', 'dd-MMM-yyyy'),
 	'FI_MGR',
 	12000,
 	NULL,
@@ -1057,7 +1060,7 @@ VALUES (
 	'Faviet',
 	'DFAVIET',
 	'515.124.4169',
-	PARSEDATETIME('16-AUG-1994', 'dd-MMM-yyyy'),
+	PARSEDATETIME('16-Aug-1994', 'dd-MMM-yyyy'),
 	'FI_ACCOUNT',
 	9000,
 	NULL,
@@ -1072,7 +1075,7 @@ VALUES (
 	'Chen',
 	'JCHEN',
 	'515.124.4269',
-	PARSEDATETIME('28-SEP-1997', 'dd-MMM-yyyy'),
+	PARSEDATETIME('28-Sep-1997', 'dd-MMM-yyyy'),
 	'FI_ACCOUNT',
 	8200,
 	NULL,
@@ -1087,7 +1090,7 @@ VALUES (
 	'Sciarra',
 	'ISCIARRA',
 	'515.124.4369',
-	PARSEDATETIME('30-SEP-1997', 'dd-MMM-yyyy'),
+	PARSEDATETIME('30-Sep-1997', 'dd-MMM-yyyy'),
 	'FI_ACCOUNT',
 	7700,
 	NULL,
@@ -1102,7 +1105,7 @@ VALUES (
 	'Urman',
 	'JMURMAN',
 	'515.124.4469',
-	PARSEDATETIME('07-MAR-1998', 'dd-MMM-yyyy'),
+	PARSEDATETIME('07-Mar-1998', 'dd-MMM-yyyy'),
 	'FI_ACCOUNT',
 	7800,
 	NULL,
@@ -1117,7 +1120,7 @@ VALUES (
 	'Popp',
 	'LPOPP',
 	'515.124.4567',
-	PARSEDATETIME('07-DEC-1999', 'dd-MMM-yyyy'),
+	PARSEDATETIME('07-Dec-1999', 'dd-MMM-yyyy'),
 	'FI_ACCOUNT',
 	6900,
 	NULL,
@@ -1132,7 +1135,7 @@ VALUES (
 	'Raphaely',
 	'DRAPHEAL',
 	'515.127.4561',
-	PARSEDATETIME('07-DEC-1994', 'dd-MMM-yyyy'),
+	PARSEDATETIME('07-Dec-1994', 'dd-MMM-yyyy'),
 	'PU_MAN',
 	11000,
 	NULL,
@@ -1147,7 +1150,7 @@ VALUES (
 	'Khoo',
 	'AKHOO',
 	'515.127.4562',
-	PARSEDATETIME('18-MAY-1995', 'dd-MMM-yyyy'),
+	PARSEDATETIME('18-May-1995', 'dd-MMM-yyyy'),
 	'PU_CLERK',
 	3100,
 	NULL,
@@ -1162,7 +1165,7 @@ VALUES (
 	'Baida',
 	'SBAIDA',
 	'515.127.4563',
-	PARSEDATETIME('24-DEC-1997', 'dd-MMM-yyyy'),
+	PARSEDATETIME('24-Dec-1997', 'dd-MMM-yyyy'),
 	'PU_CLERK',
 	2900,
 	NULL,
@@ -1177,7 +1180,7 @@ VALUES (
 	'Tobias',
 	'STOBIAS',
 	'515.127.4564',
-	PARSEDATETIME('24-JUL-1997', 'dd-MMM-yyyy'),
+	PARSEDATETIME('24-Jul-1997', 'dd-MMM-yyyy'),
 	'PU_CLERK',
 	2800,
 	NULL,
@@ -1192,7 +1195,7 @@ VALUES (
 	'Himuro',
 	'GHIMURO',
 	'515.127.4565',
-	PARSEDATETIME('15-NOV-1998', 'dd-MMM-yyyy'),
+	PARSEDATETIME('15-Nov-1998', 'dd-MMM-yyyy'),
 	'PU_CLERK',
 	2600,
 	NULL,
@@ -1207,7 +1210,7 @@ VALUES (
 	'Colmenares',
 	'KCOLMENA',
 	'515.127.4566',
-	PARSEDATETIME('10-AUG-1999', 'dd-MMM-yyyy'),
+	PARSEDATETIME('10-Aug-1999', 'dd-MMM-yyyy'),
 	'PU_CLERK',
 	2500,
 	NULL,
@@ -1222,7 +1225,7 @@ VALUES (
 	'Weiss',
 	'MWEISS',
 	'650.123.1234',
-	PARSEDATETIME('18-JUL-1996', 'dd-MMM-yyyy'),
+	PARSEDATETIME('18-Jul-1996', 'dd-MMM-yyyy'),
 	'ST_MAN',
 	8000,
 	NULL,
@@ -1237,7 +1240,7 @@ VALUES (
 	'Fripp',
 	'AFRIPP',
 	'650.123.2234',
-	PARSEDATETIME('10-APR-1997', 'dd-MMM-yyyy'),
+	PARSEDATETIME('10-Apr-1997', 'dd-MMM-yyyy'),
 	'ST_MAN',
 	8200,
 	NULL,
@@ -1252,7 +1255,7 @@ VALUES (
 	'Kaufling',
 	'PKAUFLIN',
 	'650.123.3234',
-	PARSEDATETIME('01-MAY-1995', 'dd-MMM-yyyy'),
+	PARSEDATETIME('01-May-1995', 'dd-MMM-yyyy'),
 	'ST_MAN',
 	7900,
 	NULL,
@@ -1267,7 +1270,7 @@ VALUES (
 	'Vollman',
 	'SVOLLMAN',
 	'650.123.4234',
-	PARSEDATETIME('10-OCT-1997', 'dd-MMM-yyyy'),
+	PARSEDATETIME('10-Oct-1997', 'dd-MMM-yyyy'),
 	'ST_MAN',
 	6500,
 	NULL,
@@ -1282,7 +1285,7 @@ VALUES (
 	'Mourgos',
 	'KMOURGOS',
 	'650.123.5234',
-	PARSEDATETIME('16-NOV-1999', 'dd-MMM-yyyy'),
+	PARSEDATETIME('16-Nov-1999', 'dd-MMM-yyyy'),
 	'ST_MAN',
 	5800,
 	NULL,
@@ -1297,7 +1300,7 @@ VALUES (
 	'Nayer',
 	'JNAYER',
 	'650.124.1214',
-	PARSEDATETIME('16-JUL-1997', 'dd-MMM-yyyy'),
+	PARSEDATETIME('16-Jul-1997', 'dd-MMM-yyyy'),
 	'ST_CLERK',
 	3200,
 	NULL,
@@ -1312,7 +1315,7 @@ VALUES (
 	'Mikkilineni',
 	'IMIKKILI',
 	'650.124.1224',
-	PARSEDATETIME('28-SEP-1998', 'dd-MMM-yyyy'),
+	PARSEDATETIME('28-Sep-1998', 'dd-MMM-yyyy'),
 	'ST_CLERK',
 	2700,
 	NULL,
@@ -1327,7 +1330,7 @@ VALUES (
 	'Landry',
 	'JLANDRY',
 	'650.124.1334',
-	PARSEDATETIME('14-JAN-1999', 'dd-MMM-yyyy'),
+	PARSEDATETIME('14-Jan-1999', 'dd-MMM-yyyy'),
 	'ST_CLERK',
 	2400,
 	NULL,
@@ -1342,7 +1345,7 @@ VALUES (
 	'Markle',
 	'SMARKLE',
 	'650.124.1434',
-	PARSEDATETIME('08-MAR-2000', 'dd-MMM-yyyy'),
+	PARSEDATETIME('08-Mar-2000', 'dd-MMM-yyyy'),
 	'ST_CLERK',
 	2200,
 	NULL,
@@ -1357,7 +1360,7 @@ VALUES (
 	'Bissot',
 	'LBISSOT',
 	'650.124.5234',
-	PARSEDATETIME('20-AUG-1997', 'dd-MMM-yyyy'),
+	PARSEDATETIME('20-Aug-1997', 'dd-MMM-yyyy'),
 	'ST_CLERK',
 	3300,
 	NULL,
@@ -1372,7 +1375,7 @@ VALUES (
 	'Atkinson',
 	'MATKINSO',
 	'650.124.6234',
-	PARSEDATETIME('30-OCT-1997', 'dd-MMM-yyyy'),
+	PARSEDATETIME('30-Oct-1997', 'dd-MMM-yyyy'),
 	'ST_CLERK',
 	2800,
 	NULL,
@@ -1387,7 +1390,7 @@ VALUES (
 	'Marlow',
 	'JAMRLOW',
 	'650.124.7234',
-	PARSEDATETIME('16-FEB-1997', 'dd-MMM-yyyy'),
+	PARSEDATETIME('16-Feb-1997', 'dd-MMM-yyyy'),
 	'ST_CLERK',
 	2500,
 	NULL,
@@ -1402,7 +1405,7 @@ VALUES (
 	'Olson',
 	'TJOLSON',
 	'650.124.8234',
-	PARSEDATETIME('10-APR-1999', 'dd-MMM-yyyy'),
+	PARSEDATETIME('10-Apr-1999', 'dd-MMM-yyyy'),
 	'ST_CLERK',
 	2100,
 	NULL,
@@ -1417,7 +1420,7 @@ VALUES (
 	'Mallin',
 	'JMALLIN',
 	'650.127.1934',
-	PARSEDATETIME('14-JUN-1996', 'dd-MMM-yyyy'),
+	PARSEDATETIME('14-Jun-1996', 'dd-MMM-yyyy'),
 	'ST_CLERK',
 	3300,
 	NULL,
@@ -1432,7 +1435,7 @@ VALUES (
 	'Rogers',
 	'MROGERS',
 	'650.127.1834',
-	PARSEDATETIME('26-AUG-1998', 'dd-MMM-yyyy'),
+	PARSEDATETIME('26-Aug-1998', 'dd-MMM-yyyy'),
 	'ST_CLERK',
 	2900,
 	NULL,
@@ -1447,7 +1450,7 @@ VALUES (
 	'Gee',
 	'KGEE',
 	'650.127.1734',
-	PARSEDATETIME('12-DEC-1999', 'dd-MMM-yyyy'),
+	PARSEDATETIME('12-Dec-1999', 'dd-MMM-yyyy'),
 	'ST_CLERK',
 	2400,
 	NULL,
@@ -1462,7 +1465,7 @@ VALUES (
 	'Philtanker',
 	'HPHILTAN',
 	'650.127.1634',
-	PARSEDATETIME('06-FEB-2000', 'dd-MMM-yyyy'),
+	PARSEDATETIME('06-Feb-2000', 'dd-MMM-yyyy'),
 	'ST_CLERK',
 	2200,
 	NULL,
@@ -1477,7 +1480,7 @@ VALUES (
 	'Ladwig',
 	'RLADWIG',
 	'650.121.1234',
-	PARSEDATETIME('14-JUL-1995', 'dd-MMM-yyyy'),
+	PARSEDATETIME('14-Jul-1995', 'dd-MMM-yyyy'),
 	'ST_CLERK',
 	3600,
 	NULL,
@@ -1492,7 +1495,7 @@ VALUES (
 	'Stiles',
 	'SSTILES',
 	'650.121.2034',
-	PARSEDATETIME('26-OCT-1997', 'dd-MMM-yyyy'),
+	PARSEDATETIME('26-Oct-1997', 'dd-MMM-yyyy'),
 	'ST_CLERK',
 	3200,
 	NULL,
@@ -1507,7 +1510,7 @@ VALUES (
 	'Seo',
 	'JSEO',
 	'650.121.2019',
-	PARSEDATETIME('12-FEB-1998', 'dd-MMM-yyyy'),
+	PARSEDATETIME('12-Feb-1998', 'dd-MMM-yyyy'),
 	'ST_CLERK',
 	2700,
 	NULL,
@@ -1522,7 +1525,7 @@ VALUES (
 	'Patel',
 	'JPATEL',
 	'650.121.1834',
-	PARSEDATETIME('06-APR-1998', 'dd-MMM-yyyy'),
+	PARSEDATETIME('06-Apr-1998', 'dd-MMM-yyyy'),
 	'ST_CLERK',
 	2500,
 	NULL,
@@ -1537,7 +1540,7 @@ VALUES (
 	'Rajs',
 	'TRAJS',
 	'650.121.8009',
-	PARSEDATETIME('17-OCT-1995', 'dd-MMM-yyyy'),
+	PARSEDATETIME('17-Oct-1995', 'dd-MMM-yyyy'),
 	'ST_CLERK',
 	3500,
 	NULL,
@@ -1552,7 +1555,7 @@ VALUES (
 	'Davies',
 	'CDAVIES',
 	'650.121.2994',
-	PARSEDATETIME('29-JAN-1997', 'dd-MMM-yyyy'),
+	PARSEDATETIME('29-Jan-1997', 'dd-MMM-yyyy'),
 	'ST_CLERK',
 	3100,
 	NULL,
@@ -1567,7 +1570,7 @@ VALUES (
 	'Matos',
 	'RMATOS',
 	'650.121.2874',
-	PARSEDATETIME('15-MAR-1998', 'dd-MMM-yyyy'),
+	PARSEDATETIME('15-Mar-1998', 'dd-MMM-yyyy'),
 	'ST_CLERK',
 	2600,
 	NULL,
@@ -1582,7 +1585,7 @@ VALUES (
 	'Vargas',
 	'PVARGAS',
 	'650.121.2004',
-	PARSEDATETIME('09-JUL-1998', 'dd-MMM-yyyy'),
+	PARSEDATETIME('09-Jul-1998', 'dd-MMM-yyyy'),
 	'ST_CLERK',
 	2500,
 	NULL,
@@ -1597,7 +1600,7 @@ VALUES (
 	'Russell',
 	'JRUSSEL',
 	'011.44.1344.429268',
-	PARSEDATETIME('01-OCT-1996', 'dd-MMM-yyyy'),
+	PARSEDATETIME('01-Oct-1996', 'dd-MMM-yyyy'),
 	'SA_MAN',
 	14000,
 	.4,
@@ -1612,7 +1615,7 @@ VALUES (
 	'Partners',
 	'KPARTNER',
 	'011.44.1344.467268',
-	PARSEDATETIME('05-JAN-1997', 'dd-MMM-yyyy'),
+	PARSEDATETIME('05-Jan-1997', 'dd-MMM-yyyy'),
 	'SA_MAN',
 	13500,
 	.3,
@@ -1627,7 +1630,7 @@ VALUES (
 	'Errazuriz',
 	'AERRAZUR',
 	'011.44.1344.429278',
-	PARSEDATETIME('10-MAR-1997', 'dd-MMM-yyyy'),
+	PARSEDATETIME('10-Mar-1997', 'dd-MMM-yyyy'),
 	'SA_MAN',
 	12000,
 	.3,
@@ -1642,7 +1645,7 @@ VALUES (
 	'Cambrault',
 	'GCAMBRAU',
 	'011.44.1344.619268',
-	PARSEDATETIME('15-OCT-1999', 'dd-MMM-yyyy'),
+	PARSEDATETIME('15-Oct-1999', 'dd-MMM-yyyy'),
 	'SA_MAN',
 	11000,
 	.3,
@@ -1657,7 +1660,7 @@ VALUES (
 	'Zlotkey',
 	'EZLOTKEY',
 	'011.44.1344.429018',
-	PARSEDATETIME('29-JAN-2000', 'dd-MMM-yyyy'),
+	PARSEDATETIME('29-Jan-2000', 'dd-MMM-yyyy'),
 	'SA_MAN',
 	10500,
 	.2,
@@ -1672,7 +1675,7 @@ VALUES (
 	'Tucker',
 	'PTUCKER',
 	'011.44.1344.129268',
-	PARSEDATETIME('30-JAN-1997', 'dd-MMM-yyyy'),
+	PARSEDATETIME('30-Jan-1997', 'dd-MMM-yyyy'),
 	'SA_REP',
 	10000,
 	.3,
@@ -1687,7 +1690,7 @@ VALUES (
 	'Bernstein',
 	'DBERNSTE',
 	'011.44.1344.345268',
-	PARSEDATETIME('24-MAR-1997', 'dd-MMM-yyyy'),
+	PARSEDATETIME('24-Mar-1997', 'dd-MMM-yyyy'),
 	'SA_REP',
 	9500,
 	.25,
@@ -1702,7 +1705,7 @@ VALUES (
 	'Hall',
 	'PHALL',
 	'011.44.1344.478968',
-	PARSEDATETIME('20-AUG-1997', 'dd-MMM-yyyy'),
+	PARSEDATETIME('20-Aug-1997', 'dd-MMM-yyyy'),
 	'SA_REP',
 	9000,
 	.25,
@@ -1717,7 +1720,7 @@ VALUES (
 	'Olsen',
 	'COLSEN',
 	'011.44.1344.498718',
-	PARSEDATETIME('30-MAR-1998', 'dd-MMM-yyyy'),
+	PARSEDATETIME('30-Mar-1998', 'dd-MMM-yyyy'),
 	'SA_REP',
 	8000,
 	.2,
@@ -1732,7 +1735,7 @@ VALUES (
 	'Cambrault',
 	'NCAMBRAU',
 	'011.44.1344.987668',
-	PARSEDATETIME('09-DEC-1998', 'dd-MMM-yyyy'),
+	PARSEDATETIME('09-Dec-1998', 'dd-MMM-yyyy'),
 	'SA_REP',
 	7500,
 	.2,
@@ -1747,7 +1750,7 @@ VALUES (
 	'Tuvault',
 	'OTUVAULT',
 	'011.44.1344.486508',
-	PARSEDATETIME('23-NOV-1999', 'dd-MMM-yyyy'),
+	PARSEDATETIME('23-Nov-1999', 'dd-MMM-yyyy'),
 	'SA_REP',
 	7000,
 	.15,
@@ -1762,7 +1765,7 @@ VALUES (
 	'King',
 	'JKING',
 	'011.44.1345.429268',
-	PARSEDATETIME('30-JAN-1996', 'dd-MMM-yyyy'),
+	PARSEDATETIME('30-Jan-1996', 'dd-MMM-yyyy'),
 	'SA_REP',
 	10000,
 	.35,
@@ -1777,7 +1780,7 @@ VALUES (
 	'Sully',
 	'PSULLY',
 	'011.44.1345.929268',
-	PARSEDATETIME('04-MAR-1996', 'dd-MMM-yyyy'),
+	PARSEDATETIME('04-Mar-1996', 'dd-MMM-yyyy'),
 	'SA_REP',
 	9500,
 	.35,
@@ -1792,7 +1795,7 @@ VALUES (
 	'McEwen',
 	'AMCEWEN',
 	'011.44.1345.829268',
-	PARSEDATETIME('01-AUG-1996', 'dd-MMM-yyyy'),
+	PARSEDATETIME('01-Aug-1996', 'dd-MMM-yyyy'),
 	'SA_REP',
 	9000,
 	.35,
@@ -1807,7 +1810,7 @@ VALUES (
 	'Smith',
 	'LSMITH',
 	'011.44.1345.729268',
-	PARSEDATETIME('10-MAR-1997', 'dd-MMM-yyyy'),
+	PARSEDATETIME('10-Mar-1997', 'dd-MMM-yyyy'),
 	'SA_REP',
 	8000,
 	.3,
@@ -1822,7 +1825,7 @@ VALUES (
 	'Doran',
 	'LDORAN',
 	'011.44.1345.629268',
-	PARSEDATETIME('15-DEC-1997', 'dd-MMM-yyyy'),
+	PARSEDATETIME('15-Dec-1997', 'dd-MMM-yyyy'),
 	'SA_REP',
 	7500,
 	.3,
@@ -1837,7 +1840,7 @@ VALUES (
 	'Sewall',
 	'SSEWALL',
 	'011.44.1345.529268',
-	PARSEDATETIME('03-NOV-1998', 'dd-MMM-yyyy'),
+	PARSEDATETIME('03-Nov-1998', 'dd-MMM-yyyy'),
 	'SA_REP',
 	7000,
 	.25,
@@ -1852,7 +1855,7 @@ VALUES (
 	'Vishney',
 	'CVISHNEY',
 	'011.44.1346.129268',
-	PARSEDATETIME('11-NOV-1997', 'dd-MMM-yyyy'),
+	PARSEDATETIME('11-Nov-1997', 'dd-MMM-yyyy'),
 	'SA_REP',
 	10500,
 	.25,
@@ -1867,7 +1870,7 @@ VALUES (
 	'Greene',
 	'DGREENE',
 	'011.44.1346.229268',
-	PARSEDATETIME('19-MAR-1999', 'dd-MMM-yyyy'),
+	PARSEDATETIME('19-Mar-1999', 'dd-MMM-yyyy'),
 	'SA_REP',
 	9500,
 	.15,
@@ -1882,7 +1885,7 @@ VALUES (
 	'Marvins',
 	'MMARVINS',
 	'011.44.1346.329268',
-	PARSEDATETIME('24-JAN-2000', 'dd-MMM-yyyy'),
+	PARSEDATETIME('24-Jan-2000', 'dd-MMM-yyyy'),
 	'SA_REP',
 	7200,
 	.10,
@@ -1897,7 +1900,7 @@ VALUES (
 	'Lee',
 	'DLEE',
 	'011.44.1346.529268',
-	PARSEDATETIME('23-FEB-2000', 'dd-MMM-yyyy'),
+	PARSEDATETIME('23-Feb-2000', 'dd-MMM-yyyy'),
 	'SA_REP',
 	6800,
 	.1,
@@ -1912,7 +1915,7 @@ VALUES (
 	'Ande',
 	'SANDE',
 	'011.44.1346.629268',
-	PARSEDATETIME('24-MAR-2000', 'dd-MMM-yyyy'),
+	PARSEDATETIME('24-Mar-2000', 'dd-MMM-yyyy'),
 	'SA_REP',
 	6400,
 	.10,
@@ -1927,7 +1930,7 @@ VALUES (
 	'Banda',
 	'ABANDA',
 	'011.44.1346.729268',
-	PARSEDATETIME('21-APR-2000', 'dd-MMM-yyyy'),
+	PARSEDATETIME('21-Apr-2000', 'dd-MMM-yyyy'),
 	'SA_REP',
 	6200,
 	.10,
@@ -1942,7 +1945,7 @@ VALUES (
 	'Ozer',
 	'LOZER',
 	'011.44.1343.929268',
-	PARSEDATETIME('11-MAR-1997', 'dd-MMM-yyyy'),
+	PARSEDATETIME('11-Mar-1997', 'dd-MMM-yyyy'),
 	'SA_REP',
 	11500,
 	.25,
@@ -1957,7 +1960,7 @@ VALUES (
 	'Bloom',
 	'HBLOOM',
 	'011.44.1343.829268',
-	PARSEDATETIME('23-MAR-1998', 'dd-MMM-yyyy'),
+	PARSEDATETIME('23-Mar-1998', 'dd-MMM-yyyy'),
 	'SA_REP',
 	10000,
 	.20,
@@ -1972,7 +1975,7 @@ VALUES (
 	'Fox',
 	'TFOX',
 	'011.44.1343.729268',
-	PARSEDATETIME('24-JAN-1998', 'dd-MMM-yyyy'),
+	PARSEDATETIME('24-Jan-1998', 'dd-MMM-yyyy'),
 	'SA_REP',
 	9600,
 	.20,
@@ -1987,7 +1990,7 @@ VALUES (
 	'Smith',
 	'WSMITH',
 	'011.44.1343.629268',
-	PARSEDATETIME('23-FEB-1999', 'dd-MMM-yyyy'),
+	PARSEDATETIME('23-Feb-1999', 'dd-MMM-yyyy'),
 	'SA_REP',
 	7400,
 	.15,
@@ -2002,7 +2005,7 @@ VALUES (
 	'Bates',
 	'EBATES',
 	'011.44.1343.529268',
-	PARSEDATETIME('24-MAR-1999', 'dd-MMM-yyyy'),
+	PARSEDATETIME('24-Mar-1999', 'dd-MMM-yyyy'),
 	'SA_REP',
 	7300,
 	.15,
@@ -2017,7 +2020,7 @@ VALUES (
 	'Kumar',
 	'SKUMAR',
 	'011.44.1343.329268',
-	PARSEDATETIME('21-APR-2000', 'dd-MMM-yyyy'),
+	PARSEDATETIME('21-Apr-2000', 'dd-MMM-yyyy'),
 	'SA_REP',
 	6100,
 	.10,
@@ -2032,7 +2035,7 @@ VALUES (
 	'Abel',
 	'EABEL',
 	'011.44.1644.429267',
-	PARSEDATETIME('11-MAY-1996', 'dd-MMM-yyyy'),
+	PARSEDATETIME('11-May-1996', 'dd-MMM-yyyy'),
 	'SA_REP',
 	11000,
 	.30,
@@ -2047,7 +2050,7 @@ VALUES (
 	'Hutton',
 	'AHUTTON',
 	'011.44.1644.429266',
-	PARSEDATETIME('19-MAR-1997', 'dd-MMM-yyyy'),
+	PARSEDATETIME('19-Mar-1997', 'dd-MMM-yyyy'),
 	'SA_REP',
 	8800,
 	.25,
@@ -2062,7 +2065,7 @@ VALUES (
 	'Taylor',
 	'JTAYLOR',
 	'011.44.1644.429265',
-	PARSEDATETIME('24-MAR-1998', 'dd-MMM-yyyy'),
+	PARSEDATETIME('24-Mar-1998', 'dd-MMM-yyyy'),
 	'SA_REP',
 	8600,
 	.20,
@@ -2077,7 +2080,7 @@ VALUES (
 	'Livingston',
 	'JLIVINGS',
 	'011.44.1644.429264',
-	PARSEDATETIME('23-APR-1998', 'dd-MMM-yyyy'),
+	PARSEDATETIME('23-Apr-1998', 'dd-MMM-yyyy'),
 	'SA_REP',
 	8400,
 	.20,
@@ -2092,7 +2095,7 @@ VALUES (
 	'Grant',
 	'KGRANT',
 	'011.44.1644.429263',
-	PARSEDATETIME('24-MAY-1999', 'dd-MMM-yyyy'),
+	PARSEDATETIME('24-May-1999', 'dd-MMM-yyyy'),
 	'SA_REP',
 	7000,
 	.15,
@@ -2107,7 +2110,7 @@ VALUES (
 	'Johnson',
 	'CJOHNSON',
 	'011.44.1644.429262',
-	PARSEDATETIME('04-JAN-2000', 'dd-MMM-yyyy'),
+	PARSEDATETIME('04-Jan-2000', 'dd-MMM-yyyy'),
 	'SA_REP',
 	6200,
 	.10,
@@ -2122,7 +2125,7 @@ VALUES (
 	'Taylor',
 	'WTAYLOR',
 	'650.507.9876',
-	PARSEDATETIME('24-JAN-1998', 'dd-MMM-yyyy'),
+	PARSEDATETIME('24-Jan-1998', 'dd-MMM-yyyy'),
 	'SH_CLERK',
 	3200,
 	NULL,
@@ -2137,7 +2140,7 @@ VALUES (
 	'Fleaur',
 	'JFLEAUR',
 	'650.507.9877',
-	PARSEDATETIME('23-FEB-1998', 'dd-MMM-yyyy'),
+	PARSEDATETIME('23-Feb-1998', 'dd-MMM-yyyy'),
 	'SH_CLERK',
 	3100,
 	NULL,
@@ -2152,7 +2155,7 @@ VALUES (
 	'Sullivan',
 	'MSULLIVA',
 	'650.507.9878',
-	PARSEDATETIME('21-JUN-1999', 'dd-MMM-yyyy'),
+	PARSEDATETIME('21-Jun-1999', 'dd-MMM-yyyy'),
 	'SH_CLERK',
 	2500,
 	NULL,
@@ -2167,7 +2170,7 @@ VALUES (
 	'Geoni',
 	'GGEONI',
 	'650.507.9879',
-	PARSEDATETIME('03-FEB-2000', 'dd-MMM-yyyy'),
+	PARSEDATETIME('03-Feb-2000', 'dd-MMM-yyyy'),
 	'SH_CLERK',
 	2800,
 	NULL,
@@ -2182,7 +2185,7 @@ VALUES (
 	'Sarchand',
 	'NSARCHAN',
 	'650.509.1876',
-	PARSEDATETIME('27-JAN-1996', 'dd-MMM-yyyy'),
+	PARSEDATETIME('27-Jan-1996', 'dd-MMM-yyyy'),
 	'SH_CLERK',
 	4200,
 	NULL,
@@ -2197,7 +2200,7 @@ VALUES (
 	'Bull',
 	'ABULL',
 	'650.509.2876',
-	PARSEDATETIME('20-FEB-1997', 'dd-MMM-yyyy'),
+	PARSEDATETIME('20-Feb-1997', 'dd-MMM-yyyy'),
 	'SH_CLERK',
 	4100,
 	NULL,
@@ -2212,7 +2215,7 @@ VALUES (
 	'Dellinger',
 	'JDELLING',
 	'650.509.3876',
-	PARSEDATETIME('24-JUN-1998', 'dd-MMM-yyyy'),
+	PARSEDATETIME('24-Jun-1998', 'dd-MMM-yyyy'),
 	'SH_CLERK',
 	3400,
 	NULL,
@@ -2227,7 +2230,7 @@ VALUES (
 	'Cabrio',
 	'ACABRIO',
 	'650.509.4876',
-	PARSEDATETIME('07-FEB-1999', 'dd-MMM-yyyy'),
+	PARSEDATETIME('07-Feb-1999', 'dd-MMM-yyyy'),
 	'SH_CLERK',
 	3000,
 	NULL,
@@ -2242,7 +2245,7 @@ VALUES (
 	'Chung',
 	'KCHUNG',
 	'650.505.1876',
-	PARSEDATETIME('14-JUN-1997', 'dd-MMM-yyyy'),
+	PARSEDATETIME('14-Jun-1997', 'dd-MMM-yyyy'),
 	'SH_CLERK',
 	3800,
 	NULL,
@@ -2257,7 +2260,7 @@ VALUES (
 	'Dilly',
 	'JDILLY',
 	'650.505.2876',
-	PARSEDATETIME('13-AUG-1997', 'dd-MMM-yyyy'),
+	PARSEDATETIME('13-Aug-1997', 'dd-MMM-yyyy'),
 	'SH_CLERK',
 	3600,
 	NULL,
@@ -2272,7 +2275,7 @@ VALUES (
 	'Gates',
 	'TGATES',
 	'650.505.3876',
-	PARSEDATETIME('11-JUL-1998', 'dd-MMM-yyyy'),
+	PARSEDATETIME('11-Jul-1998', 'dd-MMM-yyyy'),
 	'SH_CLERK',
 	2900,
 	NULL,
@@ -2287,7 +2290,7 @@ VALUES (
 	'Perkins',
 	'RPERKINS',
 	'650.505.4876',
-	PARSEDATETIME('19-DEC-1999', 'dd-MMM-yyyy'),
+	PARSEDATETIME('19-Dec-1999', 'dd-MMM-yyyy'),
 	'SH_CLERK',
 	2500,
 	NULL,
@@ -2302,7 +2305,7 @@ VALUES (
 	'Bell',
 	'SBELL',
 	'650.501.1876',
-	PARSEDATETIME('04-FEB-1996', 'dd-MMM-yyyy'),
+	PARSEDATETIME('04-Feb-1996', 'dd-MMM-yyyy'),
 	'SH_CLERK',
 	4000,
 	NULL,
@@ -2317,7 +2320,7 @@ VALUES (
 	'Everett',
 	'BEVERETT',
 	'650.501.2876',
-	PARSEDATETIME('03-MAR-1997', 'dd-MMM-yyyy'),
+	PARSEDATETIME('03-Mar-1997', 'dd-MMM-yyyy'),
 	'SH_CLERK',
 	3900,
 	NULL,
@@ -2332,7 +2335,7 @@ VALUES (
 	'McCain',
 	'SMCCAIN',
 	'650.501.3876',
-	PARSEDATETIME('01-JUL-1998', 'dd-MMM-yyyy'),
+	PARSEDATETIME('01-Jul-1998', 'dd-MMM-yyyy'),
 	'SH_CLERK',
 	3200,
 	NULL,
@@ -2347,7 +2350,7 @@ VALUES (
 	'Jones',
 	'VJONES',
 	'650.501.4876',
-	PARSEDATETIME('17-MAR-1999', 'dd-MMM-yyyy'),
+	PARSEDATETIME('17-Mar-1999', 'dd-MMM-yyyy'),
 	'SH_CLERK',
 	2800,
 	NULL,
@@ -2362,7 +2365,7 @@ VALUES (
 	'Walsh',
 	'AWALSH',
 	'650.507.9811',
-	PARSEDATETIME('24-APR-1998', 'dd-MMM-yyyy'),
+	PARSEDATETIME('24-Apr-1998', 'dd-MMM-yyyy'),
 	'SH_CLERK',
 	3100,
 	NULL,
@@ -2377,7 +2380,7 @@ VALUES (
 	'Feeney',
 	'KFEENEY',
 	'650.507.9822',
-	PARSEDATETIME('23-MAY-1998', 'dd-MMM-yyyy'),
+	PARSEDATETIME('23-May-1998', 'dd-MMM-yyyy'),
 	'SH_CLERK',
 	3000,
 	NULL,
@@ -2392,7 +2395,7 @@ VALUES (
 	'OConnell',
 	'DOCONNEL',
 	'650.507.9833',
-	PARSEDATETIME('21-JUN-1999', 'dd-MMM-yyyy'),
+	PARSEDATETIME('21-Jun-1999', 'dd-MMM-yyyy'),
 	'SH_CLERK',
 	2600,
 	NULL,
@@ -2407,7 +2410,7 @@ VALUES (
 	'Grant',
 	'DGRANT',
 	'650.507.9844',
-	PARSEDATETIME('13-JAN-2000', 'dd-MMM-yyyy'),
+	PARSEDATETIME('13-Jan-2000', 'dd-MMM-yyyy'),
 	'SH_CLERK',
 	2600,
 	NULL,
@@ -2422,7 +2425,7 @@ VALUES (
 	'Whalen',
 	'JWHALEN',
 	'515.123.4444',
-	PARSEDATETIME('17-SEP-1987', 'dd-MMM-yyyy'),
+	PARSEDATETIME('17-Sep-1987', 'dd-MMM-yyyy'),
 	'AD_ASST',
 	4400,
 	NULL,
@@ -2437,7 +2440,7 @@ VALUES (
 	'Hartstein',
 	'MHARTSTE',
 	'515.123.5555',
-	PARSEDATETIME('17-FEB-1996', 'dd-MMM-yyyy'),
+	PARSEDATETIME('17-Feb-1996', 'dd-MMM-yyyy'),
 	'MK_MAN',
 	13000,
 	NULL,
@@ -2452,7 +2455,7 @@ VALUES (
 	'Fay',
 	'PFAY',
 	'603.123.6666',
-	PARSEDATETIME('17-AUG-1997', 'dd-MMM-yyyy'),
+	PARSEDATETIME('17-Aug-1997', 'dd-MMM-yyyy'),
 	'MK_REP',
 	6000,
 	NULL,
@@ -2467,7 +2470,7 @@ VALUES (
 	'Mavris',
 	'SMAVRIS',
 	'515.123.7777',
-	PARSEDATETIME('07-JUN-1994', 'dd-MMM-yyyy'),
+	PARSEDATETIME('07-Jun-1994', 'dd-MMM-yyyy'),
 	'HR_REP',
 	6500,
 	NULL,
@@ -2482,7 +2485,7 @@ VALUES (
 	'Baer',
 	'HBAER',
 	'515.123.8888',
-	PARSEDATETIME('07-JUN-1994', 'dd-MMM-yyyy'),
+	PARSEDATETIME('07-Jun-1994', 'dd-MMM-yyyy'),
 	'PR_REP',
 	10000,
 	NULL,
@@ -2497,7 +2500,7 @@ VALUES (
 	'Higgins',
 	'SHIGGINS',
 	'515.123.8080',
-	PARSEDATETIME('07-JUN-1994', 'dd-MMM-yyyy'),
+	PARSEDATETIME('07-Jun-1994', 'dd-MMM-yyyy'),
 	'AC_MGR',
 	12000,
 	NULL,
@@ -2512,7 +2515,7 @@ VALUES (
 	'Gietz',
 	'WGIETZ',
 	'51hr5.123.8181',
-	PARSEDATETIME('07-JUN-1994', 'dd-MMM-yyyy'),
+	PARSEDATETIME('07-Jun-1994', 'dd-MMM-yyyy'),
 	'AC_ACCOUNT',
 	8300,
 	NULL,